@@ -4,8 +4,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.qubership.cloud.actions.go.model.*;
 import org.qubership.cloud.actions.go.model.repository.RepositoryConfig;
 import org.qubership.cloud.actions.go.publish.ResultPublisher;
+import org.qubership.cloud.actions.go.util.CommandRunner;
+import org.qubership.cloud.actions.go.util.ResourceGovernor;
 import picocli.CommandLine;
 
+import java.nio.file.Path;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -27,6 +30,9 @@ public class GoBulkReleaseCli implements Runnable {
     @CommandLine.Option(names = {"--gitPassword"}, required = true, description = "git password")
     private String gitPassword;
 
+    @CommandLine.Option(names = {"--gitMirrorDir"}, description = "directory of persistent bare mirrors of the repositories, to fetch only the delta since the previous run")
+    private String gitMirrorDir;
+
     @CommandLine.Option(names = {"--baseDir"}, required = true, description = "base directory to write result to")
     private String baseDir;
 
@@ -79,6 +85,10 @@ public class GoBulkReleaseCli implements Runnable {
     @CommandLine.Option(names = {"--ltsBranchName"}, defaultValue = "", description = "LTS branch name to create, e.g. lts/26.2 (required when --ltsRelease is set)")
     private String ltsBranchName;
 
+    @CommandLine.Option(names = {"--resourceGovernor"}, arity = "0", defaultValue = "false",
+            description = "start go, git and semantic-release processes only while the CPUs and memory of the container (cgroup limits) have headroom for them, according to their peak RSS in previous runs")
+    private boolean resourceGovernor;
+
     public static void main(String... args) {
         CommandLine commandLine = new CommandLine(new GoBulkReleaseCli());
         int exitCode = commandLine.execute(args);
@@ -89,6 +99,9 @@ public class GoBulkReleaseCli implements Runnable {
     public void run() {
         try {
             Config config = prepareConfig();
+            if (resourceGovernor) {
+                CommandRunner.setResourceGovernor(ResourceGovernor.forDirectory(Path.of(baseDir)));
+            }
 
             Result result = new ReleaseRunner(config).release();
 
@@ -126,6 +139,7 @@ public class GoBulkReleaseCli implements Runnable {
                 .username(gitUsername)
                 .email(gitEmail)
                 .password(gitPassword)
+                .mirrorDir(gitMirrorDir)
                 .build();
 
         repositoriesToReleaseFrom = repositoriesToReleaseFrom.stream()
@@ -28,9 +28,12 @@ import java.util.regex.Pattern;
 @Slf4j
 public class GitService {
     private final GitConfig config;
+    private final GitMirror mirror;
 
     public GitService(GitConfig config) {
         this.config = config;
+        this.mirror = config == null || config.getMirrorDir() == null ? null
+                : new GitMirror(Path.of(config.getMirrorDir()), config.getCredentialsProvider());
     }
 
     public void setup() {
@@ -86,6 +89,10 @@ public class GitService {
             if (repositoryDirExists && Files.list(repositoryPath).findAny().isPresent()) {
                 git = Git.open(repositoryPath.toFile());
                 checkout(git, branch);
+            } else if (mirror != null) {
+                log.debug("Checking out {} from: [{}] using its mirror", repository.getUrl(), branch);
+                mirror.checkout(repositoryPath, repository.getUrl(), branch);
+                git = Git.open(repositoryPath.toFile());
             } else {
                 log.debug("Checking out {} from: [{}]", repository.getUrl(), branch);
                 Files.createDirectories(repositoryPath);
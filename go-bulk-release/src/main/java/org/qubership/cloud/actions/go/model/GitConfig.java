@@ -15,15 +15,18 @@ public class GitConfig {
     @JsonIgnore
     String password;
     String url;
+    // directory of the persistent bare mirrors of the repositories, mirrors are not used if null
+    String mirrorDir;
     @JsonIgnore
     CredentialsProvider credentialsProvider;
 
     @Builder
-    public GitConfig(String username, String email, String password, String url) {
+    public GitConfig(String username, String email, String password, String url, String mirrorDir) {
         this.username = username;
         this.email = email;
         this.password = password;
         this.url = url;
+        this.mirrorDir = mirrorDir;
         CredentialsProvider credentialsProvider = new UsernamePasswordCredentialsProvider(this.getUsername(), this.getPassword());
         CredentialsProvider.setDefault(credentialsProvider);
         this.credentialsProvider = credentialsProvider;
@@ -9,6 +9,13 @@ import java.util.*;
 @Slf4j
 public class CommandRunner {
 
+    // if set, admits the commands only while there is headroom
+    static volatile ResourceGovernor resourceGovernor;
+
+    public static void setResourceGovernor(ResourceGovernor resourceGovernor) {
+        CommandRunner.resourceGovernor = resourceGovernor;
+    }
+
     public static void exec(String... command) throws CommandExecutionException {
         exec(null, new LoggingOutputProcessor(), command);
     }
@@ -30,8 +37,11 @@ public class CommandRunner {
     }
 
     static void exec(File directory, OutputProcessor processor, String... command) throws CommandExecutionException {
+        ResourceGovernor governor = resourceGovernor;
+        ResourceGovernor.Lease lease = null;
         try {
             String cmd = String.join(" ", command);
+            if (governor != null) lease = governor.acquire(key(directory, command));
             log.info("Run command '{}'", cmd);
             ProcessBuilder processBuilder = new ProcessBuilder(Arrays.asList(command));
             if (directory != null) {
@@ -39,6 +49,7 @@ public class CommandRunner {
             }
             processBuilder.redirectErrorStream(true);
             Process process = processBuilder.start();
+            if (lease != null) lease.watch(process.toHandle());
 
             try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
                 String line;
@@ -57,9 +68,19 @@ public class CommandRunner {
             Thread.currentThread().interrupt();
             processor.onFail();
             throw new UnexpectedException(e);
+        } finally {
+            if (lease != null) lease.close();
         }
     }
 
+    /**
+     * @return the directory and the executable with its subcommand, i.e. 'go test' of a repository
+     */
+    static String key(File directory, String... command) {
+        String dir = directory == null ? "" : directory.getAbsolutePath() + " ";
+        return dir + String.join(" ", Arrays.asList(command).subList(0, Math.min(2, command.length)));
+    }
+
     private interface OutputProcessor {
         void onLine(String line);
 
@@ -0,0 +1,190 @@
+package org.qubership.cloud.actions.go.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Admits forked build processes only while there is headroom. The capacity is the CPUs and the memory of the container
+ * (cgroup v2 or v1 limits, otherwise the machine), minus the heap of this JVM. Every process holds one CPU and as much
+ * memory as the peak RSS of the same command (including its descendants, e.g. go test binaries) in the previous runs, kept
+ * in a history file. A process waits until both fit, unless nothing else is running, so a process bigger than the
+ * capacity still runs, alone.
+ */
+@Slf4j
+public class ResourceGovernor {
+
+    public static final String FILE_NAME = ".resource-history.json";
+    static final long defaultMemory = 1024L * 1024 * 1024;
+    static final long sampleIntervalMillis = 1000;
+    static final ObjectMapper objectMapper = new ObjectMapper();
+    static final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "resource-governor-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final int cpus;
+    final long memory;
+    final Path historyPath;
+    // peak RSS in bytes by command key
+    final Map<String, Long> history = new ConcurrentHashMap<>();
+    // guarded by this
+    int running;
+    int usedCpus;
+    long usedMemory;
+
+    ResourceGovernor(Path historyPath, int cpus, long memory) {
+        this.historyPath = historyPath;
+        this.cpus = Math.max(1, cpus);
+        this.memory = memory;
+        if (Files.isRegularFile(historyPath)) {
+            try {
+                history.putAll(objectMapper.readValue(historyPath.toFile(), new TypeReference<Map<String, Long>>() {
+                }));
+            } catch (Exception e) {
+                log.warn("Failed to read resource history: {}, ignoring it. Error: {}", historyPath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the governor of the container this JVM runs in, with the history in the given directory
+     */
+    public static ResourceGovernor forDirectory(Path dir) {
+        long memory = Math.max(defaultMemory, memoryLimit() - Runtime.getRuntime().maxMemory());
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(FILE_NAME), cpuLimit(), memory);
+        log.info("Forked processes are limited to {} CPUs and {} MiB", governor.cpus, governor.memory / 1024 / 1024);
+        return governor;
+    }
+
+    static int cpuLimit() {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        // cgroup v2: '<quota> <period>' or 'max <period>'
+        Optional<String[]> v2 = read(Path.of("/sys/fs/cgroup/cpu.max")).map(s -> s.split("\\s+"));
+        Optional<long[]> quota = v2.filter(s -> s.length == 2 && !s[0].equals("max"))
+                .map(s -> new long[]{Long.parseLong(s[0]), Long.parseLong(s[1])})
+                .or(() -> read(Path.of("/sys/fs/cgroup/cpu/cpu.cfs_quota_us")).map(Long::parseLong).filter(q -> q > 0)
+                        .flatMap(q -> read(Path.of("/sys/fs/cgroup/cpu/cpu.cfs_period_us")).map(p -> new long[]{q, Long.parseLong(p)})));
+        return quota.map(q -> (int) Math.min(cpus, Math.max(1, (q[0] + q[1] - 1) / q[1]))).orElse(cpus);
+    }
+
+    static long memoryLimit() {
+        long physical = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getTotalMemorySize();
+        // cgroup v2 'max' or v1 'unlimited' (a huge number) leave the physical memory
+        return Stream.of(Path.of("/sys/fs/cgroup/memory.max"), Path.of("/sys/fs/cgroup/memory/memory.limit_in_bytes"))
+                .map(ResourceGovernor::read)
+                .flatMap(Optional::stream)
+                .filter(s -> s.matches("\\d+"))
+                .map(Long::parseLong)
+                .findFirst()
+                .map(limit -> Math.min(limit, physical))
+                .orElse(physical);
+    }
+
+    static Optional<String> read(Path path) {
+        try {
+            return Files.isReadable(path) ? Optional.of(Files.readString(path).trim()) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Tokens of an admitted process, returned by {@link #close()}
+     */
+    public class Lease implements AutoCloseable {
+        final String key;
+        final long memory;
+        volatile long peak;
+        volatile ScheduledFuture<?> sampling;
+        boolean closed;
+
+        Lease(String key, long memory) {
+            this.key = key;
+            this.memory = memory;
+        }
+
+        /**
+         * Samples the RSS of the process and its descendants until the lease is closed
+         */
+        public void watch(ProcessHandle process) {
+            sampling = sampler.scheduleAtFixedRate(() -> peak = Math.max(peak, rss(process)), 0, sampleIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void close() {
+            Optional.ofNullable(sampling).ifPresent(future -> future.cancel(false));
+            release(this);
+        }
+    }
+
+    public Lease acquire(String key) throws InterruptedException {
+        long estimate = history.getOrDefault(key, defaultMemory);
+        synchronized (this) {
+            boolean waited = false;
+            while (running > 0 && (usedCpus + 1 > cpus || usedMemory + estimate > memory)) {
+                if (!waited) {
+                    log.info("Waiting for resources to start '{}', estimated {} MiB, used: {}/{} CPUs, {}/{} MiB", key, estimate / 1024 / 1024,
+                            usedCpus, cpus, usedMemory / 1024 / 1024, memory / 1024 / 1024);
+                    waited = true;
+                }
+                wait();
+            }
+            running++;
+            usedCpus++;
+            usedMemory += estimate;
+        }
+        return new Lease(key, estimate);
+    }
+
+    void release(Lease lease) {
+        synchronized (this) {
+            if (lease.closed) return;
+            lease.closed = true;
+            running--;
+            usedCpus--;
+            usedMemory -= lease.memory;
+            notifyAll();
+        }
+        if (lease.peak > 0) {
+            history.put(lease.key, lease.peak);
+            save();
+        }
+    }
+
+    synchronized void save() {
+        try {
+            Files.createDirectories(historyPath.getParent());
+            Path tmpPath = Files.createTempFile(historyPath.getParent(), historyPath.getFileName().toString(), ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmpPath.toFile(), new TreeMap<>(history));
+            Files.move(tmpPath, historyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write resource history: {}. Error: {}", historyPath, e.getMessage());
+        }
+    }
+
+    /**
+     * @return RSS in bytes of the process and all its descendants, 0 where /proc is not available
+     */
+    static long rss(ProcessHandle process) {
+        return Stream.concat(Stream.of(process), process.descendants())
+                .mapToLong(handle -> read(Path.of("/proc", String.valueOf(handle.pid()), "status"))
+                        .flatMap(status -> status.lines().filter(line -> line.startsWith("VmRSS:")).findFirst())
+                        // 'VmRSS:     1676 kB'
+                        .map(line -> Long.parseLong(line.replaceAll("\\D", "")) * 1024)
+                        .orElse(0L))
+                .sum();
+    }
+}
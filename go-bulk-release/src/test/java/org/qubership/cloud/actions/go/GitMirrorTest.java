@@ -0,0 +1,70 @@
+package org.qubership.cloud.actions.go;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GitMirrorTest {
+
+    @Test
+    void checkoutFromMirror(@TempDir Path dir) throws Exception {
+        Path remoteDir = dir.resolve("remote/lib");
+        Files.createDirectories(remoteDir);
+        Files.writeString(remoteDir.resolve("go.mod"), "module github.com/qubership/lib\n");
+        String url = remoteDir.toUri().toString();
+        try (Git remote = Git.init().setInitialBranch("main").setDirectory(remoteDir.toFile()).call()) {
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("init").setAuthor("t", "t@t").call();
+            remote.tag().setName("v1.0.0").setAnnotated(true).setMessage("v1.0.0").call();
+
+            GitMirror mirror = new GitMirror(dir.resolve("mirrors"), null);
+            Path mirrorPath = mirror.mirrorPath(url);
+            assertEquals(mirrorPath, mirror.refresh(url));
+            assertTrue(Files.isDirectory(mirrorPath.resolve("objects")));
+
+            Path first = dir.resolve("work/first");
+            mirror.checkout(first, url, "main");
+            assertEquals("module github.com/qubership/lib\n", Files.readString(first.resolve("go.mod")));
+            try (Git git = Git.open(first.toFile()); Stream<Path> packs = Files.list(first.resolve(".git/objects/pack"))) {
+                assertEquals(url, git.getRepository().getConfig().getString("remote", "origin", "url"));
+                assertEquals("refs/heads/main", git.getRepository().getFullBranch());
+                assertNotNull(git.getRepository().resolve("refs/tags/v1.0.0"));
+                assertTrue(git.status().call().isClean());
+                // the objects are borrowed from the mirror
+                assertEquals(0, packs.count());
+            }
+
+            // the mirror is fetched once per run, the next run fetches the new commit
+            Files.writeString(remoteDir.resolve("go.mod"), "module github.com/qubership/lib\n\ngo 1.22\n");
+            remote.add().addFilepattern(".").call();
+            ObjectId update = remote.commit().setMessage("update").setAuthor("t", "t@t").call();
+            remote.tag().setName("v1.1.0").setAnnotated(true).setMessage("v1.1.0").call();
+            mirror.checkout(dir.resolve("work/second"), url, "main");
+            assertEquals("module github.com/qubership/lib\n", Files.readString(dir.resolve("work/second/go.mod")));
+            GitMirror nextRun = new GitMirror(dir.resolve("mirrors"), null);
+            nextRun.checkout(dir.resolve("work/third"), url, "main");
+            assertEquals("module github.com/qubership/lib\n\ngo 1.22\n", Files.readString(dir.resolve("work/third/go.mod")));
+
+            // existing refs are moved to the state of the mirror, unchanged ones are kept
+            try (Git git = Git.open(first.toFile())) {
+                GitMirror.copyRefs(nextRun.refresh(url), git.getRepository());
+                assertEquals(update, git.getRepository().resolve("refs/remotes/origin/main"));
+                assertNotNull(git.getRepository().resolve("refs/tags/v1.0.0"));
+                assertNotNull(git.getRepository().resolve("refs/tags/v1.1.0"));
+                GitMirror.copyRefs(nextRun.refresh(url), git.getRepository());
+            }
+
+            // a tag is checked out detached
+            Path tag = dir.resolve("work/tag");
+            new GitMirror(dir.resolve("mirrors"), null).checkout(tag, url, "v1.0.0");
+            assertEquals("module github.com/qubership/lib\n", Files.readString(tag.resolve("go.mod")));
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.qubership.cloud.actions.go.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceGovernorTest {
+
+    static final long GiB = 1024L * 1024 * 1024;
+
+    @Test
+    void admitsWhileThereIsHeadroom(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve(ResourceGovernor.FILE_NAME), "{\"big\": %d}".formatted(2 * GiB));
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 2, 3 * GiB);
+
+        ResourceGovernor.Lease big = governor.acquire("big");
+        ResourceGovernor.Lease small = governor.acquire("small");
+        CompletableFuture<ResourceGovernor.Lease> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return governor.acquire("other");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+        small.peak = 512L * 1024 * 1024;
+        small.close();
+        // closing twice does not return the tokens twice
+        small.close();
+        ResourceGovernor.Lease other = waiting.get(5, TimeUnit.SECONDS);
+        assertEquals(2, governor.usedCpus);
+        assertEquals(3 * GiB, governor.usedMemory);
+        big.close();
+        other.close();
+        assertEquals(0, governor.running);
+
+        // the peak of the last run is the estimate of the next one
+        ResourceGovernor next = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 1, GiB);
+        assertEquals(512L * 1024 * 1024, next.history.get("small"));
+        // a command bigger than the capacity runs alone
+        try (ResourceGovernor.Lease lease = next.acquire("big")) {
+            assertEquals(2 * GiB, lease.memory);
+        }
+    }
+
+    @Test
+    void commandsRunUnderALease(@TempDir Path dir) throws Exception {
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 1, GiB);
+        CommandRunner.setResourceGovernor(governor);
+        try {
+            assertEquals(List.of("done"), CommandRunner.execWithResult(dir.toFile(), "sh", "-c", "echo done"));
+            assertEquals(0, governor.running);
+            assertThrows(CommandExecutionException.class, () -> CommandRunner.exec(dir.toFile(), "sh", "-c", "exit 3"));
+            // the lease of a failed command is returned too
+            assertEquals(0, governor.running);
+            assertEquals(0, governor.usedMemory);
+        } finally {
+            CommandRunner.setResourceGovernor(null);
+        }
+    }
+
+    @Test
+    void key() {
+        File dir = new File("/work/repo");
+        assertEquals(dir.getAbsolutePath() + " go test", CommandRunner.key(dir, "go", "test", "./..."));
+        assertEquals("git", CommandRunner.key(null, "git"));
+    }
+
+    @Test
+    void rss() {
+        if (Files.isDirectory(Path.of("/proc/self"))) {
+            assertTrue(ResourceGovernor.rss(ProcessHandle.current()) > 0);
+        }
+    }
+}
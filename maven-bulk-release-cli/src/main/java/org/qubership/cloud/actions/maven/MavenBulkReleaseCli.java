@@ -33,6 +33,12 @@ public class MavenBulkReleaseCli implements Runnable {
     @CommandLine.Option(names = {"--gitPrintProgress"}, description = "use git progress monitor")
     private boolean gitPrintProgress = false;
 
+    @CommandLine.Option(names = {"--gitMirrorDir"}, description = "directory of persistent bare mirrors of the repositories, to fetch only the delta since the previous run")
+    private String gitMirrorDir;
+
+    @CommandLine.Option(names = {"--gitRefresh"}, description = "fetch and hard reset repositories already checked out in baseDir to the remote branch, removing untracked files, cannot be combined with --resume")
+    private boolean gitRefresh = false;
+
     @CommandLine.Option(names = {"--baseDir"}, required = true, description = "base directory to write result to")
     private String baseDir;
 
@@ -63,9 +69,13 @@ public class MavenBulkReleaseCli implements Runnable {
     private boolean logsToConsole;
 
     @CommandLine.Option(names = {"--runParallelism"}, defaultValue = "1",
-            description = "perform release command for each repository from the same level in parallel with specified concurrency or the number of repose in the same level")
+            description = "max number of repositories to run release:prepare for in parallel. A repository starts as soon as all repositories it depends on are prepared")
     private int runParallelism;
 
+    @CommandLine.Option(names = {"--performParallelism"}, defaultValue = "1",
+            description = "max number of repositories to push and deploy by release:perform in parallel. A repository starts as soon as all repositories it depends on are performed")
+    private int performParallelism;
+
     @CommandLine.Option(names = {"--dryRun"}, arity = "0", defaultValue = "false", description = """
             if specified:
             1. only run release:prepare mvn command in each repository updating dependencies with versions from artifacts in dependent repositories
@@ -75,6 +85,18 @@ public class MavenBulkReleaseCli implements Runnable {
             """)
     private boolean dryRun;
 
+    @CommandLine.Option(names = {"--resume"}, arity = "0", defaultValue = "false",
+            description = "resume the previous run from the release journal in baseDir, skipping repositories which were already prepared, pushed or deployed")
+    private boolean resume;
+
+    @CommandLine.Option(names = {"--skipUnchanged"}, arity = "0", defaultValue = "false",
+            description = "reuse the latest release of repositories without changes since it, unless a repository they depend on is released")
+    private boolean skipUnchanged;
+
+    @CommandLine.Option(names = {"--selectiveTests"}, arity = "0", defaultValue = "false",
+            description = "run only the tests of the modules impacted by the changes since the latest release of a repository, the other modules are built without their tests")
+    private boolean selectiveTests;
+
     @CommandLine.Option(names = {"--switchInterModuleDepsToSnapshot"}, arity = "0", defaultValue = "false",
             description = "after a full release from main, rewrite all inter-module dependencies in main back to the current SNAPSHOT versions so trunk keeps developing against SNAPSHOTs")
     private boolean switchInterModuleDepsToSnapshot;
@@ -103,6 +125,21 @@ public class MavenBulkReleaseCli implements Runnable {
     @CommandLine.Option(names = {"--mavenDeployArtifacts"}, defaultValue = "true", description = "if artifacts should be deployed by maven release process or not")
     private boolean mavenDeployArtifacts = true;
 
+    @CommandLine.Option(names = {"--mavenSingleBuild"}, defaultValue = "false", description = "if artifacts built and installed by release:prepare should be deployed as is instead of being rebuilt by release:perform")
+    private boolean mavenSingleBuild;
+
+    @CommandLine.Option(names = {"--mavenExecutor"}, type = MavenExecutorType.class, defaultValue = "FORK",
+            description = "how mvn commands are run, one of: ${COMPLETION-CANDIDATES}. DAEMON routes them to warm maven daemons (mvnd), one pool per JAVA_HOME from javaVersionToJavaHomeEnv, and falls back to FORK if mvnd is not available")
+    private MavenExecutorType mavenExecutor = MavenExecutorType.FORK;
+
+    @CommandLine.Option(names = {"--mavenOverlayLocalRepository"}, defaultValue = "false",
+            description = "if each release:prepare should install into its own layer on top of the maven local repository (maven 3.9+), merged into it once the release:prepare is done, to run many of them in parallel")
+    private boolean mavenOverlayLocalRepository;
+
+    @CommandLine.Option(names = {"--resourceGovernor"}, arity = "0", defaultValue = "false",
+            description = "start mvn processes only while the CPUs and memory of the container (cgroup limits) have headroom for them, according to their peak RSS in previous runs, not used with the DAEMON mavenExecutor")
+    private boolean resourceGovernor;
+
     @CommandLine.Option(names = {"--summaryFile"}, description = "File path to save summary to")
     private String summaryFile;
 
@@ -140,6 +177,8 @@ public class MavenBulkReleaseCli implements Runnable {
                     .password(gitPassword)
                     .checkoutParallelism(checkoutParallelism)
                     .printProgress(gitPrintProgress)
+                    .mirrorDir(gitMirrorDir)
+                    .refresh(gitRefresh)
                     .build();
 
             MavenConfig mavenConfig = MavenConfig.builder()
@@ -148,8 +187,15 @@ public class MavenBulkReleaseCli implements Runnable {
                     .altDeploymentRepository(mavenAltDeploymentRepository)
                     .localRepositoryPath(mavenLocalRepoPath)
                     .deployArtifacts(mavenDeployArtifacts)
+                    .singleBuild(mavenSingleBuild)
+                    .executor(mavenExecutor)
+                    .overlayLocalRepository(mavenOverlayLocalRepository)
+                    .resourceGovernor(resourceGovernor ? ResourceGovernor.forDirectory(Path.of(baseDir)) : null)
                     .build();
 
+            if (resourceGovernor && mavenExecutor == MavenExecutorType.DAEMON) {
+                log.warn("The resource governor is not used with the DAEMON maven executor, the builds run in the maven daemons");
+            }
             gavs = this.gavs.stream().filter(gav -> !gav.isBlank()).collect(Collectors.toSet());
 
             repositoriesToReleaseFrom = repositoriesToReleaseFrom.stream()
@@ -163,8 +209,12 @@ public class MavenBulkReleaseCli implements Runnable {
                     .gavs(gavs)
                     .skipTests(skipTests)
                     .dryRun(dryRun)
+                    .resume(resume)
+                    .skipUnchanged(skipUnchanged)
+                    .selectiveTests(selectiveTests)
                     .switchInterModuleDepsToSnapshot(switchInterModuleDepsToSnapshot)
                     .runParallelism(runParallelism)
+                    .performParallelism(performParallelism)
                     .logsToConsole(logsToConsole)
                     .build();
 
@@ -0,0 +1,176 @@
+package org.qubership.cloud.actions.maven;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Runs a task per node of a dependency DAG. A node is started as soon as all of its upstream nodes have completed
+ * (and their completion callbacks have run), bounded by the configured parallelism. Nodes sharing the same exclusive
+ * key (i.e. the same git repository) never run concurrently. If a task or its completion callback fails no further
+ * nodes are started, the running ones are awaited and the first failure is thrown.
+ * <p>
+ * Ready nodes are started in the order of the nodes, or, if the nodes are weighted by their expected duration, the node
+ * with the longest path to the end of the DAG (its own weight plus the heaviest chain of its dependents) first, so that
+ * the critical path does not wait behind short independent nodes.
+ */
+public class DagScheduler<T> {
+
+    final List<T> nodes;
+    final Function<T, ? extends Collection<T>> upstreams;
+    final int parallelism;
+    Function<T, ?> exclusiveKey = Function.identity();
+    ToDoubleFunction<T> weight;
+
+    public DagScheduler(List<T> nodes, Function<T, ? extends Collection<T>> upstreams, int parallelism) {
+        this.nodes = List.copyOf(nodes);
+        this.upstreams = upstreams;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public DagScheduler<T> exclusiveBy(Function<T, ?> exclusiveKey) {
+        this.exclusiveKey = exclusiveKey;
+        return this;
+    }
+
+    public DagScheduler<T> prioritizeBy(ToDoubleFunction<T> weight) {
+        this.weight = weight;
+        return this;
+    }
+
+    /**
+     * @param task       the work to run for a node, invoked on a worker thread
+     * @param onComplete invoked on the scheduler thread after a node's task succeeded and before its dependents are released
+     * @return task results in the order of the nodes passed to the constructor
+     */
+    public <R> List<R> run(Function<T, R> task, BiConsumer<T, R> onComplete) {
+        int size = nodes.size();
+        Map<T, Integer> ids = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            ids.put(nodes.get(i), i);
+        }
+        List<Set<Integer>> downstream = new ArrayList<>();
+        int[] pending = new int[size];
+        for (int i = 0; i < size; i++) {
+            downstream.add(new LinkedHashSet<>());
+        }
+        for (int i = 0; i < size; i++) {
+            for (T upstream : upstreams.apply(nodes.get(i))) {
+                Integer j = ids.get(upstream);
+                if (j != null && j != i && downstream.get(j).add(i)) {
+                    pending[i]++;
+                }
+            }
+        }
+        double[] rank = rank(downstream);
+        TreeSet<Integer> ready = new TreeSet<>(Comparator.<Integer>comparingDouble(i -> -rank[i]).thenComparing(Comparator.naturalOrder()));
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0) ready.add(i);
+        }
+        List<R> results = new ArrayList<>(Collections.nCopies(size, null));
+        Set<Object> busyKeys = new HashSet<>();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, size)));
+        CompletionService<Integer> completionService = new ExecutorCompletionService<>(executorService);
+        RuntimeException failure = null;
+        try {
+            int running = 0;
+            int completed = 0;
+            while (completed < size) {
+                // after a failure no new nodes are started, but the running ones are allowed to finish
+                for (Iterator<Integer> iterator = ready.iterator(); failure == null && iterator.hasNext() && running < parallelism; ) {
+                    int i = iterator.next();
+                    T node = nodes.get(i);
+                    if (busyKeys.add(exclusiveKey.apply(node))) {
+                        iterator.remove();
+                        completionService.submit(() -> {
+                            results.set(i, task.apply(node));
+                            return i;
+                        });
+                        running++;
+                    }
+                }
+                if (running == 0) {
+                    if (failure != null) throw failure;
+                    throw new IllegalStateException(String.format("Failed to schedule %d node(s), dependency cycle detected among:\n%s",
+                            size - completed, String.join("\n", blockedNodes(pending).stream().map(Object::toString).toList())));
+                }
+                Future<Integer> future = completionService.take();
+                running--;
+                int i;
+                try {
+                    i = future.get();
+                } catch (ExecutionException e) {
+                    failure = addFailure(failure, e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause()));
+                    continue;
+                }
+                completed++;
+                T node = nodes.get(i);
+                busyKeys.remove(exclusiveKey.apply(node));
+                try {
+                    onComplete.accept(node, results.get(i));
+                } catch (RuntimeException e) {
+                    // the dependents are not released, like after a failed task
+                    failure = addFailure(failure, e);
+                    continue;
+                }
+                for (int d : downstream.get(i)) {
+                    if (--pending[d] == 0) ready.add(d);
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executorService.shutdownNow();
+            throw new RuntimeException(e);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    static RuntimeException addFailure(RuntimeException failure, RuntimeException exception) {
+        if (failure == null) return exception;
+        failure.addSuppressed(exception);
+        return failure;
+    }
+
+    /**
+     * @return per node, its weight plus the heaviest rank of its dependents, all zeros if the nodes are not weighted
+     */
+    double[] rank(List<Set<Integer>> downstream) {
+        int size = nodes.size();
+        double[] rank = new double[size];
+        if (weight == null) return rank;
+        // from the sinks up, a node is ranked once all of its dependents are, nodes of a cycle stay unranked
+        int[] unranked = new int[size];
+        List<List<Integer>> upstream = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            upstream.add(new ArrayList<>());
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            unranked[i] = downstream.get(i).size();
+            if (unranked[i] == 0) queue.add(i);
+            for (int d : downstream.get(i)) upstream.get(d).add(i);
+        }
+        while (!queue.isEmpty()) {
+            int i = queue.poll();
+            double heaviest = 0;
+            for (int d : downstream.get(i)) heaviest = Math.max(heaviest, rank[d]);
+            rank[i] = weight.applyAsDouble(nodes.get(i)) + heaviest;
+            for (int u : upstream.get(i)) {
+                if (--unranked[u] == 0) queue.add(u);
+            }
+        }
+        return rank;
+    }
+
+    List<T> blockedNodes(int[] pending) {
+        List<T> blocked = new ArrayList<>();
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] > 0) blocked.add(nodes.get(i));
+        }
+        return blocked;
+    }
+}
@@ -0,0 +1,161 @@
+package org.qubership.cloud.actions.maven;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.BatchRefUpdate;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.NullProgressMonitor;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.ReceiveCommand;
+import org.eclipse.jgit.transport.TagOpt;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persistent cache of bare mirrors of the remote repositories, one per url. A mirror is created with the first checkout
+ * of its repository and refreshed by an incremental fetch once per run, so only the delta since the previous run is
+ * transferred. Working trees borrow the objects of the mirror through {@code objects/info/alternates}, their refs are
+ * copied from the mirror and their origin points to the remote.
+ */
+@Slf4j
+class GitMirror {
+
+    final Path mirrorDir;
+    final CredentialsProvider credentialsProvider;
+    // mirrors refreshed by this run, also serializes the fetches into the same mirror
+    final Map<Path, Path> refreshed = new ConcurrentHashMap<>();
+
+    GitMirror(Path mirrorDir, CredentialsProvider credentialsProvider) {
+        this.mirrorDir = mirrorDir;
+        this.credentialsProvider = credentialsProvider;
+    }
+
+    Path mirrorPath(String url) {
+        URI uri = URI.create(url);
+        String host = Optional.ofNullable(uri.getHost()).orElse("local");
+        String path = uri.getPath().replaceAll("^/+|/+$", "").replaceAll("\\.git$", "");
+        return mirrorDir.resolve(host).resolve(path + ".git").normalize();
+    }
+
+    /**
+     * @return the bare mirror of the repository, created or refreshed by this call if it was not refreshed by this run yet
+     */
+    Path refresh(String url) {
+        return refreshed.computeIfAbsent(mirrorPath(url), mirrorPath -> {
+            try {
+                if (!Files.isDirectory(mirrorPath.resolve("objects"))) {
+                    log.info("Creating mirror of {} in {}", url, mirrorPath);
+                    Files.createDirectories(mirrorPath);
+                    try (Git git = Git.init().setBare(true).setDirectory(mirrorPath.toFile()).call()) {
+                        StoredConfig config = git.getRepository().getConfig();
+                        config.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", url);
+                        config.setStringList("remote", Constants.DEFAULT_REMOTE_NAME, "fetch",
+                                List.of("+refs/heads/*:refs/heads/*", "+refs/tags/*:refs/tags/*"));
+                        // lets poms-only checkouts fetch from the mirror with a filter
+                        config.setBoolean("uploadpack", null, "allowFilter", true);
+                        config.setBoolean("uploadpack", null, "allowAnySHA1InWant", true);
+                        config.save();
+                    }
+                }
+                try (Git git = Git.open(mirrorPath.toFile())) {
+                    git.fetch()
+                            .setCredentialsProvider(credentialsProvider)
+                            .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                            .setRemoveDeletedRefs(true)
+                            .setTagOpt(TagOpt.NO_TAGS)
+                            .call();
+                }
+                log.info("Refreshed mirror of {}", url);
+                return mirrorPath;
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to refresh mirror of %s in %s".formatted(url, mirrorPath), e);
+            }
+        });
+    }
+
+    /**
+     * Creates the working tree of the repository's branch (or tag) from its refreshed mirror without any transfer
+     */
+    void checkout(Path repositoryDirPath, String url, String branch) throws Exception {
+        Path mirrorPath = refresh(url);
+        Files.createDirectories(repositoryDirPath);
+        Git.init().setDirectory(repositoryDirPath.toFile()).setInitialBranch(branch).call().close();
+        // the alternates are read when the repository is opened
+        Path alternates = repositoryDirPath.resolve(Constants.DOT_GIT).resolve("objects/info/alternates");
+        Files.createDirectories(alternates.getParent());
+        Files.writeString(alternates, mirrorPath.resolve("objects").toAbsolutePath() + "\n");
+        try (Git git = Git.open(repositoryDirPath.toFile())) {
+            Repository rep = git.getRepository();
+            StoredConfig storedConfig = rep.getConfig();
+            storedConfig.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", url);
+            storedConfig.setString("remote", Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
+            storedConfig.save();
+            copyRefs(mirrorPath, rep);
+            ObjectId branchId = rep.resolve(Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch);
+            if (branchId != null) {
+                storedConfig.setString("branch", branch, "remote", Constants.DEFAULT_REMOTE_NAME);
+                storedConfig.setString("branch", branch, "merge", Constants.R_HEADS + branch);
+                storedConfig.save();
+                update(rep, Constants.R_HEADS + branch, branchId);
+            } else {
+                ObjectId tagId = rep.resolve(Constants.R_TAGS + branch + "^{commit}");
+                if (tagId == null) throw new IllegalStateException("Branch or tag %s not found in %s".formatted(branch, url));
+                RefUpdate head = rep.updateRef(Constants.HEAD, true);
+                head.setNewObjectId(tagId);
+                head.forceUpdate();
+            }
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(Constants.HEAD).call();
+        }
+    }
+
+    /**
+     * Creates or moves the remote tracking branches and the tags of the repository to the state of the mirror
+     */
+    static void copyRefs(Path mirrorPath, Repository rep) throws IOException {
+        BatchRefUpdate batch = rep.getRefDatabase().newBatchUpdate().setAllowNonFastForwards(true);
+        try (Git mirror = Git.open(mirrorPath.toFile())) {
+            for (Ref ref : mirror.getRepository().getRefDatabase().getRefs()) {
+                String name = ref.getName();
+                if (name.startsWith(Constants.R_HEADS)) {
+                    name = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + name.substring(Constants.R_HEADS.length());
+                } else if (!name.startsWith(Constants.R_TAGS)) {
+                    continue;
+                }
+                Ref existing = rep.exactRef(name);
+                ObjectId oldId = existing == null ? ObjectId.zeroId() : existing.getObjectId();
+                if (!oldId.equals(ref.getObjectId())) batch.addCommand(new ReceiveCommand(oldId, ref.getObjectId(), name));
+            }
+        }
+        try (RevWalk revWalk = new RevWalk(rep)) {
+            batch.execute(revWalk, NullProgressMonitor.INSTANCE);
+        }
+        for (ReceiveCommand command : batch.getCommands()) {
+            if (command.getResult() != ReceiveCommand.Result.OK) {
+                throw new IOException("Failed to update %s: %s".formatted(command.getRefName(), command.getResult()));
+            }
+        }
+    }
+
+    static void update(Repository rep, String name, ObjectId id) throws IOException {
+        RefUpdate refUpdate = rep.updateRef(name);
+        refUpdate.setNewObjectId(id);
+        RefUpdate.Result result = refUpdate.forceUpdate();
+        if (result == RefUpdate.Result.LOCK_FAILURE || result == RefUpdate.Result.IO_FAILURE || result == RefUpdate.Result.REJECTED) {
+            throw new IOException("Failed to update %s: %s".formatted(name, result));
+        }
+    }
+}
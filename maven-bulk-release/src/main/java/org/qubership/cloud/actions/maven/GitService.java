@@ -1,37 +1,68 @@
 package org.qubership.cloud.actions.maven;
 
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.FetchCommand;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.lib.TextProgressMonitor;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.FilterSpec;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.util.FileUtils;
 import org.qubership.cloud.actions.maven.model.GitConfig;
+import org.qubership.cloud.actions.maven.model.Reactor;
 import org.qubership.cloud.actions.maven.model.RepositoryConfig;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Slf4j
 public class GitService {
 
+    static final String CONFIG_SECTION = "bulk-release";
+    static final String CONFIG_POMS_ONLY = "pomsOnly";
+
     final GitConfig gitConfig;
+    final GitMirror mirror;
 
     public GitService(GitConfig gitConfig) {
         setupGit(gitConfig);
         this.gitConfig = gitConfig;
+        this.mirror = gitConfig.getMirrorDir() == null ? null
+                : new GitMirror(Path.of(gitConfig.getMirrorDir()), gitConfig.getCredentialsProvider());
     }
 
     private void setupGit(GitConfig gitConfig) {
@@ -78,19 +109,85 @@ public class GitService {
         }
     }
 
+    /**
+     * @return refs of the remote repository by name, with peeled ids of annotated tags
+     */
+    public Map<String, Ref> lsRemote(String url) throws GitAPIException {
+        return Git.lsRemoteRepository()
+                .setCredentialsProvider(this.gitConfig.getCredentialsProvider())
+                .setRemote(url)
+                .callAsMap();
+    }
+
+    static Optional<ObjectId> commitId(Map<String, Ref> refs, String branch) {
+        List<String> names = branch == null || branch.isBlank()
+                ? List.of(Constants.HEAD)
+                : List.of(Constants.R_HEADS + branch, Constants.R_TAGS + branch, branch);
+        return names.stream()
+                .map(refs::get)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .map(ref -> Optional.ofNullable(ref.getPeeledObjectId()).orElse(ref.getObjectId()));
+    }
+
+    /**
+     * Fetches the tag into the working tree of the repository, with the same depth as the working tree. A poms-only
+     * checkout fetches the tagged tree without blobs, and the blobs of its poms only.
+     */
+    public void fetchTag(Git git, String tag) throws Exception {
+        Repository rep = git.getRepository();
+        RefSpec refSpec = new RefSpec("+" + Constants.R_TAGS + tag + ":" + Constants.R_TAGS + tag);
+        if (!rep.getConfig().getBoolean(CONFIG_SECTION, null, CONFIG_POMS_ONLY, false)) {
+            boolean shallow = Files.exists(rep.getDirectory().toPath().resolve(Constants.SHALLOW));
+            fetch(git, refSpec, shallow);
+            return;
+        }
+        FilterSpec blobless = FilterSpec.fromFilterLine("blob:none");
+        git.fetch()
+                .setCredentialsProvider(this.gitConfig.getCredentialsProvider())
+                .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                .setRefSpecs(refSpec)
+                .setDepth(1)
+                .setTagOpt(TagOpt.NO_TAGS)
+                .setTransportConfigCallback(transport -> transport.setFilterSpec(blobless))
+                .call();
+        ObjectId commitId = rep.resolve(Constants.R_TAGS + tag + "^{commit}");
+        if (commitId == null) throw new IllegalStateException("Tag %s not found".formatted(tag));
+        try (RevWalk revWalk = new RevWalk(rep)) {
+            fetchPoms(git, revWalk.parseCommit(commitId).getTree());
+        }
+    }
+
     public void gitCheckout(String baseDir, RepositoryConfig repository, OutputStream out) {
         try (out) {
             Path repositoryDirPath = Paths.get(baseDir, repository.getDir());
+            if (isPomsOnly(repositoryDirPath)) {
+                log.info("Replacing the poms-only checkout of {} with a full one", repository.getUrl());
+                FileUtils.delete(repositoryDirPath.toFile(), FileUtils.RECURSIVE);
+            }
             boolean repositoryDirExists = Files.exists(repositoryDirPath);
             Git git;
             String branch = repository.getBranch();
-            if (repositoryDirExists && Files.list(repositoryDirPath).findAny().isPresent()) {
+            if (repositoryDirExists && !isEmpty(repositoryDirPath)) {
                 git = Git.open(repositoryDirPath.toFile());
-                try {
-                    git.checkout().setForced(true).setName(branch).call();
-                } catch (RefNotFoundException e) {
-                    git.checkout().setForced(true).setName("origin/" + branch).call();
+                if (this.gitConfig.isRefresh()) {
+                    PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(out, UTF_8));
+                    printWriter.println(String.format("Refreshing %s from: [%s]", repository.getUrl(), branch));
+                    printWriter.flush();
+                    refresh(git, repository.getUrl(), branch);
+                } else {
+                    try {
+                        git.checkout().setForced(true).setName(branch).call();
+                    } catch (RefNotFoundException e) {
+                        git.checkout().setForced(true).setName("origin/" + branch).call();
+                    }
                 }
+            } else if (mirror != null) {
+                PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(out, UTF_8));
+                printWriter.println(String.format("Checking out %s from: [%s] using its mirror", repository.getUrl(), branch));
+                printWriter.flush();
+                mirror.checkout(repositoryDirPath, repository.getUrl(), branch);
+                git = Git.open(repositoryDirPath.toFile());
             } else {
                 PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(out, UTF_8));
                 try {
@@ -111,17 +208,233 @@ public class GitService {
                     printWriter.flush();
                 }
             }
-            try (git; org.eclipse.jgit.lib.Repository rep = git.getRepository()) {
-                StoredConfig storedConfig = rep.getConfig();
-                storedConfig.setString("user", null, "name", this.gitConfig.getUsername());
-                storedConfig.setString("user", null, "email", this.gitConfig.getEmail());
-                storedConfig.setString("credential", null, "helper", "store");
-                storedConfig.save();
-                log.debug("Saved git config:\n{}", storedConfig.toText());
+            try (git) {
+                saveConfig(git, false);
             }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Checks out only the pom files of the repository's branch, which is enough to resolve the dependency graph. The branch
+     * is fetched without blobs, then only the blobs of the poms are fetched and written. All other files stay in the index
+     * marked as assume-valid, so the working tree is clean. {@link #gitCheckout} replaces such a checkout with a full one.
+     * Falls back to the full checkout if the remote supports neither filters nor fetching blobs by id.
+     */
+    public void gitCheckoutPoms(String baseDir, RepositoryConfig repository, OutputStream out) {
+        Path repositoryDirPath = Paths.get(baseDir, repository.getDir());
+        try {
+            if (this.gitConfig.isRefresh() && isPomsOnly(repositoryDirPath)) {
+                // checking out the poms again is as cheap as refreshing them
+                FileUtils.delete(repositoryDirPath.toFile(), FileUtils.RECURSIVE);
+            }
+            if (!isEmpty(repositoryDirPath) && !isPomsOnly(repositoryDirPath)) {
+                gitCheckout(baseDir, repository, out);
+                return;
+            }
+            if (isEmpty(repositoryDirPath) && !tryCheckoutPoms(repositoryDirPath, repository, out)) {
+                FileUtils.delete(repositoryDirPath.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+                // the full checkout writes to and closes the same stream
+                gitCheckout(baseDir, repository, out);
+                return;
+            }
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return false if the poms could not be checked out, leaving the stream open for the full checkout
+     */
+    boolean tryCheckoutPoms(Path repositoryDirPath, RepositoryConfig repository, OutputStream out) {
+        try {
+            PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(out, UTF_8));
+            printWriter.println(String.format("Checking out poms of %s from: [%s]", repository.getUrl(), repository.getBranch()));
+            printWriter.flush();
+            if (mirror == null) {
+                checkoutPoms(repositoryDirPath, repository.getUrl(), repository.getBranch());
+            } else {
+                // fetch the poms from the mirror, but keep the remote as origin
+                checkoutPoms(repositoryDirPath, mirror.refresh(repository.getUrl()).toUri().toString(), repository.getBranch());
+                try (Git git = Git.open(repositoryDirPath.toFile())) {
+                    StoredConfig storedConfig = git.getRepository().getConfig();
+                    storedConfig.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", repository.getUrl());
+                    storedConfig.save();
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to check out poms of {} [{}], checking out the full tree. Error: {}",
+                    repository.getUrl(), repository.getBranch(), e.getMessage());
+            return false;
+        }
+    }
+
+    static boolean isEmpty(Path dirPath) throws IOException {
+        if (!Files.exists(dirPath)) return true;
+        try (Stream<Path> files = Files.list(dirPath)) {
+            return files.findAny().isEmpty();
+        }
+    }
+
+    void checkoutPoms(Path repositoryDirPath, String url, String branch) throws Exception {
+        String trackingRef = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch;
+        try (Git git = Git.init().setDirectory(repositoryDirPath.toFile()).setInitialBranch(branch).call()) {
+            Repository rep = git.getRepository();
+            StoredConfig storedConfig = rep.getConfig();
+            storedConfig.setString("remote", Constants.DEFAULT_REMOTE_NAME, "url", url);
+            storedConfig.setString("remote", Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
+            storedConfig.setString("branch", branch, "remote", Constants.DEFAULT_REMOTE_NAME);
+            storedConfig.setString("branch", branch, "merge", Constants.R_HEADS + branch);
+            storedConfig.save();
+            FilterSpec blobless = FilterSpec.fromFilterLine("blob:none");
+            git.fetch()
+                    .setCredentialsProvider(this.gitConfig.getCredentialsProvider())
+                    .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                    .setRefSpecs(new RefSpec("+" + Constants.R_HEADS + branch + ":" + trackingRef))
+                    .setDepth(1)
+                    .setTagOpt(TagOpt.NO_TAGS)
+                    .setTransportConfigCallback(transport -> transport.setFilterSpec(blobless))
+                    .call();
+            ObjectId commitId = rep.resolve(trackingRef);
+            if (commitId == null) throw new IllegalStateException("Branch %s not found".formatted(branch));
+            RevTree tree;
+            try (RevWalk revWalk = new RevWalk(rep)) {
+                tree = revWalk.parseCommit(commitId).getTree();
+            }
+            fetchPoms(git, tree);
+            // write the poms and build the index of the whole tree
+            DirCache dirCache = rep.lockDirCache();
+            try (TreeWalk treeWalk = new TreeWalk(rep)) {
+                DirCacheBuilder builder = dirCache.builder();
+                treeWalk.addTree(tree);
+                treeWalk.setRecursive(true);
+                while (treeWalk.next()) {
+                    DirCacheEntry entry = new DirCacheEntry(treeWalk.getPathString());
+                    entry.setFileMode(treeWalk.getFileMode(0));
+                    entry.setObjectId(treeWalk.getObjectId(0));
+                    if (isPom(treeWalk.getNameString()) && treeWalk.getFileMode(0) == FileMode.REGULAR_FILE) {
+                        Path pomPath = repositoryDirPath.resolve(treeWalk.getPathString());
+                        Files.createDirectories(pomPath.getParent());
+                        Files.write(pomPath, rep.open(treeWalk.getObjectId(0)).getBytes());
+                        entry.setLength(Files.size(pomPath));
+                        entry.setLastModified(Files.getLastModifiedTime(pomPath).toInstant());
+                    } else {
+                        entry.setAssumeValid(true);
+                    }
+                    builder.add(entry);
+                }
+                if (!builder.commit()) throw new IOException("Failed to write index of: " + repositoryDirPath);
+            } finally {
+                dirCache.unlock();
+            }
+            RefUpdate refUpdate = rep.updateRef(Constants.R_HEADS + branch);
+            refUpdate.setNewObjectId(commitId);
+            refUpdate.forceUpdate();
+            saveConfig(git, true);
+        }
+    }
+
+    /**
+     * Fetches the blobs of the poms of the tree which are still missing
+     */
+    void fetchPoms(Git git, RevTree tree) throws Exception {
+        Repository rep = git.getRepository();
+        List<RefSpec> missingPoms = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(rep)) {
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                if (isPom(treeWalk.getNameString()) && !rep.getObjectDatabase().has(treeWalk.getObjectId(0))) {
+                    missingPoms.add(new RefSpec(treeWalk.getObjectId(0).name()));
+                }
+            }
+        }
+        if (!missingPoms.isEmpty()) {
+            git.fetch()
+                    .setCredentialsProvider(this.gitConfig.getCredentialsProvider())
+                    .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                    .setRefSpecs(missingPoms)
+                    .setTagOpt(TagOpt.NO_TAGS)
+                    .call();
+        }
+    }
+
+    /**
+     * Brings an existing working tree to the remote tip of the branch (or tag): fetches only the branch and the tags,
+     * resets the branch hard to the fetched commit and removes untracked files. Ignored files, like target directories,
+     * are kept. A working tree created from a mirror copies the refs of the refreshed mirror instead of fetching.
+     */
+    void refresh(Git git, String url, String branch) throws Exception {
+        Repository rep = git.getRepository();
+        String trackingRef = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/" + branch;
+        if (mirror != null && Files.exists(rep.getDirectory().toPath().resolve("objects/info/alternates"))) {
+            GitMirror.copyRefs(mirror.refresh(url), rep);
+        } else {
+            boolean shallow = Files.exists(rep.getDirectory().toPath().resolve(Constants.SHALLOW));
+            try {
+                fetch(git, new RefSpec("+" + Constants.R_HEADS + branch + ":" + trackingRef), shallow);
+            } catch (TransportException e) {
+                // not a branch, try a tag
+                fetch(git, new RefSpec("+" + Constants.R_TAGS + branch + ":" + Constants.R_TAGS + branch), shallow);
+            }
+        }
+        ObjectId branchId = rep.resolve(trackingRef);
+        if (branchId != null) {
+            git.checkout().setForced(true).setName(branch)
+                    .setCreateBranch(rep.exactRef(Constants.R_HEADS + branch) == null)
+                    .setStartPoint(trackingRef)
+                    .call();
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(trackingRef).call();
+        } else {
+            ObjectId tagId = rep.resolve(Constants.R_TAGS + branch + "^{commit}");
+            if (tagId == null) throw new IllegalStateException("Branch or tag %s not found in %s".formatted(branch, url));
+            git.checkout().setForced(true).setName(tagId.name()).call();
+        }
+        Set<String> removed = git.clean().setCleanDirectories(true).call();
+        if (!removed.isEmpty()) log.info("Removed untracked files of {}: {}", url, removed);
+    }
+
+    void fetch(Git git, RefSpec refSpec, boolean shallow) throws Exception {
+        FetchCommand fetch = git.fetch()
+                .setCredentialsProvider(this.gitConfig.getCredentialsProvider())
+                .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                .setRefSpecs(refSpec)
+                .setTagOpt(TagOpt.FETCH_TAGS);
+        // keep a shallow clone shallow
+        if (shallow) fetch.setDepth(1);
+        fetch.call();
+    }
+
+    static boolean isPom(String fileName) {
+        return Reactor.isPom(fileName);
+    }
+
+    static boolean isPomsOnly(Path repositoryDirPath) {
+        if (!Files.isDirectory(repositoryDirPath.resolve(Constants.DOT_GIT))) return false;
+        try (Git git = Git.open(repositoryDirPath.toFile())) {
+            return git.getRepository().getConfig().getBoolean(CONFIG_SECTION, null, CONFIG_POMS_ONLY, false);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void saveConfig(Git git, boolean pomsOnly) throws IOException {
+        try (Repository rep = git.getRepository()) {
+            StoredConfig storedConfig = rep.getConfig();
+            storedConfig.setString("user", null, "name", this.gitConfig.getUsername());
+            storedConfig.setString("user", null, "email", this.gitConfig.getEmail());
+            storedConfig.setString("credential", null, "helper", "store");
+            if (pomsOnly) {
+                storedConfig.setBoolean(CONFIG_SECTION, null, CONFIG_POMS_ONLY, true);
+            } else {
+                storedConfig.unset(CONFIG_SECTION, null, CONFIG_POMS_ONLY);
+            }
+            storedConfig.save();
+            log.debug("Saved git config:\n{}", storedConfig.toText());
+        }
+    }
+
 }
@@ -0,0 +1,162 @@
+package org.qubership.cloud.actions.maven;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.eclipse.jgit.util.FileUtils;
+import org.qubership.cloud.actions.maven.model.GAV;
+import org.qubership.cloud.actions.maven.model.MavenConfig;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Copy-on-write local repositories for concurrent 'prepare' builds. Each build writes into its own layer and reads the
+ * shared local repository as a read-only tail (maven 3.9+ 'maven.repo.local.tail'), so concurrent installs never write
+ * the same artifacts or maven-metadata-local.xml files. Once a build has completed, its layer is merged into the shared
+ * local repository, before the repositories depending on it are started, and deleted.
+ */
+@Slf4j
+class LocalRepositoryOverlays {
+
+    static final String DIR_NAME = ".local-repository-overlays";
+    static final Pattern versionsPattern = Pattern.compile("(?s)<versions>(.*?)</versions>");
+    static final Pattern versionPattern = Pattern.compile("<version>\\s*([^<\\s]+)\\s*</version>");
+    static final Pattern indentPattern = Pattern.compile("\\n([ \\t]*)<version>");
+
+    // as configured, passed to maven as is
+    final String localRepository;
+    final Path localRepositoryPath;
+    final Path overlaysDir;
+
+    LocalRepositoryOverlays(String localRepository, Path overlaysDir) {
+        this.localRepository = localRepository;
+        this.localRepositoryPath = MavenConfig.resolvePath(localRepository, Path.of(""), System.getenv());
+        this.overlaysDir = overlaysDir;
+    }
+
+    Path layer(RepositoryInfo repository) {
+        return layer(repository.getDir(), repository.getPomFolder());
+    }
+
+    Path layer(String dir, String pomFolder) {
+        String name = pomFolder.isBlank() ? dir : dir + "/" + pomFolder;
+        return overlaysDir.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_")).toAbsolutePath();
+    }
+
+    /**
+     * @return maven arguments to build the repository with its own layer on top of the shared local repository
+     */
+    List<String> arguments(RepositoryInfo repository) {
+        return arguments(layer(repository));
+    }
+
+    List<String> arguments(Path layer) {
+        return List.of("-Dmaven.repo.local=" + layer,
+                "-Dmaven.repo.local.tail=" + localRepository,
+                // artifacts installed by other repositories have no origin the tail could check against
+                "-Dmaven.repo.local.tail.ignoreAvailability=true");
+    }
+
+    /**
+     * Moves the artifacts installed or downloaded by the repository's build into the shared local repository. The
+     * released artifacts replace existing ones, the others are only added, maven-metadata-local.xml and
+     * _remote.repositories files are merged.
+     */
+    void merge(RepositoryInfo repository, Collection<GAV> released) throws IOException {
+        if (merge(layer(repository), released)) {
+            log.info("Merged local repository layer of '{}' [pom:{}] into {}", repository.getUrl(), repository.getPomFolder(), localRepositoryPath);
+        }
+    }
+
+    /**
+     * @return false if there is no such layer
+     */
+    boolean merge(Path layer, Collection<GAV> released) throws IOException {
+        if (!Files.isDirectory(layer)) return false;
+        merge(layer, localRepositoryPath, released);
+        FileUtils.delete(layer.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+        return true;
+    }
+
+    static void merge(Path layer, Path base, Collection<GAV> released) throws IOException {
+        Set<Path> releasedDirs = new HashSet<>();
+        released.forEach(gav -> releasedDirs.add(Path.of(gav.getGroupId().replace('.', '/'), gav.getArtifactId(), gav.getVersion())));
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(layer)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            Path relative = layer.relativize(file);
+            String name = file.getFileName().toString();
+            // lock files, failed resolution markers and resolver state are local to the build
+            if (relative.getName(0).toString().startsWith(".") || name.endsWith(".lastUpdated") || name.equals("resolver-status.properties")) {
+                continue;
+            }
+            Path target = base.resolve(relative);
+            if (!Files.exists(target) || (relative.getParent() != null && releasedDirs.contains(relative.getParent()))) {
+                write(target, Files.readAllBytes(file));
+            } else if (name.startsWith("maven-metadata-") && name.endsWith(".xml")) {
+                write(target, mergeMetadata(Files.readString(target), Files.readString(file)).getBytes(UTF_8));
+            } else if (name.equals("_remote.repositories")) {
+                Set<String> lines = new LinkedHashSet<>(Files.readAllLines(target));
+                Files.readAllLines(file).stream().filter(line -> !line.startsWith("#")).forEach(lines::add);
+                write(target, (String.join("\n", lines) + "\n").getBytes(UTF_8));
+            }
+            // other artifacts are the same wherever they were downloaded from
+        }
+    }
+
+    /**
+     * @return the base metadata with the versions of the layer's metadata added, or the layer's metadata if it does not
+     * list versions, i.e. the metadata of a SNAPSHOT version the layer has installed last
+     */
+    static String mergeMetadata(String base, String layer) {
+        Matcher baseVersions = versionsPattern.matcher(base);
+        Matcher layerVersions = versionsPattern.matcher(layer);
+        if (!baseVersions.find() || !layerVersions.find()) return layer;
+        Set<String> versions = new LinkedHashSet<>(versions(baseVersions.group(1)));
+        List<String> added = versions(layerVersions.group(1)).stream().filter(versions::add).toList();
+        if (added.isEmpty()) return base;
+        // insert after the last version with the indentation of the existing ones
+        String block = baseVersions.group(1);
+        Matcher indentMatcher = indentPattern.matcher(block);
+        String indent = indentMatcher.find() ? indentMatcher.group(1) : "      ";
+        int insertAt = baseVersions.start(1) + block.stripTrailing().length();
+        StringBuilder merged = new StringBuilder(base.substring(0, insertAt));
+        added.forEach(version -> merged.append('\n').append(indent).append("<version>").append(version).append("</version>"));
+        String result = merged.append(base.substring(insertAt)).toString();
+        for (String tag : List.of("latest", "release")) {
+            Matcher layerValue = Pattern.compile("<%s>([^<]+)</%s>".formatted(tag, tag)).matcher(layer);
+            Matcher resultValue = Pattern.compile("<%s>([^<]+)</%s>".formatted(tag, tag)).matcher(result);
+            if (layerValue.find() && resultValue.find() &&
+                new ComparableVersion(layerValue.group(1)).compareTo(new ComparableVersion(resultValue.group(1))) > 0) {
+                result = result.substring(0, resultValue.start(1)) + layerValue.group(1) + result.substring(resultValue.end(1));
+            }
+        }
+        return result;
+    }
+
+    static List<String> versions(String versions) {
+        List<String> result = new ArrayList<>();
+        Matcher matcher = versionPattern.matcher(versions);
+        while (matcher.find()) result.add(matcher.group(1));
+        return result;
+    }
+
+    static void write(Path target, byte[] content) throws IOException {
+        Files.createDirectories(target.getParent());
+        // concurrent builds read the shared local repository while it is merged into
+        Path tmpPath = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        Files.write(tmpPath, content);
+        Files.move(tmpPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
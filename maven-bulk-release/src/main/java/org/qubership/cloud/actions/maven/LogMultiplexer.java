@@ -0,0 +1,124 @@
+package org.qubership.cloud.actions.maven;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Hands out an independent output stream per running process, so that no process ever waits for another one's output
+ * to be consumed. Each stream writes to its own log file through a buffered channel and forwards complete lines
+ * either to the console or to a line consumer.
+ */
+public class LogMultiplexer {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+    static final Object consoleLock = new Object();
+
+    final boolean logsToConsole;
+
+    public LogMultiplexer(boolean logsToConsole) {
+        this.logsToConsole = logsToConsole;
+    }
+
+    /**
+     * Opens a stream which truncates and writes to the log file. Lines are printed to the console if 'logsToConsole'
+     * is enabled, otherwise only the progress is reported every 100 lines.
+     */
+    public OutputStream open(Path logFilePath) throws IOException {
+        Files.createDirectories(logFilePath.getParent());
+        FileChannel channel = FileChannel.open(logFilePath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream fileStream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        Consumer<String> lineConsumer;
+        if (logsToConsole) {
+            lineConsumer = line -> {
+                synchronized (consoleLock) {
+                    System.out.println(line);
+                }
+            };
+        } else {
+            AtomicInteger iterations = new AtomicInteger();
+            lineConsumer = line -> {
+                int i = iterations.incrementAndGet();
+                if (i % 100 == 0) {
+                    synchronized (consoleLock) {
+                        System.out.printf("%d x 100 log lines forwarded [%s]%n", i / 100, logFilePath);
+                    }
+                }
+            };
+        }
+        return new LineStream(fileStream, lineConsumer);
+    }
+
+    /**
+     * Opens a stream which forwards complete lines to the consumer only, i.e. to the application's log.
+     */
+    public static OutputStream lines(Consumer<String> lineConsumer) {
+        return new LineStream(OutputStream.nullOutputStream(), lineConsumer);
+    }
+
+    static class LineStream extends OutputStream {
+        final OutputStream delegate;
+        final Consumer<String> lineConsumer;
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        boolean closed;
+
+        LineStream(OutputStream delegate, Consumer<String> lineConsumer) {
+            this.delegate = delegate;
+            this.lineConsumer = lineConsumer;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            delegate.write(b);
+            append(b);
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            for (int i = off; i < off + len; i++) {
+                append(b[i]);
+            }
+        }
+
+        void append(int b) {
+            if (b == '\n') {
+                forwardLine();
+            } else {
+                line.write(b);
+            }
+        }
+
+        void forwardLine() {
+            String value = line.toString(UTF_8);
+            line.reset();
+            lineConsumer.accept(value.endsWith("\r") ? value.substring(0, value.length() - 1) : value);
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            if (line.size() > 0) {
+                forwardLine();
+            }
+            delegate.close();
+        }
+    }
+}
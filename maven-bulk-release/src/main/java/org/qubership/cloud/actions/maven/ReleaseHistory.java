@@ -0,0 +1,112 @@
+package org.qubership.cloud.actions.maven;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Durations of the phases of every repository in its latest run, kept in the base directory across runs. They weight
+ * the repositories for the scheduler, so that the longest chain of the dependency graph is started first.
+ */
+@Slf4j
+public class ReleaseHistory {
+
+    public static final String FILE_NAME = ".release-history.json";
+    static final ObjectMapper objectMapper = new ObjectMapper();
+    static final Pattern testSuiteTimePattern = Pattern.compile("<testsuite\\b[^>]*?\\btime=\"([\\d.,]+)\"");
+
+    public enum Phase {
+        PREPARE, PERFORM, TESTS
+    }
+
+    final Path historyPath;
+    // url|pomFolder -> phase -> seconds
+    final Map<String, Map<Phase, Double>> durations = new ConcurrentHashMap<>();
+
+    ReleaseHistory(Path historyPath) {
+        this.historyPath = historyPath;
+    }
+
+    public static ReleaseHistory load(Path baseDir) {
+        ReleaseHistory history = new ReleaseHistory(baseDir.resolve(FILE_NAME));
+        if (Files.isRegularFile(history.historyPath)) {
+            try {
+                Map<String, Map<Phase, Double>> durations = objectMapper.readValue(history.historyPath.toFile(), new TypeReference<>() {
+                });
+                durations.forEach((key, phases) -> history.durations.put(key, new ConcurrentHashMap<>(phases)));
+            } catch (Exception e) {
+                log.warn("Failed to read release history: {}, ignoring it. Error: {}", history.historyPath, e.getMessage());
+            }
+        }
+        return history;
+    }
+
+    public void record(RepositoryInfo repository, Phase phase, Duration duration) {
+        durations.computeIfAbsent(repository.key(), k -> new ConcurrentHashMap<>())
+                .put(phase, duration.toMillis() / 1000.0);
+    }
+
+    public OptionalDouble duration(RepositoryInfo repository, Phase phase) {
+        Double seconds = durations.getOrDefault(repository.key(), Map.of()).get(phase);
+        return seconds == null ? OptionalDouble.empty() : OptionalDouble.of(seconds);
+    }
+
+    /**
+     * @return the expected duration of the phase in seconds, the average of all repositories for a repository not run
+     * before, or 1 if the phase has never run, so that the longest chain is the one with the most repositories
+     */
+    public ToDoubleFunction<RepositoryInfo> weight(Phase phase) {
+        double average = durations.values().stream().map(phases -> phases.get(phase)).filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue).average().orElse(1);
+        return repository -> duration(repository, phase).orElse(average);
+    }
+
+    public synchronized void save() {
+        try {
+            Files.createDirectories(historyPath.getParent());
+            Path tmpPath = Files.createTempFile(historyPath.getParent(), historyPath.getFileName().toString(), ".tmp");
+            Map<String, Map<Phase, Double>> sorted = new TreeMap<>();
+            durations.forEach((key, phases) -> sorted.put(key, new TreeMap<>(phases)));
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(tmpPath.toFile(), sorted);
+            Files.move(tmpPath, historyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write release history: {}. Error: {}", historyPath, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the total time of the test suites reported by surefire and failsafe under the directory
+     */
+    static Optional<Duration> testsDuration(Path dir) {
+        if (!Files.isDirectory(dir)) return Optional.empty();
+        try (Stream<Path> files = Files.walk(dir)) {
+            List<Path> reports = files.filter(file -> file.getParent() != null)
+                    .filter(file -> Set.of("surefire-reports", "failsafe-reports").contains(file.getParent().getFileName().toString()))
+                    .filter(file -> file.getFileName().toString().startsWith("TEST-") && file.getFileName().toString().endsWith(".xml"))
+                    .toList();
+            if (reports.isEmpty()) return Optional.empty();
+            double seconds = 0;
+            for (Path report : reports) {
+                Matcher matcher = testSuiteTimePattern.matcher(Files.readString(report));
+                if (matcher.find()) seconds += Double.parseDouble(matcher.group(1).replace(",", ""));
+            }
+            return Optional.of(Duration.ofMillis((long) (seconds * 1000)));
+        } catch (Exception e) {
+            log.warn("Failed to read test reports in: {}. Error: {}", dir, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
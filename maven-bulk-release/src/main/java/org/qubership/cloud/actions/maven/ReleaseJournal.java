@@ -0,0 +1,168 @@
+package org.qubership.cloud.actions.maven;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.qubership.cloud.actions.maven.model.GAV;
+import org.qubership.cloud.actions.maven.model.RepositoryConfig;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+import org.qubership.cloud.actions.maven.model.RepositoryRelease;
+import org.qubership.cloud.actions.maven.model.VersionTag;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Append-only journal of the phases completed per repository during a bulk release. Every entry is written as a single
+ * json line and forced to disk before the release continues, so after a crash the journal contains everything which
+ * was completed. A line torn by a crash is dropped when the journal is re-opened for resume.
+ */
+@Slf4j
+public class ReleaseJournal implements Closeable {
+
+    public static final String FILE_NAME = "release-journal.jsonl";
+    public static final String PREVIOUS_FILE_NAME = FILE_NAME + ".prev";
+
+    static final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    public enum Phase {
+        DEPENDENCIES_UPDATED, PREPARED, PUSHED, DEPLOYED
+    }
+
+    public record Entry(Phase phase, String url, String pomFolder, VersionTag versionTag, String javaVersion,
+                        List<String> gavs, List<String> devGavs, Map<String, String> installedChecksums) {
+    }
+
+    final Path journalPath;
+    final FileChannel channel;
+    // url|pomFolder -> phase -> entry
+    final Map<String, Map<Phase, Entry>> entries = new HashMap<>();
+
+    ReleaseJournal(Path journalPath, FileChannel channel) {
+        this.journalPath = journalPath;
+        this.channel = channel;
+    }
+
+    /**
+     * Opens the journal in baseDir. If 'resume' is set the entries of the previous run are loaded, otherwise the journal
+     * is started from scratch and the one of the previous run is kept as {@link #PREVIOUS_FILE_NAME}, so a run started
+     * without 'resume' by mistake can still be resumed from it.
+     */
+    public static ReleaseJournal open(Path baseDir, boolean resume) throws IOException {
+        Files.createDirectories(baseDir);
+        Path journalPath = baseDir.resolve(FILE_NAME);
+        if (!resume && Files.exists(journalPath) && Files.size(journalPath) > 0) {
+            Path previousPath = baseDir.resolve(PREVIOUS_FILE_NAME);
+            Files.move(journalPath, previousPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Kept the release journal of the previous run as: {}", previousPath);
+        }
+        FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ReleaseJournal journal = new ReleaseJournal(journalPath, channel);
+        try {
+            long validLength = resume ? journal.load() : 0;
+            // drop the trailing line torn by a crash
+            channel.truncate(validLength);
+            channel.position(validLength);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    long load() throws IOException {
+        byte[] content = Files.readAllBytes(journalPath);
+        int start = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') continue;
+            String line = new String(content, start, i - start, UTF_8).trim();
+            if (!line.isEmpty()) {
+                add(objectMapper.readValue(line, Entry.class));
+            }
+            start = i + 1;
+        }
+        if (start < content.length) {
+            log.warn("Dropping incomplete last entry of release journal: {}", journalPath);
+        }
+        log.info("Loaded release journal: {}, completed phases:\n{}", journalPath, String.join("\n", entries.entrySet().stream()
+                .map(e -> "%s %s".formatted(e.getKey(), e.getValue().keySet()))
+                .sorted()
+                .toList()));
+        return start;
+    }
+
+    void add(Entry entry) {
+        entries.computeIfAbsent(RepositoryConfig.key(entry.url(), entry.pomFolder()), k -> new EnumMap<>(Phase.class)).put(entry.phase(), entry);
+    }
+
+    /**
+     * @return the release restored from the journal if the repository was already prepared, with its pushed/deployed state
+     */
+    public synchronized Optional<RepositoryRelease> prepared(RepositoryInfo repositoryInfo) {
+        Map<Phase, Entry> phases = phases(repositoryInfo.getUrl(), repositoryInfo.getPomFolder());
+        Entry prepared = phases.get(Phase.PREPARED);
+        if (prepared == null) return Optional.empty();
+        RepositoryRelease release = new RepositoryRelease();
+        release.setRepository(repositoryInfo);
+        release.setVersionTag(prepared.versionTag());
+        release.setJavaVersion(prepared.javaVersion());
+        release.setGavs(prepared.gavs().stream().map(GAV::new).toList());
+        release.setDevGavs(prepared.devGavs().stream().map(GAV::new).toList());
+        release.setInstalledChecksums(prepared.installedChecksums());
+        release.setPushedToGit(phases.containsKey(Phase.PUSHED));
+        release.setDeployed(phases.containsKey(Phase.DEPLOYED));
+        return Optional.of(release);
+    }
+
+    /**
+     * @return true if the updated dependencies of the repository were already committed
+     */
+    public boolean dependenciesUpdated(RepositoryInfo repositoryInfo) {
+        return phases(repositoryInfo.getUrl(), repositoryInfo.getPomFolder()).containsKey(Phase.DEPENDENCIES_UPDATED);
+    }
+
+    synchronized Map<Phase, Entry> phases(String url, String pomFolder) {
+        return entries.getOrDefault(RepositoryConfig.key(url, pomFolder), Map.of());
+    }
+
+    public void record(Phase phase, RepositoryInfo repositoryInfo) {
+        append(new Entry(phase, repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), null, null, null, null, null));
+    }
+
+    public void record(Phase phase, RepositoryRelease release) {
+        RepositoryInfo repositoryInfo = release.getRepository();
+        append(new Entry(phase, repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), release.getVersionTag(), release.getJavaVersion(),
+                release.getGavs().stream().map(GAV::toString).toList(), release.getDevGavs().stream().map(GAV::toString).toList(),
+                release.getInstalledChecksums()));
+    }
+
+    synchronized void append(Entry entry) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap((objectMapper.writeValueAsString(entry) + "\n").getBytes(UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            add(entry);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write release journal: %s".formatted(journalPath), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
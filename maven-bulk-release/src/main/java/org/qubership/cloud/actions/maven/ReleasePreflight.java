@@ -0,0 +1,219 @@
+package org.qubership.cloud.actions.maven;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.qubership.cloud.actions.maven.model.*;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Finds repositories which have not changed since their latest release. The refs of each remote are listed once, the
+ * branch tip is compared with the commit of the latest release tag below the current version, and if they differ, the
+ * trees of both commits may only differ in the versions of the poms, like after 'prepare for next development iteration'.
+ * The repositories are checked before they are checked out, a tip which differs from the release is compared in a
+ * checkout of the poms only.
+ */
+@Slf4j
+class ReleasePreflight {
+
+    static final Pattern versionPattern = Pattern.compile("(?<major>\\d+)\\.(?<minor>\\d+)\\.(?<patch>\\d+)");
+
+    record LatestRelease(VersionTag versionTag, ObjectId commit) {
+    }
+
+    final GitService gitService;
+    final Map<String, Map<String, Ref>> remoteRefs = new ConcurrentHashMap<>();
+    // the repositories found reusable while the dependency graph was built, they are not checked out
+    final Map<RepositoryInfo, VersionTag> reusable = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    ReleasePreflight(GitService gitService) {
+        this.gitService = gitService;
+    }
+
+    /**
+     * @param devVersions the current versions of the modules of all repositories, the ones a dependency is switched to
+     *                    after the release of its repository
+     * @return the latest release of every repository which has not changed since it
+     */
+    Map<RepositoryInfo, VersionTag> unchanged(Collection<RepositoryInfo> repositories, Map<GA, String> devVersions, int parallelism) {
+        Map<RepositoryInfo, Future<Optional<VersionTag>>> futures = new LinkedHashMap<>();
+        try (ExecutorService executorService = Executors.newFixedThreadPool(parallelism)) {
+            repositories.forEach(repository -> futures.put(repository, executorService.submit(() -> unchangedSince(repository, devVersions))));
+        }
+        Map<RepositoryInfo, VersionTag> result = new IdentityHashMap<>();
+        futures.forEach((repository, future) -> {
+            try {
+                future.get().ifPresent(versionTag -> result.put(repository, versionTag));
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                log.warn("Failed to check changes of repository '{}' [pom:{}] since its latest release. Error: {}",
+                        repository.getUrl(), repository.getPomFolder(), e.getMessage());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the unchanged repositories which do not depend on any repository to be released
+     */
+    static Map<RepositoryInfo, VersionTag> reusable(Map<RepositoryInfo, VersionTag> unchanged,
+                                                    Function<RepositoryInfo, Set<RepositoryInfo>> upstreams) {
+        Map<RepositoryInfo, VersionTag> result = new IdentityHashMap<>();
+        unchanged.forEach((repository, versionTag) -> {
+            if (unchanged.keySet().containsAll(upstreams.apply(repository))) result.put(repository, versionTag);
+        });
+        return result;
+    }
+
+    /**
+     * @return the refs of the remote, listed once per url
+     */
+    Map<String, Ref> refs(String url) {
+        return remoteRefs.computeIfAbsent(url, u -> {
+            try {
+                return gitService.lsRemote(u);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * @return id of the commit the repository's branch (or tag) points to on the remote, empty if it cannot be resolved
+     */
+    Optional<String> remoteHead(RepositoryConfig repository) {
+        String branch = repository.getBranch();
+        try {
+            return GitService.commitId(refs(repository.getUrl()), branch).map(ObjectId::name);
+        } catch (Exception e) {
+            log.warn("Failed to resolve remote head of {} [{}]. Error: {}", repository.getUrl(), branch, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the latest release of the repository, with its commit present in the working tree
+     */
+    Optional<LatestRelease> latestRelease(RepositoryInfo repository, Git git) throws Exception {
+        Optional<LatestRelease> latestRelease = latestRelease(refs(repository.getUrl()), repository);
+        if (latestRelease.isPresent() && !git.getRepository().getObjectDatabase().has(latestRelease.get().commit())) {
+            gitService.fetchTag(git, latestRelease.get().versionTag().tag());
+        }
+        return latestRelease;
+    }
+
+    Optional<VersionTag> unchangedSince(RepositoryInfo repository, Map<GA, String> devVersions) throws Exception {
+        Map<String, Ref> refs = refs(repository.getUrl());
+        Optional<ObjectId> tip = GitService.commitId(refs, repository.getBranch());
+        Optional<LatestRelease> latestRelease = latestRelease(refs, repository);
+        if (tip.isEmpty() || latestRelease.isEmpty()) return Optional.empty();
+        LatestRelease release = latestRelease.get();
+        if (!tip.get().equals(release.commit())) {
+            Path repositoryDirPath = Path.of(repository.getBaseDir(), repository.getDir());
+            // a repository linked from the cache may have no checkout, the poms are enough to compare the trees
+            if (GitService.isEmpty(repositoryDirPath)) {
+                gitService.gitCheckoutPoms(repository.getBaseDir(), repository, LogMultiplexer.lines(log::info));
+            }
+            try (Git git = Git.open(repositoryDirPath.toFile())) {
+                Repository rep = git.getRepository();
+                // a checkout behind the tip is not compared, the repository is checked out again to be released
+                if (!tip.get().equals(rep.resolve(Constants.HEAD))) return Optional.empty();
+                if (!rep.getObjectDatabase().has(release.commit())) gitService.fetchTag(git, release.versionTag().tag());
+                Set<GA> own = repository.getModules().stream().map(GAV::toGA).collect(Collectors.toSet());
+                if (!sameIgnoringVersions(rep, tip.get(), release.commit(), repository.getPomFolder(), own, devVersions)) {
+                    return Optional.empty();
+                }
+            }
+        }
+        log.info("Repository '{}' [pom:{}] has not changed since its release {}",
+                repository.getUrl(), repository.getPomFolder(), release.versionTag().tag());
+        return Optional.of(release.versionTag());
+    }
+
+    /**
+     * @return the release tag with the highest version below the version to be released now
+     */
+    static Optional<LatestRelease> latestRelease(Map<String, Ref> refs, RepositoryInfo repository) throws Exception {
+        Matcher currentMatcher = versionPattern.matcher(repository.calculateReleaseVersion(VersionIncrementType.PATCH).version());
+        if (!currentMatcher.matches()) return Optional.empty();
+        List<Integer> current = version(currentMatcher);
+        // tag names as created by RepositoryInfo.calculateReleaseVersion
+        String prefix = repository.getPomFolder().isBlank() || repository.getBaseModule() == null
+                ? "" : repository.getBaseModule().getArtifactId() + "-";
+        Comparator<List<Integer>> byVersion = Comparator.<List<Integer>, Integer>comparing(v -> v.get(0))
+                .thenComparing(v -> v.get(1)).thenComparing(v -> v.get(2));
+        LatestRelease latest = null;
+        List<Integer> latestVersion = null;
+        for (Ref ref : refs.values()) {
+            if (!ref.getName().startsWith(Constants.R_TAGS + prefix)) continue;
+            String version = ref.getName().substring(Constants.R_TAGS.length() + prefix.length());
+            Matcher matcher = versionPattern.matcher(version);
+            if (!matcher.matches()) continue;
+            List<Integer> tagVersion = version(matcher);
+            if (byVersion.compare(tagVersion, current) >= 0) continue;
+            if (latestVersion == null || byVersion.compare(tagVersion, latestVersion) > 0) {
+                latestVersion = tagVersion;
+                latest = new LatestRelease(new VersionTag(version, prefix + version),
+                        Optional.ofNullable(ref.getPeeledObjectId()).orElse(ref.getObjectId()));
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    static List<Integer> version(Matcher matcher) {
+        return List.of(Integer.parseInt(matcher.group("major")), Integer.parseInt(matcher.group("minor")),
+                Integer.parseInt(matcher.group("patch")));
+    }
+
+    /**
+     * @return true if the poms of the tip differ from the ones of the release only in the versions of the repository's
+     * own modules, and in the versions of dependencies switched to the current SNAPSHOT version of their repository, as
+     * written by the switch of inter-module dependencies to SNAPSHOT after a release
+     */
+    static boolean sameIgnoringVersions(Repository rep, ObjectId tip, ObjectId release, String pomFolder, Set<GA> own,
+                                        Map<GA, String> devVersions) throws Exception {
+        try (RevWalk revWalk = new RevWalk(rep); TreeWalk treeWalk = new TreeWalk(rep)) {
+            treeWalk.addTree(revWalk.parseCommit(tip).getTree());
+            treeWalk.addTree(revWalk.parseCommit(release).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(pomFolder.isBlank() ? TreeFilter.ANY_DIFF
+                    : AndTreeFilter.create(PathFilter.create(pomFolder), TreeFilter.ANY_DIFF));
+            while (treeWalk.next()) {
+                if (!GitService.isPom(treeWalk.getNameString())) return false;
+                ObjectId blob1 = treeWalk.getObjectId(0);
+                ObjectId blob2 = treeWalk.getObjectId(1);
+                if (blob1.equals(ObjectId.zeroId()) || blob2.equals(ObjectId.zeroId())) return false;
+                String pom1 = new String(rep.open(blob1).getBytes(), UTF_8);
+                String pom2 = new String(rep.open(blob2).getBytes(), UTF_8);
+                Map<GA, String> versions = PomHolder.versions(pom1);
+                Set<GA> gas = new HashSet<>(own);
+                PomHolder.changedVersions(pom1, pom2).stream()
+                        .filter(ga -> !own.contains(ga))
+                        .filter(ga -> versions.get(ga).endsWith("-SNAPSHOT") && versions.get(ga).equals(devVersions.get(ga)))
+                        .forEach(gas::add);
+                if (!PomHolder.sameIgnoringVersions(pom1, pom2, gas)) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -2,31 +2,35 @@ package org.qubership.cloud.actions.maven;
 
 import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.model.DistributionManagement;
+import org.apache.maven.model.Model;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.TextProgressMonitor;
+import org.eclipse.jgit.revwalk.RevTree;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.jgrapht.Graph;
 import org.jgrapht.graph.SimpleDirectedGraph;
 import org.jgrapht.nio.dot.DOTExporter;
 import org.qubership.cloud.actions.maven.model.*;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -41,16 +45,19 @@ public class ReleaseRunner {
     public Result release(Config config) throws Exception {
         Result result = new Result();
         assertPartialReleaseAllowed(config);
+        assertResumeAllowed(config);
         log.info("Config: {}", yamlMapper.writeValueAsString(config));
         // set up git creds if necessary
         GitService gitService = new GitService(config.getGitConfig());
 
         Map<GA, String> dependenciesGavs = config.getGavs().stream().map(GAV::new)
-                .collect(Collectors.toMap(gav -> new GA(gav.getGroupId(), gav.getArtifactId()), GAV::getVersion));
+                .collect(Collectors.toMap(gav -> new GA(gav.getGroupId(), gav.getArtifactId()), GAV::getVersion,
+                        (v1, v2) -> v2, ConcurrentHashMap::new));
         // build dependency graph
-        RepositoryService repositoryService = new RepositoryService(gitService);
+        ReleasePreflight preflight = new ReleasePreflight(gitService);
+        RepositoryService repositoryService = new RepositoryService(gitService, preflight, config.getMavenConfig());
         Map<Integer, List<RepositoryInfo>> dependencyGraph = repositoryService.buildDependencyGraph(config.getBaseDir(), config.getGitConfig(),
-                config.getRepositories(), config.getRepositoriesToReleaseFrom());
+                config.getRepositories(), config.getRepositoriesToReleaseFrom(), config.isSkipUnchanged());
         result.setDependencyGraph(dependencyGraph);
         String dot = generateDotFile(dependencyGraph);
         result.setDependenciesDot(dot);
@@ -60,6 +67,7 @@ public class ReleaseRunner {
         if (!Files.exists(logsFolderPath)) {
             Files.createDirectories(logsFolderPath);
         }
+        LogMultiplexer logMultiplexer = new LogMultiplexer(config.isLogsToConsole());
         log.info("Dependency graph:\n{}", String.join("\n", dependencyGraph.entrySet().stream()
                 .map(entry -> {
                     int level = entry.getKey();
@@ -70,178 +78,117 @@ public class ReleaseRunner {
                                     .toList()));
                 }).toList()));
 
-        List<RepositoryRelease> allReleases = dependencyGraph.entrySet().stream().flatMap(entry -> {
-            int level = entry.getKey() + 1;
-            List<RepositoryInfo> reposInfoList = entry.getValue();
-            log.info("Running 'prepare' - processing level {}/{}, {} repositories:\n{}", level, dependencyGraph.size(), reposInfoList.size(),
-                    String.join("\n", reposInfoList.stream()
-                            .map(rc -> "%s [pomFolder: '%s']".formatted(rc.getUrl(), rc.getPomFolder())).toList()));
-
-            int threads = Math.min(config.getRunParallelism(), reposInfoList.size());
-            try (ExecutorService executorService = Executors.newFixedThreadPool(threads)) {
-                Set<GAV> gavList = dependenciesGavs.entrySet().stream()
-                        .map(e -> new GAV(e.getKey().getGroupId(), e.getKey().getArtifactId(), e.getValue()))
-                        .collect(Collectors.toSet());
-                List<TraceableFuture<RepositoryRelease, RepositoryInfo>> traceableFutures = reposInfoList.stream()
-                        .map(repo -> {
-                            try {
-                                PipedOutputStream out = new PipedOutputStream();
-                                PipedInputStream pipedInputStream = new PipedInputStream(out, 16384);
-                                Future<RepositoryRelease> future = executorService.submit(() -> releasePrepare(config, repo, gavList, out));
-                                return new TraceableFuture<>(future, pipedInputStream, repo);
-                            } catch (IOException e) {
-                                throw new RuntimeException(e);
-                            }
-                        })
-                        .toList();
-                List<RepositoryRelease> releases = traceableFutures.stream()
-                        .map(future -> {
-                            RepositoryInfo repositoryInfo = future.getObject();
-                            Path repoLogDirPath = logsFolderPath.resolve(repositoryInfo.getDir());
-                            if (!repositoryInfo.getPomFolder().isBlank()) {
-                                repoLogDirPath = repoLogDirPath.resolve(repositoryInfo.getPomFolder());
-                            }
-                            Path repoLogFilePath = repoLogDirPath.resolve("prepare.log");
-                            String pomFolder = repositoryInfo.getPomFolder().isBlank() ? "" : "/" + repositoryInfo.getPomFolder();
-                            try (PipedInputStream pipedInputStream = future.getPipedInputStream();
-                                 BufferedReader reader = new BufferedReader(new InputStreamReader(pipedInputStream, StandardCharsets.UTF_8))) {
-                                if (!Files.exists(repoLogDirPath)) {
-                                    Files.createDirectories(repoLogDirPath);
-                                }
-                                Files.writeString(repoLogFilePath, "", StandardCharsets.UTF_8,
-                                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                                log.info("Started 'prepare' process for repository '{}'.\nFor details see log file: {}",
-                                        repositoryInfo.getUrl() + pomFolder, repoLogFilePath);
-                                String line;
-                                int iterations = 0;
-                                while ((line = reader.readLine()) != null) {
-                                    Files.writeString(repoLogFilePath, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
-                                    if (config.isLogsToConsole()) {
-                                        System.out.println(line);
-                                    } else {
-                                        if (++iterations % 100 == 0) {
-                                            System.out.printf("%d x 100 log lines forwarded%n", iterations / 100);
-                                        }
-                                    }
-                                }
-                                RepositoryRelease repositoryRelease = future.getFuture().get();
-                                log.info("Finished 'prepare' process for repository '{}'.\nFor details see log file: {}",
-                                        repositoryInfo.getUrl() + pomFolder, repoLogFilePath);
-                                return repositoryRelease;
-                            } catch (Exception e) {
-                                if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                                if (!config.isLogsToConsole()) {
-                                    try {
-                                        Files.readAllLines(repoLogFilePath).forEach(log::error);
-                                    } catch (IOException ioe) {
-                                        log.error("Failed to read log file: {}", repoLogFilePath, ioe);
-                                    }
-                                }
-                                log.error("'prepare' process for repository '{}' has failed. Error: {}. \nFor details see log content above",
-                                        repositoryInfo.getUrl() + pomFolder, e.getMessage());
-                                log.info("Shutting down now executor service");
-                                executorService.shutdownNow();
-                                for (TraceableFuture<RepositoryRelease, RepositoryInfo> traceableFuture : new ArrayList<>(traceableFutures)) {
-                                    try {
-                                        traceableFuture.getPipedInputStream().close();
-                                    } catch (IOException ioe) {
-                                        log.warn("Failed to close piped stream: {}", ioe.getMessage());
-                                    }
-                                }
-                                throw new RuntimeException(e);
-                            }
-                        })
-                        .toList();
-                releases.stream().flatMap(r -> r.getGavs().stream())
-                        .forEach(gav -> dependenciesGavs.put(new GA(gav.getGroupId(), gav.getArtifactId()), gav.getVersion()));
-                return releases.stream();
+        List<RepositoryInfo> repositories = dependencyGraph.values().stream().flatMap(Collection::stream).toList();
+        RepositoryInfoLinker linker = new RepositoryInfoLinker(repositories);
+        // found before the checkout, empty unless skipUnchanged
+        Map<RepositoryInfo, VersionTag> reusable = preflight.reusable;
+        Function<RepositoryInfo, List<String>> testSelection = config.isSelectiveTests()
+                ? new TestImpact(preflight, Path.of(config.getBaseDir()).resolve(TestImpact.DIR_NAME))::arguments
+                : repository -> List.of();
+        ReleaseHistory history = ReleaseHistory.load(Path.of(config.getBaseDir()));
+        try (ReleaseJournal journal = ReleaseJournal.open(Path.of(config.getBaseDir()), config.isResume())) {
+            log.info("Running 'prepare' for {} repositories, parallelism: {}", repositories.size() - reusable.size(), config.getRunParallelism());
+            // each repository starts as soon as all repositories it depends on are prepared and their GAVs are merged
+            List<RepositoryRelease> allReleases = new DagScheduler<>(repositories, linker::getRepositoriesUsedByThisFlatSet, config.getRunParallelism())
+                    .exclusiveBy(RepositoryInfo::getUrl)
+                    .prioritizeBy(history.weight(ReleaseHistory.Phase.PREPARE))
+                    .run(repositoryInfo -> reusable.containsKey(repositoryInfo) ? reuse(repositoryInfo, reusable.get(repositoryInfo)) : journal.prepared(repositoryInfo)
+                                    .map(release -> {
+                                        log.info("Skipping 'prepare' for repository '{}' [pom:{}], already prepared: {}",
+                                                repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), release.getVersionTag().tag());
+                                        return release;
+                                    })
+                                    .orElseGet(() -> {
+                                        Set<GAV> gavList = dependenciesGavs.entrySet().stream()
+                                                .map(e -> new GAV(e.getKey().getGroupId(), e.getKey().getArtifactId(), e.getValue()))
+                                                .collect(Collectors.toSet());
+                                        RepositoryRelease release = releasePrepare(config, logMultiplexer, logsFolderPath, journal, repositoryInfo, gavList, testSelection);
+                                        history.record(repositoryInfo, ReleaseHistory.Phase.PREPARE, release.getPrepareDuration());
+                                        ReleaseHistory.testsDuration(Path.of(repositoryInfo.getBaseDir(), repositoryInfo.getDir(), repositoryInfo.getPomFolder()))
+                                                .ifPresent(duration -> history.record(repositoryInfo, ReleaseHistory.Phase.TESTS, duration));
+                                        journal.record(ReleaseJournal.Phase.PREPARED, release);
+                                        return release;
+                                    }),
+                            (repositoryInfo, release) -> {
+                                mergeLocalRepositoryLayer(config, release);
+                                release.getGavs().forEach(gav -> dependenciesGavs.put(new GA(gav.getGroupId(), gav.getArtifactId()), gav.getVersion()));
+                            });
+
+            if (!config.isDryRun()) {
+                List<RepositoryRelease> releases = allReleases.stream().filter(release -> !release.isReused()).toList();
+                switchInterModuleDepsToSnapshot(config, releases);
+                performReleases(config, logMultiplexer, logsFolderPath, journal, history, linker, releases);
             }
-        }).toList();
-
-        if (!config.isDryRun()) {
-            switchInterModuleDepsToSnapshot(config, allReleases);
-            Map<Integer, Map<String, List<RepositoryInfo>>> publishDependencyGraph = new TreeMap<>();
-            AtomicInteger newLevel = new AtomicInteger(-1);
-            AtomicReference<String> lastUrlRef = new AtomicReference<>();
-            dependencyGraph.forEach((level, repos) -> repos.forEach(ri -> {
-                String url = ri.getUrl();
-                String lastUrl = lastUrlRef.get();
-                if (!Objects.equals(lastUrl, url)) {
-                    newLevel.incrementAndGet();
-                    lastUrlRef.set(url);
-                }
-                Map<String, List<RepositoryInfo>> urlToInfosMap = publishDependencyGraph.computeIfAbsent(newLevel.get(), k -> new TreeMap<>());
-                List<RepositoryInfo> urlToRepos = urlToInfosMap.computeIfAbsent(url, k -> new ArrayList<>());
-                urlToRepos.add(ri);
-            }));
-
-            publishDependencyGraph.forEach((level, reposByUrlMap) ->
-                    reposByUrlMap.forEach((url, reposMap) -> {
-                        List<RepositoryInfo> repos = reposMap.stream().toList();
-                        log.info("Running 'perform' - processing level {}/{}, {} repositories:\n{}", level + 1, publishDependencyGraph.size(), repos.size(),
-                                String.join("\n", repos.stream()
-                                        .map(rc -> "%s [pomFolder: '%s']".formatted(rc.getUrl(), rc.getPomFolder())).toList()));
-                        List<RepositoryRelease> releases = allReleases.stream()
-                                .filter(release -> repos.stream()
-                                        .anyMatch(repo -> Objects.equals(repo.getUrl(), release.getRepository().getUrl()) &&
-                                                          Objects.equals(repo.getPomFolder(), release.getRepository().getPomFolder())))
-                                .toList();
-                        RepositoryInfo repositoryInfo = releases.getFirst().getRepository();
-                        Path repoLogDirPath = logsFolderPath.resolve(repositoryInfo.getDir());
-                        Path repoLogFilePath = repoLogDirPath.resolve("perform.log");
-
-                        try (PipedOutputStream out = new PipedOutputStream();
-                             PipedInputStream pipedInputStream = new PipedInputStream(out, 16384);
-                             BufferedReader reader = new BufferedReader(new InputStreamReader(pipedInputStream, StandardCharsets.UTF_8))) {
-                            try (ExecutorService executorService = Executors.newSingleThreadExecutor()) {
-                                Future<?> future = executorService.submit(() -> {
-                                    try {
-                                        performRelease(config, releases, out);
-                                    } catch (Exception e) {
-                                        throw new RuntimeException(e);
-                                    }
-                                });
-                                if (!Files.exists(repoLogDirPath)) {
-                                    Files.createDirectories(repoLogDirPath);
-                                }
-                                Files.writeString(repoLogFilePath, "", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                                log.info("Started 'perform' process for repository '{}'.\nFor details see log file: {}",
-                                        repositoryInfo.getUrl(), repoLogFilePath);
-                                String line;
-                                int iterations = 0;
-                                while ((line = reader.readLine()) != null) {
-                                    Files.writeString(repoLogFilePath, line + "\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
-                                    if (config.isLogsToConsole()) {
-                                        System.out.println(line);
-                                    } else {
-                                        if (++iterations % 100 == 0) {
-                                            System.out.printf("%d x 100 log lines forwarded%n", iterations / 100);
-                                        }
-                                    }
-                                }
-                                future.get();
-                                log.info("Finished 'perform' process for repository '{}'.\nFor details see log file: {}",
-                                        repositoryInfo.getUrl(), repoLogFilePath);
-                            }
-                        } catch (Exception e) {
-                            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                            if (!config.isLogsToConsole()) {
-                                try {
-                                    Files.readAllLines(repoLogFilePath).forEach(log::error);
-                                } catch (IOException ioe) {
-                                    log.error("Failed to read log file: {}", repoLogFilePath, ioe);
-                                }
-                            }
-                            log.error("'perform' process for repository '{}' has failed. Error: {}.\nFor details see log content above",
-                                    repositoryInfo.getUrl(), e.getMessage());
-                            throw new RuntimeException(e);
-                        }
-                    }));
+            result.setReleases(allReleases);
+        } finally {
+            history.save();
         }
-        result.setReleases(allReleases);
         return result;
     }
 
+    /**
+     * @return the latest release of a repository which has not changed since it, its modules are neither prepared nor
+     * performed again
+     */
+    RepositoryRelease reuse(RepositoryInfo repositoryInfo, VersionTag versionTag) {
+        log.info("Skipping 'prepare' and 'perform' for repository '{}' [pom:{}], unchanged since release: {}",
+                repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), versionTag.tag());
+        RepositoryRelease release = new RepositoryRelease();
+        release.setRepository(repositoryInfo);
+        release.setVersionTag(versionTag);
+        release.setGavs(repositoryInfo.getModules().stream()
+                .map(gav -> new GAV(gav.getGroupId(), gav.getArtifactId(), versionTag.version()))
+                .sorted(Comparator.comparing(GAV::toString))
+                .toList());
+        release.setDevGavs(List.of());
+        release.setReused(true);
+        release.setPushedToGit(true);
+        release.setDeployed(true);
+        return release;
+    }
+
+    void performReleases(Config config, LogMultiplexer logMultiplexer, Path logsFolderPath, ReleaseJournal journal,
+                         ReleaseHistory history, RepositoryInfoLinker linker, List<RepositoryRelease> allReleases) {
+        // releases from the same git repository which follow each other are pushed together
+        List<List<RepositoryRelease>> groups = new ArrayList<>();
+        for (RepositoryRelease release : allReleases) {
+            if (groups.isEmpty() || !Objects.equals(groups.getLast().getFirst().getRepository().getUrl(), release.getRepository().getUrl())) {
+                groups.add(new ArrayList<>());
+            }
+            groups.getLast().add(release);
+        }
+        Map<RepositoryInfo, List<RepositoryRelease>> groupByRepository = new IdentityHashMap<>();
+        groups.forEach(group -> group.forEach(release -> groupByRepository.put(release.getRepository(), group)));
+        Function<List<RepositoryRelease>, List<List<RepositoryRelease>>> upstreams = group -> group.stream()
+                .flatMap(release -> linker.getRepositoriesUsedByThisFlatSet(release.getRepository()).stream())
+                .map(groupByRepository::get)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        log.info("Running 'perform' for {} repositories, parallelism: {}", groups.size(), config.getPerformParallelism());
+        ToDoubleFunction<RepositoryInfo> performWeight = history.weight(ReleaseHistory.Phase.PERFORM);
+        new DagScheduler<>(groups, upstreams, config.getPerformParallelism())
+                .exclusiveBy(group -> group.getFirst().getRepository().getUrl())
+                .prioritizeBy(group -> performWeight.applyAsDouble(group.getFirst().getRepository()))
+                .run(releases -> {
+                    RepositoryInfo repositoryInfo = releases.getFirst().getRepository();
+                    if (releases.stream().allMatch(release -> release.isPushedToGit() &&
+                                                              (release.isDeployed() || !config.getMavenConfig().isDeployArtifacts()))) {
+                        log.info("Skipping 'perform' for repository '{}', already performed", repositoryInfo.getUrl());
+                        return releases;
+                    }
+                    Path repoLogFilePath = logsFolderPath.resolve(repositoryInfo.getDir()).resolve("perform.log");
+                    return runLogged(config, logMultiplexer, repoLogFilePath, "perform", repositoryInfo.getUrl(), out -> {
+                        long start = System.nanoTime();
+                        performRelease(config, journal, releases, out);
+                        // a group is performed by one process per repository, the first one stands for the group
+                        history.record(repositoryInfo, ReleaseHistory.Phase.PERFORM, Duration.ofNanos(System.nanoTime() - start));
+                        return releases;
+                    });
+                }, (releases, result) -> {
+                });
+    }
+
     static final String MAIN_BRANCH = "main";
 
     static String resolveReleaseBranch(Config config) {
@@ -284,9 +231,71 @@ public class ReleaseRunner {
         }
     }
 
-    RepositoryRelease releasePrepare(Config config, RepositoryInfo repository, Collection<GAV> dependencies, OutputStream outputStream) throws Exception {
+    void assertResumeAllowed(Config config) {
+        // a refresh resets the working trees to the remote, i.e. drops the release commits prepared but not pushed yet
+        if (config.isResume() && config.getGitConfig().isRefresh()) {
+            throw new IllegalStateException("resume is not allowed together with git refresh");
+        }
+    }
+
+    RepositoryRelease releasePrepare(Config config, LogMultiplexer logMultiplexer, Path logsFolderPath, ReleaseJournal journal,
+                                     RepositoryInfo repositoryInfo, Collection<GAV> dependencies,
+                                     Function<RepositoryInfo, List<String>> testSelection) {
+        Path repoLogDirPath = logsFolderPath.resolve(repositoryInfo.getDir());
+        if (!repositoryInfo.getPomFolder().isBlank()) {
+            repoLogDirPath = repoLogDirPath.resolve(repositoryInfo.getPomFolder());
+        }
+        String pomFolder = repositoryInfo.getPomFolder().isBlank() ? "" : "/" + repositoryInfo.getPomFolder();
+        return runLogged(config, logMultiplexer, repoLogDirPath.resolve("prepare.log"), "prepare", repositoryInfo.getUrl() + pomFolder,
+                out -> releasePrepare(config, journal, repositoryInfo, dependencies, testSelection, out));
+    }
+
+    interface LoggedTask<R> {
+        R run(OutputStream outputStream) throws Exception;
+    }
+
+    <R> R runLogged(Config config, LogMultiplexer logMultiplexer, Path repoLogFilePath, String phase, String repository, LoggedTask<R> task) {
+        try {
+            OutputStream outputStream = logMultiplexer.open(repoLogFilePath);
+            log.info("Started '{}' process for repository '{}'.\nFor details see log file: {}", phase, repository, repoLogFilePath);
+            R result;
+            try (outputStream) {
+                result = task.run(outputStream);
+            }
+            log.info("Finished '{}' process for repository '{}'.\nFor details see log file: {}", phase, repository, repoLogFilePath);
+            return result;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            if (!config.isLogsToConsole()) {
+                try {
+                    Files.readAllLines(repoLogFilePath).forEach(log::error);
+                } catch (IOException ioe) {
+                    log.error("Failed to read log file: {}", repoLogFilePath, ioe);
+                }
+            }
+            log.error("'{}' process for repository '{}' has failed. Error: {}. \nFor details see log content above",
+                    phase, repository, e.getMessage());
+            throw new RuntimeException(e);
+        }
+    }
+
+    RepositoryRelease releasePrepare(Config config, ReleaseJournal journal, RepositoryInfo repository,
+                                     Collection<GAV> dependencies, OutputStream outputStream) throws Exception {
+        return releasePrepare(config, journal, repository, dependencies, r -> List.of(), outputStream);
+    }
+
+    RepositoryRelease releasePrepare(Config config, ReleaseJournal journal, RepositoryInfo repository, Collection<GAV> dependencies,
+                                     Function<RepositoryInfo, List<String>> testSelection, OutputStream outputStream) throws Exception {
         try (outputStream) {
-            updateDependencies(repository, dependencies);
+            if (journal.dependenciesUpdated(repository)) {
+                // the working tree may hold the uncommitted changes of the interrupted release:prepare, which must not be
+                // committed as a dependency update
+                log.info("Skipping dependencies update for repository '{}' [pom:{}], already committed",
+                        repository.getUrl(), repository.getPomFolder());
+            } else {
+                updateDependencies(repository, dependencies);
+                journal.record(ReleaseJournal.Phase.DEPENDENCIES_UPDATED, repository);
+            }
 
             String javaVersion = repository.calculateJavaVersion();
             // todo - disable, because this plugin brings versions from redhat server i.e. 2.0.17.redhat-00001 which is not acceptable
@@ -295,7 +304,9 @@ public class ReleaseRunner {
             VersionIncrementType versionIncrementType = Optional.ofNullable(repository.getVersionIncrementType())
                     .orElse(Optional.ofNullable(config.getVersionIncrementType()).orElse(VersionIncrementType.PATCH));
             VersionTag versionTag = repository.calculateReleaseVersion(versionIncrementType);
-            return releasePrepare(repository, config, versionTag, javaVersion, outputStream);
+            // after the dependencies are updated, their commit is part of the changes since the latest release
+            List<String> testArguments = repository.isSkipTests() || config.isSkipTests() ? List.of() : testSelection.apply(repository);
+            return releasePrepare(repository, config, versionTag, javaVersion, testArguments, outputStream);
         }
     }
 
@@ -349,43 +360,52 @@ public class ReleaseRunner {
         }
     }
 
-    RepositoryRelease releasePrepare(RepositoryInfo repositoryInfo, Config config, VersionTag versionTag,
-                                     String javaVersion, OutputStream outputStream) throws Exception {
+    RepositoryRelease releasePrepare(RepositoryInfo repositoryInfo, Config config, VersionTag versionTag, String javaVersion,
+                                     List<String> testArguments, OutputStream outputStream) throws Exception {
         Path repositoryDirPath = Paths.get(repositoryInfo.getBaseDir(), repositoryInfo.getDir(), repositoryInfo.getPomFolder());
-        List<String> arguments = new ArrayList<>();
-        arguments.add("-Dmaven.repo.local=" + config.getMavenConfig().getLocalRepositoryPath());
+        List<String> localRepository = localRepositoryOverlays(config).map(overlays -> overlays.arguments(repositoryInfo))
+                .orElse(List.of("-Dmaven.repo.local=" + config.getMavenConfig().getLocalRepositoryPath()));
+        List<String> arguments = new ArrayList<>(localRepository);
         if (repositoryInfo.isSkipTests() || config.isSkipTests()) {
             arguments.add("-DskipTests=true");
         } else {
             arguments.add("-Dsurefire.rerunFailingTestsCount=1");
+            arguments.addAll(testArguments);
+        }
+        if (config.getMavenConfig().isSingleBuild()) {
+            // build the same set of artifacts (sources, javadoc) release:perform would build, because they are deployed as is
+            arguments.add("-DperformRelease=true");
         }
-        List<String> cmd = List.of("mvn", "-B", "release:prepare",
-                "-Dresume=true",
-                "-DautoVersionSubmodules=true",
-                "-DreleaseVersion=" + versionTag.version(),
-                "-DpushChanges=false",
-                "-Dtag=" + versionTag.tag(),
-                warpPropertyInQuotes("-Dmaven.repo.local=" + config.getMavenConfig().getLocalRepositoryPath()),
-                warpPropertyInQuotes("-DtagNameFormat=@{project.version}"),
-                warpPropertyInQuotes(String.format("-Darguments=%s", String.join(" ", arguments))),
-                warpPropertyInQuotes("-DpreparationGoals=clean install"));
-
-        ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(repositoryDirPath.toFile());
-        Optional.ofNullable(javaVersion).map(v -> config.getJavaVersionToJavaHomeEnv().get(v))
-                .ifPresent(javaHome -> processBuilder.environment().put("JAVA_HOME", javaHome));
+        List<String> cmd = Stream.of(Stream.of("mvn", "-B", "release:prepare",
+                                "-Dresume=true",
+                                "-DautoVersionSubmodules=true",
+                                "-DreleaseVersion=" + versionTag.version(),
+                                "-DpushChanges=false",
+                                "-Dtag=" + versionTag.tag()),
+                        localRepository.stream().map(this::warpPropertyInQuotes),
+                        Stream.of(warpPropertyInQuotes("-DtagNameFormat=@{project.version}"),
+                                warpPropertyInQuotes(String.format("-Darguments=%s", String.join(" ", arguments))),
+                                warpPropertyInQuotes("-DpreparationGoals=clean install")))
+                .flatMap(s -> s)
+                .toList();
+
+        String javaHome = Optional.ofNullable(javaVersion).map(v -> config.getJavaVersionToJavaHomeEnv().get(v)).orElse(null);
 
         PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(outputStream, UTF_8));
         try {
             printWriter.println(String.format("Repository: %s\nCmd: '%s' started", repositoryInfo.getUrl(), String.join(" ", cmd)));
+            printWriter.flush();
 
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
+            // started once the resource governor, if any, has admitted it, so the duration does not include the wait
+            Process process = config.getMavenConfig().getMavenExecutor().start(repositoryDirPath, cmd, javaHome, Map.of());
+            long started = System.nanoTime();
             process.getInputStream().transferTo(outputStream);
-            process.waitFor();
+            int exitValue = process.waitFor();
+            Duration duration = Duration.ofNanos(System.nanoTime() - started);
             printWriter.println(String.format("Repository: %s\nCmd: '%s' ended with code: %d",
-                    repositoryInfo.getUrl(), String.join(" ", cmd), process.exitValue()));
+                    repositoryInfo.getUrl(), String.join(" ", cmd), exitValue));
 
-            if (process.exitValue() != 0) {
+            if (exitValue != 0) {
                 throw new RuntimeException("Failed to execute cmd");
             }
             List<String> releasePropertiesLines = Files.readString(Paths.get(repositoryDirPath.toString(), "release.properties")).lines().toList();
@@ -407,22 +427,71 @@ public class ReleaseRunner {
             release.setJavaVersion(javaVersion);
             release.setGavs(gavs);
             release.setDevGavs(devGavs);
+            release.setPrepareDuration(duration);
+            if (config.getMavenConfig().isSingleBuild() && config.getMavenConfig().isDeployArtifacts()) {
+                // the installed files are deployed as is, so they are verified against these checksums before
+                Path installedPath = localRepositoryOverlays(config).map(overlays -> overlays.layer(repositoryInfo))
+                        .orElseGet(() -> config.getMavenConfig().resolveLocalRepositoryPath(repositoryDirPath));
+                release.setInstalledChecksums(installedChecksums(installedPath, gavs));
+            }
             return release;
         } finally {
             printWriter.flush();
         }
     }
 
+    Optional<LocalRepositoryOverlays> localRepositoryOverlays(Config config) {
+        if (!config.getMavenConfig().isOverlayLocalRepository()) return Optional.empty();
+        return Optional.of(new LocalRepositoryOverlays(config.getMavenConfig().getLocalRepositoryPath(),
+                Path.of(config.getBaseDir()).resolve(LocalRepositoryOverlays.DIR_NAME)));
+    }
+
+    /**
+     * Makes the artifacts the 'prepare' of a repository has installed visible to the repositories depending on it
+     */
+    void mergeLocalRepositoryLayer(Config config, RepositoryRelease release) {
+        localRepositoryOverlays(config).ifPresent(overlays -> {
+            try {
+                overlays.merge(release.getRepository(), release.getGavs());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to merge local repository layer of: %s".formatted(release.getRepository().getUrl()), e);
+            }
+        });
+    }
+
+    /**
+     * Concurrent maven processes share the same local repository. Let maven (3.9+) guard it with file locks,
+     * so that parallel runs do not corrupt artifacts and maven-metadata files while resolving and deploying.
+     */
+    List<String> localRepositoryLockingArguments(int parallelism) {
+        if (parallelism <= 1) return List.of();
+        return List.of("-Daether.syncContext.named.factory=file-lock", "-Daether.syncContext.named.nameMapper=file-gav");
+    }
+
     String warpPropertyInQuotes(String prop) {
         return String.format("\"%s\"", prop);
     }
 
-    void performRelease(Config config, List<RepositoryRelease> releases, OutputStream outputStream) throws Exception {
+    void performRelease(Config config, ReleaseJournal journal, List<RepositoryRelease> releases, OutputStream outputStream) throws Exception {
         try (outputStream) {
-            pushChanges(config, releases, outputStream);
+            if (releases.stream().allMatch(RepositoryRelease::isPushedToGit)) {
+                log.info("Skipping push for repository '{}', already pushed", releases.getFirst().getRepository().getUrl());
+            } else {
+                pushChanges(config, releases, outputStream);
+                releases.forEach(release -> journal.record(ReleaseJournal.Phase.PUSHED, release));
+            }
             if (config.getMavenConfig().isDeployArtifacts()) {
                 for (RepositoryRelease release : releases) {
-                    releaseDeploy(config, release, outputStream);
+                    if (release.isDeployed()) {
+                        log.info("Skipping deploy for '{}', already deployed", release.getVersionTag().tag());
+                        continue;
+                    }
+                    if (config.getMavenConfig().isSingleBuild()) {
+                        deployPreparedArtifacts(config, release, outputStream);
+                    } else {
+                        releaseDeploy(config, release, outputStream);
+                    }
+                    journal.record(ReleaseJournal.Phase.DEPLOYED, release);
                 }
             } else {
                 log.info("Skipping release-deploy due to maven config: deployArtifacts = false");
@@ -431,7 +500,7 @@ public class ReleaseRunner {
         }
     }
 
-    synchronized void pushChanges(Config config, List<RepositoryRelease> releases, OutputStream outputStream) {
+    void pushChanges(Config config, List<RepositoryRelease> releases, OutputStream outputStream) {
         RepositoryInfo repositoryInfo = releases.getFirst().getRepository();
         Path repositoryDirPath = Paths.get(config.getBaseDir(), repositoryInfo.getDir());
         Set<String> tags = releases.stream().map(RepositoryRelease::getVersionTag).map(VersionTag::tag).collect(Collectors.toSet());
@@ -485,30 +554,26 @@ public class ReleaseRunner {
             if (config.getMavenConfig().getAltDeploymentRepository() != null) {
                 arguments.add("-DaltDeploymentRepository=" + config.getMavenConfig().getAltDeploymentRepository());
             }
+            List<String> localRepositoryLocking = localRepositoryLockingArguments(config.getPerformParallelism());
+            arguments.addAll(localRepositoryLocking);
             String argsString = String.join(" ", arguments);
-            List<String> cmd = Stream.of("mvn", "-B", "release:perform",
-                            "-Dmaven.repo.local=" + config.getMavenConfig().getLocalRepositoryPath(),
-                            "-DlocalCheckout=true",
-                            "-DautoVersionSubmodules=true",
-                            warpPropertyInQuotes(String.format("-Darguments=%s", argsString)))
+            List<String> cmd = Stream.of(Stream.of("mvn", "-B", "release:perform",
+                                    "-Dmaven.repo.local=" + config.getMavenConfig().getLocalRepositoryPath(),
+                                    "-DlocalCheckout=true",
+                                    "-DautoVersionSubmodules=true"),
+                            localRepositoryLocking.stream(),
+                            Stream.of(warpPropertyInQuotes(String.format("-Darguments=%s", argsString))))
+                    .flatMap(s -> s)
                     .collect(Collectors.toList());
             printWriter.println(String.format("Repository: %s\nCmd: '%s' started", repositoryInfo.getUrl(), String.join(" ", cmd)));
 
-            ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(repositoryDirPath.toFile());
-            Optional.ofNullable(release.getJavaVersion()).map(v -> config.getJavaVersionToJavaHomeEnv().get(v))
-                    .ifPresent(javaHome -> processBuilder.environment().put("JAVA_HOME", javaHome));
-            // maven envs
-            if (config.getMavenConfig().getUser() != null && config.getMavenConfig().getPassword() != null) {
-                processBuilder.environment().put("MAVEN_USER", config.getMavenConfig().getUser());
-                processBuilder.environment().put("MAVEN_TOKEN", config.getMavenConfig().getPassword());
-            }
-            Process process = processBuilder.start();
-            process.getInputStream().transferTo(outputStream);
-            process.getErrorStream().transferTo(outputStream);
-            process.waitFor();
+            printWriter.flush();
+            String javaHome = Optional.ofNullable(release.getJavaVersion()).map(v -> config.getJavaVersionToJavaHomeEnv().get(v)).orElse(null);
+            int exitValue = config.getMavenConfig().getMavenExecutor()
+                    .execute(repositoryDirPath, cmd, javaHome, config.getMavenConfig().getEnvironment(), outputStream);
             printWriter.println(String.format("Repository: %s\nCmd: '%s' ended with code: %d",
-                    repositoryInfo.getUrl(), String.join(" ", cmd), process.exitValue()));
-            if (process.exitValue() != 0) {
+                    repositoryInfo.getUrl(), String.join(" ", cmd), exitValue));
+            if (exitValue != 0) {
                 throw new RuntimeException("Failed to execute cmd");
             }
             release.setDeployed(true);
@@ -517,6 +582,221 @@ public class ReleaseRunner {
         }
     }
 
+    /**
+     * Deploys artifacts which release:prepare has already built from the release commit and installed into the local repository.
+     */
+    void deployPreparedArtifacts(Config config, RepositoryRelease release, OutputStream outputStream) throws Exception {
+        RepositoryInfo repositoryInfo = release.getRepository();
+        MavenConfig mavenConfig = config.getMavenConfig();
+        Path repositoryDirPath = Paths.get(config.getBaseDir(), repositoryInfo.getDir(), repositoryInfo.getPomFolder());
+        PrintWriter printWriter = new PrintWriter(new OutputStreamWriter(outputStream, UTF_8));
+        try {
+            String javaHome = Optional.ofNullable(release.getJavaVersion()).map(v -> config.getJavaVersionToJavaHomeEnv().get(v)).orElse(null);
+            for (List<String> cmd : deployFileCommands(config, release)) {
+                printWriter.println(String.format("Repository: %s\nCmd: '%s' started", repositoryInfo.getUrl(), String.join(" ", cmd)));
+                printWriter.flush();
+                int exitValue = mavenConfig.getMavenExecutor()
+                        .execute(repositoryDirPath, cmd, javaHome, mavenConfig.getEnvironment(), outputStream);
+                printWriter.println(String.format("Repository: %s\nCmd: '%s' ended with code: %d",
+                        repositoryInfo.getUrl(), String.join(" ", cmd), exitValue));
+                if (exitValue != 0) {
+                    throw new RuntimeException("Failed to execute cmd");
+                }
+            }
+            release.setDeployed(true);
+        } finally {
+            printWriter.flush();
+        }
+    }
+
+    /**
+     * Before deploying, every installed pom is verified to be byte-identical to the pom committed under the release tag
+     * and every installed file (jar, sources, javadoc, ...) to be the one release:prepare has installed.
+     *
+     * @return a deploy:deploy-file command per released module
+     */
+    List<List<String>> deployFileCommands(Config config, RepositoryRelease release) throws Exception {
+        RepositoryInfo repositoryInfo = release.getRepository();
+        MavenConfig mavenConfig = config.getMavenConfig();
+        Path repositoryRootPath = Paths.get(config.getBaseDir(), repositoryInfo.getDir());
+        Path repositoryDirPath = repositoryRootPath.resolve(repositoryInfo.getPomFolder());
+        // the same local repository deploy-file uses, which runs in the repository's directory
+        Path localRepositoryPath = mavenConfig.resolveLocalRepositoryPath(repositoryDirPath);
+        List<PomHolder> poms = PomHolder.parsePoms(repositoryDirPath);
+        String[] deploymentRepository = resolveDeploymentRepository(mavenConfig, poms, repositoryInfo);
+        verifyInstalledChecksums(release, localRepositoryPath);
+        List<List<String>> commands = new ArrayList<>();
+        try (Git git = Git.open(repositoryRootPath.toFile()); RevWalk revWalk = new RevWalk(git.getRepository())) {
+            String tag = release.getVersionTag().tag();
+            ObjectId tagCommitId = git.getRepository().resolve("refs/tags/%s^{commit}".formatted(tag));
+            if (tagCommitId == null) {
+                throw new IllegalStateException("git tag not found: " + tag);
+            }
+            RevTree tagTree = revWalk.parseCommit(tagCommitId).getTree();
+            for (GAV gav : release.getGavs()) {
+                PomHolder modulePom = poms.stream()
+                        .filter(pom -> Objects.equals(pom.getGroupId(), gav.getGroupId()) && Objects.equals(pom.getArtifactId(), gav.getArtifactId()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalStateException("No pom.xml found for released module: " + gav));
+                String pomPathInTag = repositoryRootPath.relativize(modulePom.getPath()).toString().replace(File.separatorChar, '/');
+                Path artifactDirPath = artifactDirPath(localRepositoryPath, gav);
+                String baseName = "%s-%s".formatted(gav.getArtifactId(), gav.getVersion());
+                Path installedPomPath = artifactDirPath.resolve(baseName + ".pom");
+                if (!Files.exists(installedPomPath)) {
+                    throw new IllegalStateException("Artifact %s was not installed by release:prepare, missing: %s".formatted(gav, installedPomPath));
+                }
+                try (TreeWalk treeWalk = TreeWalk.forPath(git.getRepository(), pomPathInTag, tagTree)) {
+                    if (treeWalk == null) {
+                        throw new IllegalStateException("File %s not found in tag %s".formatted(pomPathInTag, tag));
+                    }
+                    String tagChecksum = sha256(git.getRepository().open(treeWalk.getObjectId(0)).getBytes());
+                    String installedChecksum = sha256(Files.readAllBytes(installedPomPath));
+                    if (!Objects.equals(tagChecksum, installedChecksum)) {
+                        throw new IllegalStateException("""
+                                Installed artifact %s does not match tag %s: %s sha256=%s, %s sha256=%s.
+                                Use release:perform (singleBuild=false) for projects which modify the installed pom""".formatted(
+                                gav, tag, pomPathInTag, tagChecksum, installedPomPath, installedChecksum));
+                    }
+                }
+                Path mainFile = installedPomPath;
+                List<String> files = new ArrayList<>();
+                List<String> classifiers = new ArrayList<>();
+                List<String> types = new ArrayList<>();
+                for (Path artifactFile : installedFiles(artifactDirPath, baseName)) {
+                    if (artifactFile.equals(installedPomPath)) continue;
+                    String suffix = artifactFile.getFileName().toString().substring(baseName.length());
+                    int extensionIndex = suffix.lastIndexOf('.');
+                    if (suffix.startsWith(".")) {
+                        mainFile = artifactFile;
+                    } else if (suffix.startsWith("-") && extensionIndex > 1) {
+                        files.add(artifactFile.toString());
+                        classifiers.add(suffix.substring(1, extensionIndex));
+                        types.add(suffix.substring(extensionIndex + 1));
+                    }
+                }
+                List<String> cmd = new ArrayList<>(List.of("mvn", "-B", "-N", "deploy:deploy-file",
+                        "-Dmaven.repo.local=" + mavenConfig.getLocalRepositoryPath(),
+                        "-DrepositoryId=" + deploymentRepository[0],
+                        "-Durl=" + deploymentRepository[1],
+                        "-DgeneratePom=false",
+                        "-DpomFile=" + installedPomPath,
+                        "-Dfile=" + mainFile));
+                if (!files.isEmpty()) {
+                    cmd.add("-Dfiles=" + String.join(",", files));
+                    cmd.add("-Dclassifiers=" + String.join(",", classifiers));
+                    cmd.add("-Dtypes=" + String.join(",", types));
+                }
+                cmd.addAll(localRepositoryLockingArguments(config.getPerformParallelism()));
+                commands.add(cmd);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Fails if a file of the released modules in the local repository was added, removed or changed since release:prepare
+     * installed it, e.g. by another build installing the same version
+     */
+    void verifyInstalledChecksums(RepositoryRelease release, Path localRepositoryPath) throws IOException {
+        Map<String, String> prepared = release.getInstalledChecksums();
+        if (prepared == null) {
+            throw new IllegalStateException("No checksums of the artifacts installed by release:prepare of %s were recorded, cannot verify them"
+                    .formatted(release.getVersionTag().tag()));
+        }
+        Map<String, String> installed = installedChecksums(localRepositoryPath, release.getGavs());
+        List<String> changed = Stream.concat(prepared.keySet().stream(), installed.keySet().stream())
+                .distinct()
+                .filter(file -> !Objects.equals(prepared.get(file), installed.get(file)))
+                .sorted()
+                .map(file -> "%s: prepared sha256=%s, installed sha256=%s".formatted(file, prepared.get(file), installed.get(file)))
+                .toList();
+        if (!changed.isEmpty()) {
+            throw new IllegalStateException("""
+                    Artifacts of %s in %s differ from the ones installed by release:prepare:
+                    %s""".formatted(release.getVersionTag().tag(), localRepositoryPath, String.join("\n", changed)));
+        }
+    }
+
+    /**
+     * @return sha256 of the files installed for the modules, by their path relative to the local repository
+     */
+    static Map<String, String> installedChecksums(Path localRepositoryPath, Collection<GAV> gavs) throws IOException {
+        Map<String, String> checksums = new TreeMap<>();
+        for (GAV gav : gavs) {
+            Path artifactDirPath = artifactDirPath(localRepositoryPath, gav);
+            if (!Files.isDirectory(artifactDirPath)) continue;
+            for (Path file : installedFiles(artifactDirPath, "%s-%s".formatted(gav.getArtifactId(), gav.getVersion()))) {
+                checksums.put(localRepositoryPath.relativize(file).toString().replace(File.separatorChar, '/'), sha256(file));
+            }
+        }
+        return checksums;
+    }
+
+    static Path artifactDirPath(Path localRepositoryPath, GAV gav) {
+        return localRepositoryPath.resolve(Path.of(gav.getGroupId().replace('.', '/'), gav.getArtifactId(), gav.getVersion()));
+    }
+
+    /**
+     * @return the pom and the artifact files of the module, without checksums, signatures and resolution markers
+     */
+    static List<Path> installedFiles(Path artifactDirPath, String baseName) throws IOException {
+        try (Stream<Path> files = Files.list(artifactDirPath)) {
+            return files
+                    .filter(f -> f.getFileName().toString().startsWith(baseName))
+                    .filter(f -> Stream.of(".sha1", ".md5", ".sha256", ".sha512", ".asc", ".lastUpdated")
+                            .noneMatch(ext -> f.getFileName().toString().endsWith(ext)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * @return [id, url] of the repository to deploy to, taken from altDeploymentRepository ('id::url' or 'id::layout::url')
+     * or from the distributionManagement section of the repository's poms
+     */
+    String[] resolveDeploymentRepository(MavenConfig mavenConfig, List<PomHolder> poms, RepositoryInfo repositoryInfo) {
+        String altDeploymentRepository = mavenConfig.getAltDeploymentRepository();
+        if (altDeploymentRepository != null && !altDeploymentRepository.isBlank()) {
+            String[] parts = altDeploymentRepository.split("::");
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Invalid altDeploymentRepository: %s, must be in format 'id::url'".formatted(altDeploymentRepository));
+            }
+            return new String[]{parts[0], parts[parts.length - 1]};
+        }
+        return poms.stream()
+                .flatMap(pom -> Stream.concat(Stream.of(pom), pom.getParentsFlatList().stream())
+                        .map(PomHolder::getModel)
+                        .map(Model::getDistributionManagement)
+                        .filter(Objects::nonNull)
+                        .map(DistributionManagement::getRepository)
+                        .filter(r -> r != null && r.getId() != null && r.getUrl() != null)
+                        .map(r -> new String[]{pom.autoResolvePropReference(r.getId()), pom.autoResolvePropReference(r.getUrl())}))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(("No distributionManagement repository found in poms of repository: %s. " +
+                                                              "Specify altDeploymentRepository to deploy artifacts in single build mode").formatted(repositoryInfo.getUrl())));
+    }
+
+    static String sha256(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String sha256(Path file) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     String generateDotFile(Map<Integer, List<RepositoryInfo>> dependencyGraph) {
         Graph<String, StringEdge> graph = new SimpleDirectedGraph<>(StringEdge.class);
         List<RepositoryInfo> repositoryInfoList = dependencyGraph.values().stream().flatMap(Collection::stream).toList();
@@ -526,26 +806,16 @@ public class ReleaseRunner {
         RepositoryInfoLinker linker = new RepositoryInfoLinker(repositoryInfoList);
         for (RepositoryInfo repositoryInfo : repositoryInfoList) {
             linker.getRepositoriesUsedByThis(repositoryInfo)
-                    .stream()
-                    .filter(ri -> dependencyGraph.values().stream()
-                            .flatMap(Collection::stream).anyMatch(ri2 -> Objects.equals(ri2.getUrl(), ri.getUrl())))
                     .forEach(ri -> graph.addEdge(ri.graphEdge(), repositoryInfo.graphEdge()));
         }
-        Function<String, String> vertexIdProvider = vertex -> {
-            int level = dependencyGraph.entrySet().stream()
-                    .filter(e -> e.getValue().stream().anyMatch(ri -> Objects.equals(ri.graphEdge(), vertex)))
-                    .mapToInt(Map.Entry::getKey).findFirst()
-                    .orElseThrow(() -> new IllegalStateException(String.format("Failed to find level for vertex: %s", vertex)));
-            List<RepositoryInfo> repositoryInfos = dependencyGraph.get(level);
-            int index = IntStream.range(0, repositoryInfos.size())
-                    .boxed()
-                    .filter(i -> repositoryInfos.get(i).graphEdge().equals(vertex))
-                    .mapToInt(i -> i)
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalStateException(String.format("Failed to find index for vertex: %s", vertex)));
+        Map<String, String> vertexIds = new HashMap<>();
+        dependencyGraph.forEach((level, repositoryInfos) -> IntStream.range(0, repositoryInfos.size()).forEach(index -> {
+            String vertex = repositoryInfos.get(index).graphEdge();
             String id = vertex.contains("/") ? Optional.of(vertex.split("/")).map(v -> v[v.length - 1]).get() : vertex;
-            return String.format("\"%d.%d %s\"", level + 1, index + 1, id);
-        };
+            vertexIds.putIfAbsent(vertex, String.format("\"%d.%d %s\"", level + 1, index + 1, id));
+        }));
+        Function<String, String> vertexIdProvider = vertex -> Optional.ofNullable(vertexIds.get(vertex))
+                .orElseThrow(() -> new IllegalStateException(String.format("Failed to find level for vertex: %s", vertex)));
         DOTExporter<String, StringEdge> exporter = new DOTExporter<>(vertexIdProvider);
         try (ByteArrayOutputStream stream = new ByteArrayOutputStream()) {
             exporter.exportGraph(graph, stream);
@@ -14,12 +14,9 @@ import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RemoteRefUpdate;
-import org.jgrapht.Graph;
-import org.jgrapht.graph.SimpleDirectedGraph;
 import org.qubership.cloud.actions.maven.model.*;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -33,7 +30,6 @@ import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -41,9 +37,22 @@ import java.util.stream.StreamSupport;
 public class RepositoryService {
 
     GitService gitService;
+    ReleasePreflight preflight;
+    // runs the effective pom fallback of the checked out repositories, null for an ungoverned FORK
+    MavenConfig mavenConfig;
 
     public RepositoryService(GitService gitService) {
+        this(gitService, (MavenConfig) null);
+    }
+
+    public RepositoryService(GitService gitService, MavenConfig mavenConfig) {
+        this(gitService, new ReleasePreflight(gitService), mavenConfig);
+    }
+
+    RepositoryService(GitService gitService, ReleasePreflight preflight, MavenConfig mavenConfig) {
         this.gitService = gitService;
+        this.preflight = preflight;
+        this.mavenConfig = mavenConfig;
     }
 
     enum DependencyType {
@@ -57,6 +66,18 @@ public class RepositoryService {
                                                                    GitConfig gitConfig,
                                                                    Collection<RepositoryConfig> repositories,
                                                                    Set<RepositoryConfig> repositoriesToReleaseFrom) {
+        return buildDependencyGraph(baseDir, gitConfig, repositories, repositoriesToReleaseFrom, false);
+    }
+
+    /**
+     * @param skipUnchanged if true, the repositories unchanged since their latest release are found before the checkout,
+     *                      the reusable ones are not checked out and are collected by the preflight
+     */
+    public Map<Integer, List<RepositoryInfo>> buildDependencyGraph(String baseDir,
+                                                                   GitConfig gitConfig,
+                                                                   Collection<RepositoryConfig> repositories,
+                                                                   Set<RepositoryConfig> repositoriesToReleaseFrom,
+                                                                   boolean skipUnchanged) {
         log.info("Building dependency graph");
         BiFunction<Collection<RepositoryConfig>, Collection<RepositoryConfig>, List<RepositoryConfig>> mergeFunction =
                 (repos1, repos2) -> repos1.stream()
@@ -78,84 +99,27 @@ public class RepositoryService {
         List<RepositoryConfig> mergedRepositories = mergeFunction.apply(repositories, repositoriesToReleaseFrom);
         List<RepositoryConfig> mergedRepositoriesToReleaseFrom = mergeFunction.apply(repositoriesToReleaseFrom, repositories);
         try (ExecutorService executorService = Executors.newFixedThreadPool(gitConfig.getCheckoutParallelism())) {
-            List<RepositoryInfo> repositoryInfoList = mergedRepositories.stream()
-                    .map(rc -> {
-                        try {
-                            PipedOutputStream out = new PipedOutputStream();
-                            PipedInputStream pipedInputStream = new PipedInputStream(out, 16384);
-                            Future<RepositoryInfo> future = executorService.submit(() ->
-                                    createRepositoryInfo(baseDir, rc, out));
-                            return new TraceableFuture<>(future, pipedInputStream, rc);
-                        } catch (IOException e) {
-                            throw new IllegalStateException(e);
-                        }
-                    }).toList()
-                    .stream()
-                    .map(future -> {
-                        try (PipedInputStream pipedInputStream = future.getPipedInputStream();
-                             BufferedReader reader = new BufferedReader(new InputStreamReader(pipedInputStream, StandardCharsets.UTF_8))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                log.info(line);
-                            }
-                            return future.getFuture().get();
-                        } catch (Exception e) {
-                            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                            throw new RuntimeException(e);
-                        }
-                    }).toList();
+            List<RepositoryInfo> repositoryInfoList = mergedRepositoriesToReleaseFrom.isEmpty() && !skipUnchanged
+                    ? createRepositoryInfos(executorService, baseDir, mergedRepositories)
+                    : createAffectedRepositoryInfos(executorService, baseDir, mergedRepositories, mergedRepositoriesToReleaseFrom,
+                    skipUnchanged, gitConfig.getCheckoutParallelism());
             // set repository dependencies
             RepositoryInfoLinker repositoryInfoLinker = new RepositoryInfoLinker(repositoryInfoList);
 
             // filter repositories which are not affected by 'released from' repositories
-            List<RepositoryInfo> repositoryInfos = mergedRepositoriesToReleaseFrom.isEmpty() ? repositoryInfoList :
-                    repositoryInfoList.stream()
-                    .filter(ri ->
-                            // accept from repositories
-                            mergedRepositoriesToReleaseFrom.stream()
-                            .anyMatch(riFrom -> Objects.equals(riFrom.getUrl(), ri.getUrl()) &&
-                                    Objects.equals(riFrom.getPomFolder(), ri.getPomFolder())) ||
-                            // accept repositories which use one of from repositories
-                                    mergedRepositoriesToReleaseFrom.stream()
-                                    .anyMatch(riFrom -> repositoryInfoLinker.getRepositoriesUsedByThisFlatSet(ri).stream()
-                                                        .anyMatch(riUsedBy -> Objects.equals(riUsedBy.getUrl(), riFrom.getUrl()) &&
-                                                                Objects.equals(riUsedBy.getPomFolder(), riFrom.getPomFolder()))))
-                    .toList();
-
-            Graph<String, StringEdge> graph = new SimpleDirectedGraph<>(StringEdge.class);
-
-            for (RepositoryInfo ri : repositoryInfos) {
-                graph.addVertex(ri.graphEdge());
-            }
-            for (RepositoryInfo repositoryInfo : repositoryInfos) {
-                repositoryInfoLinker.getRepositoriesUsedByThisFlatSet(repositoryInfo)
-                        .stream()
-                        .filter(ri -> repositoryInfos.stream().anyMatch(riFrom ->
-                                Objects.equals(riFrom.getUrl(), ri.getUrl()) &&
-                                        Objects.equals(riFrom.getPomFolder(), ri.getPomFolder())))
-                        .forEach(ri -> graph.addEdge(ri.graphEdge(), repositoryInfo.graphEdge()));
-            }
-            List<RepositoryInfo> independentRepos = repositoryInfos.stream()
-                    .filter(ri -> graph.incomingEdgesOf(ri.graphEdge()).isEmpty()).toList();
-            List<RepositoryInfo> dependentRepos = repositoryInfos.stream()
-                    .filter(ri -> !graph.incomingEdgesOf(ri.graphEdge()).isEmpty()).collect(Collectors.toList());
-            Map<Integer, List<RepositoryInfo>> groupedReposMap = new TreeMap<>();
-            groupedReposMap.put(0, independentRepos);
-            int level = 1;
-            while (!dependentRepos.isEmpty()) {
-                List<RepositoryInfo> prevLevelRepos = IntStream.range(0, level).boxed().flatMap(lvl -> groupedReposMap.get(lvl).stream()).toList();
-                List<RepositoryInfo> thisLevelRepos = dependentRepos.stream()
-                        .filter(ri -> graph.incomingEdgesOf(ri.graphEdge()).stream().map(StringEdge::getSource)
-                                .allMatch(dependentRepoUrl -> {
-                                    RepositoryInfo.UrlAndPomFolder urlAndPomFolder = RepositoryInfo.fromGraphEdge(dependentRepoUrl);
-                                    return prevLevelRepos.stream().anyMatch(riPrev -> Objects.equals(urlAndPomFolder.url(), riPrev.getUrl()) &&
-                                            Objects.equals(urlAndPomFolder.pomFolder(), riPrev.getPomFolder()));
-                                })).toList();
-                groupedReposMap.put(level, thisLevelRepos);
-                dependentRepos.removeAll(thisLevelRepos);
-                level++;
+            List<RepositoryInfo> repositoryInfos;
+            if (mergedRepositoriesToReleaseFrom.isEmpty()) {
+                repositoryInfos = repositoryInfoList;
+            } else {
+                // accept from repositories and repositories which use one of them
+                Set<RepositoryInfo> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+                repositoryInfoLinker.find(mergedRepositoriesToReleaseFrom).forEach(riFrom -> {
+                    affected.add(riFrom);
+                    affected.addAll(repositoryInfoLinker.getRepositoriesUsingThisFlatSet(riFrom));
+                });
+                repositoryInfos = repositoryInfoList.stream().filter(affected::contains).toList();
             }
-            return groupedReposMap;
+            return repositoryInfoLinker.levels(repositoryInfos);
         }
     }
 
@@ -169,69 +133,106 @@ public class RepositoryService {
                                                                             OutputStream out) {
         log.info("Building versioned dependency graph");
 
-        try (ExecutorService executorService = Executors.newFixedThreadPool(4)) {
-            List<RepositoryInfo> repositoryInfoList = repositories.stream()
-                    .map(rc -> {
-                        try {
-                            PipedOutputStream o = new PipedOutputStream();
-                            PipedInputStream pipedInputStream = new PipedInputStream(o, 16384);
-                            Future<RepositoryInfo> future = executorService.submit(() ->
-                                    createRepositoryInfo(baseDir, rc, o));
-                            return new TraceableFuture<>(future, pipedInputStream, rc);
-                        } catch (IOException e) {
-                            throw new IllegalStateException(e);
-                        }
-                    }).toList()
-                    .stream()
-                    .map(future -> {
-                        try (PipedInputStream pipedInputStream = future.getPipedInputStream();
-                             BufferedReader reader = new BufferedReader(new InputStreamReader(pipedInputStream, StandardCharsets.UTF_8))) {
-                            String line;
-                            while ((line = reader.readLine()) != null) {
-                                log.info(line);
-                            }
-                            return future.getFuture().get();
-                        } catch (Exception e) {
-                            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
-                            throw new RuntimeException(e);
-                        }
-                    }).toList();
+        try (ExecutorService executorService = Executors.newFixedThreadPool(mavenConfig.parallelism(4))) {
+            List<RepositoryInfo> repositoryInfoList = createRepositoryInfos(executorService, baseDir, repositories);
             // find support branches for all repositories starting from the versioned repository
             List<RepositoryInfo> resolvedSupportRepositories = resolveSupportBranches(repositoryInfoList,
                     baseDir, gitConfig, mavenConfig, createMissingBranches, validateSameVersionUpToLevel,
                     skipValidationForGAPatterns, extraBranchSuffix, out);
 
-            Graph<String, StringEdge> graph = new SimpleDirectedGraph<>(StringEdge.class);
+            return new RepositoryInfoLinker(resolvedSupportRepositories).levels(resolvedSupportRepositories);
+        }
+    }
 
-            for (RepositoryInfo repositoryInfo : resolvedSupportRepositories) {
-                graph.addVertex(repositoryInfo.getUrl());
-            }
-            RepositoryInfoLinker repositoryInfoLinker = new RepositoryInfoLinker(resolvedSupportRepositories);
-            for (RepositoryInfo repositoryInfo : resolvedSupportRepositories) {
-                repositoryInfoLinker.getRepositoriesUsedByThisFlatSet(repositoryInfo)
-                        .stream()
-                        .filter(ri -> resolvedSupportRepositories.stream().anyMatch(riFrom -> Objects.equals(riFrom.getUrl(), ri.getUrl())))
-                        .forEach(ri -> graph.addEdge(ri.getUrl(), repositoryInfo.getUrl()));
-            }
-            List<RepositoryInfo> independentRepos = resolvedSupportRepositories.stream()
-                    .filter(ri -> graph.incomingEdgesOf(ri.getUrl()).isEmpty()).toList();
-            List<RepositoryInfo> dependentRepos = resolvedSupportRepositories.stream()
-                    .filter(ri -> !graph.incomingEdgesOf(ri.getUrl()).isEmpty()).collect(Collectors.toList());
-            Map<Integer, List<RepositoryInfo>> groupedReposMap = new TreeMap<>();
-            groupedReposMap.put(0, independentRepos);
-            int level = 1;
-            while (!dependentRepos.isEmpty()) {
-                List<RepositoryInfo> prevLevelRepos = IntStream.range(0, level).boxed().flatMap(lvl -> groupedReposMap.get(lvl).stream()).toList();
-                List<RepositoryInfo> thisLevelRepos = dependentRepos.stream()
-                        .filter(ri -> graph.incomingEdgesOf(ri.getUrl()).stream().map(StringEdge::getSource)
-                                .allMatch(dependentRepoUrl -> prevLevelRepos.stream().map(RepositoryInfo::getUrl)
-                                        .collect(Collectors.toSet()).contains(dependentRepoUrl))).toList();
-                groupedReposMap.put(level, thisLevelRepos);
-                dependentRepos.removeAll(thisLevelRepos);
-                level++;
-            }
-            return groupedReposMap;
+    List<RepositoryInfo> createRepositoryInfos(ExecutorService executorService, String baseDir, Collection<? extends RepositoryConfig> repositories) {
+        // every checkout writes its output straight to the log, so no checkout waits for another one to be drained
+        List<Future<RepositoryInfo>> futures = repositories.stream()
+                .map(rc -> executorService.submit(() -> createRepositoryInfo(baseDir, rc, LogMultiplexer.lines(log::info))))
+                .toList();
+        return await(futures);
+    }
+
+    /**
+     * Checks out only the repositories affected by a partial release: the ones released from and all repositories using
+     * them. Every other repository is linked from the dependency graph cache, if its entry was resolved from the commit
+     * its remote branch points to now, or resolved from a checkout of its poms only otherwise. The full tree is checked out
+     * only once a repository turns out to be affected. The refs of each remote are listed once and reused by the preflight
+     * checks of the release. With skipUnchanged, all repositories are affected by a release from none, every repository
+     * is linked first, and the affected ones reusable since their latest release are not checked out at all.
+     */
+    List<RepositoryInfo> createAffectedRepositoryInfos(ExecutorService executorService, String baseDir,
+                                                       Collection<RepositoryConfig> repositories,
+                                                       Collection<RepositoryConfig> repositoriesToReleaseFrom) {
+        return createAffectedRepositoryInfos(executorService, baseDir, repositories, repositoriesToReleaseFrom, false, 1);
+    }
+
+    List<RepositoryInfo> createAffectedRepositoryInfos(ExecutorService executorService, String baseDir,
+                                                       Collection<RepositoryConfig> repositories,
+                                                       Collection<RepositoryConfig> repositoriesToReleaseFrom,
+                                                       boolean skipUnchanged, int preflightParallelism) {
+        DependencyGraphCache graphCache = DependencyGraphCache.forDirectory(Path.of(baseDir, DependencyGraphCache.DIR_NAME));
+        Set<String> releasedFrom = repositoriesToReleaseFrom.stream()
+                .map(RepositoryConfig::key)
+                .collect(Collectors.toSet());
+        // repositories linked from the cache or resolved from their poms only, which need a full checkout if affected
+        Map<RepositoryInfo, RepositoryConfig> partial = Collections.synchronizedMap(new IdentityHashMap<>());
+        List<Future<RepositoryInfo>> futures = repositories.stream()
+                .map(rc -> executorService.submit(() -> {
+                    if (skipUnchanged || !releasedFrom.contains(rc.key())) {
+                        Optional<DependencyGraphCache.Entry> entry = preflight.remoteHead(rc)
+                                .flatMap(commit -> graphCache.get(rc.getUrl(), rc.getPomFolder(), commit));
+                        RepositoryInfo repositoryInfo = entry.isPresent()
+                                ? RepositoryInfo.fromCache(rc, baseDir, entry.get())
+                                : createPomsOnlyRepositoryInfo(baseDir, rc, LogMultiplexer.lines(log::info));
+                        partial.put(repositoryInfo, rc);
+                        return repositoryInfo;
+                    }
+                    return createRepositoryInfo(baseDir, rc, LogMultiplexer.lines(log::info));
+                }))
+                .toList();
+        List<RepositoryInfo> repositoryInfoList = await(futures);
+        RepositoryInfoLinker linker = new RepositoryInfoLinker(repositoryInfoList);
+        Set<RepositoryInfo> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (repositoriesToReleaseFrom.isEmpty()) affected.addAll(repositoryInfoList);
+        linker.find(repositoriesToReleaseFrom).forEach(riFrom -> {
+            affected.add(riFrom);
+            affected.addAll(linker.getRepositoriesUsingThisFlatSet(riFrom));
+        });
+        if (skipUnchanged) {
+            List<RepositoryInfo> candidates = repositoryInfoList.stream().filter(affected::contains).toList();
+            // a dependency may be switched to the current version of the modules of any repository
+            Map<GA, String> devVersions = new HashMap<>();
+            repositoryInfoList.forEach(ri -> ri.getModules().forEach(gav -> devVersions.putIfAbsent(gav.toGA(), gav.getVersion())));
+            // the repositories which are not affected are not released, so they are no upstreams to be released
+            preflight.reusable.putAll(ReleasePreflight.reusable(preflight.unchanged(candidates, devVersions, preflightParallelism),
+                    ri -> linker.getRepositoriesUsedByThisFlatSet(ri).stream().filter(affected::contains).collect(Collectors.toSet())));
         }
+        List<RepositoryInfo> affectedPartial = repositoryInfoList.stream()
+                .filter(affected::contains)
+                .filter(partial::containsKey)
+                .filter(ri -> !preflight.reusable.containsKey(ri))
+                .toList();
+        log.info("{} of {} repositories are affected by the release, {} of them are fully checked out now",
+                affected.size(), repositoryInfoList.size(), affectedPartial.size());
+        Map<RepositoryInfo, Future<RepositoryInfo>> checkouts = new IdentityHashMap<>();
+        affectedPartial.forEach(ri -> checkouts.put(ri, executorService.submit(() ->
+                createRepositoryInfo(baseDir, partial.get(ri), LogMultiplexer.lines(log::info)))));
+        return repositoryInfoList.stream()
+                .filter(affected::contains)
+                .map(ri -> checkouts.containsKey(ri) ? await(List.of(checkouts.get(ri))).getFirst() : ri)
+                .toList();
+    }
+
+    static <T> List<T> await(List<Future<T>> futures) {
+        return futures.stream()
+                .map(future -> {
+                    try {
+                        return future.get();
+                    } catch (Exception e) {
+                        if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    }
+                }).toList();
     }
 
     List<RepositoryInfo> resolveSupportBranches(Collection<RepositoryInfo> repositories,
@@ -784,19 +785,11 @@ public class RepositoryService {
         log.info("Repository: {}, folder: {}\nCmd: '{}' started",
                 repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), String.join(" ", cmd));
 
-        ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(repositoryDirPath.toFile());
-        // maven envs
-        if (mavenConfig.getUser() != null && mavenConfig.getPassword() != null) {
-            processBuilder.environment().put("MAVEN_USER", mavenConfig.getUser());
-            processBuilder.environment().put("MAVEN_TOKEN", mavenConfig.getPassword());
-        }
-        Process process = processBuilder.start();
-        process.getInputStream().transferTo(outputStream);
-        process.getErrorStream().transferTo(outputStream);
-        process.waitFor();
+        int exitValue = mavenConfig.getMavenExecutor()
+                .execute(repositoryDirPath, cmd, null, mavenConfig.getEnvironment(), outputStream);
         log.info("Repository: {}, folder: {}\nCmd: '{}' ended with code: {}",
-                repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), String.join(" ", cmd), process.exitValue());
-        if (process.exitValue() != 0) {
+                repositoryInfo.getUrl(), repositoryInfo.getPomFolder(), String.join(" ", cmd), exitValue);
+        if (exitValue != 0) {
             throw new RuntimeException("Failed to execute cmd");
         }
     }
@@ -825,6 +818,11 @@ public class RepositoryService {
 
     RepositoryInfo createRepositoryInfo(String baseDir, RepositoryConfig repositoryConfig, OutputStream out) {
         gitService.gitCheckout(baseDir, repositoryConfig, out);
-        return new RepositoryInfo(repositoryConfig, baseDir);
+        return new RepositoryInfo(repositoryConfig, baseDir, mavenConfig);
+    }
+
+    RepositoryInfo createPomsOnlyRepositoryInfo(String baseDir, RepositoryConfig repositoryConfig, OutputStream out) {
+        gitService.gitCheckoutPoms(baseDir, repositoryConfig, out);
+        return new RepositoryInfo(repositoryConfig, baseDir, mavenConfig);
     }
 }
@@ -0,0 +1,203 @@
+package org.qubership.cloud.actions.maven;
+
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.qubership.cloud.actions.maven.model.GA;
+import org.qubership.cloud.actions.maven.model.GAV;
+import org.qubership.cloud.actions.maven.model.PomHolder;
+import org.qubership.cloud.actions.maven.model.Reactor;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Selects the tests of a repository's 'prepare' by the impact of its changes since the latest release. A module is
+ * impacted if a file under it has changed (a pom only if not just in versions), if it depends on a GA whose version has
+ * changed in one of the poms, or if it depends on or inherits from an impacted module. All modules are still built and
+ * installed, the test classes of the other modules are excluded by a surefire and failsafe exclusion file.
+ */
+@Slf4j
+class TestImpact {
+
+    static final String DIR_NAME = ".test-selection";
+    static final String TEST_SOURCES_DIR = "src/test/java";
+
+    /**
+     * @param dir path relative to the root of the git repository, '' for a module at the root
+     */
+    record Module(GA ga, String dir, Set<GA> parents, Set<GA> dependencies) {
+    }
+
+    /**
+     * @param before the content of a pom before the change, null if it is not a pom or was added
+     * @param after  the content of a pom after the change, null if it is not a pom or was deleted
+     */
+    record Change(String path, String before, String after) {
+    }
+
+    final ReleasePreflight preflight;
+    final Path selectionDir;
+
+    TestImpact(ReleasePreflight preflight, Path selectionDir) {
+        this.preflight = preflight;
+        this.selectionDir = selectionDir;
+    }
+
+    /**
+     * @return maven arguments which exclude the tests of the modules not impacted since the latest release, no arguments
+     * to run all tests, i.e. if there is no release yet or the changes cannot be resolved
+     */
+    List<String> arguments(RepositoryInfo repository) {
+        Path repositoryDirPath = Path.of(repository.getBaseDir(), repository.getDir()).toAbsolutePath().normalize();
+        try (Git git = Git.open(repositoryDirPath.toFile())) {
+            Optional<ReleasePreflight.LatestRelease> latestRelease = preflight.latestRelease(repository, git);
+            if (latestRelease.isEmpty()) {
+                log.info("Running all tests of '{}' [pom:{}], there is no release to compare with", repository.getUrl(), repository.getPomFolder());
+                return List.of();
+            }
+            List<Module> modules = modules(repository, repositoryDirPath);
+            Set<GA> impacted = impacted(modules, changes(git.getRepository(), latestRelease.get().commit(), repository.getPomFolder()));
+            String tag = latestRelease.get().versionTag().tag();
+            if (impacted.isEmpty()) {
+                log.info("Skipping tests of '{}' [pom:{}], no module is impacted since release {}", repository.getUrl(), repository.getPomFolder(), tag);
+                return List.of("-DskipTests=true");
+            }
+            List<String> exclusions = exclusions(repositoryDirPath, modules, impacted);
+            if (impacted.size() == modules.size() || exclusions.isEmpty()) {
+                log.info("Running all tests of '{}' [pom:{}], all modules with tests are impacted since release {}",
+                        repository.getUrl(), repository.getPomFolder(), tag);
+                return List.of();
+            }
+            log.info("Running tests of {}/{} modules of '{}' [pom:{}] impacted since release {}:\n{}", impacted.size(), modules.size(),
+                    repository.getUrl(), repository.getPomFolder(), tag,
+                    String.join("\n", impacted.stream().map(GA::toString).sorted().toList()));
+            Files.createDirectories(selectionDir);
+            String name = repository.getPomFolder().isBlank() ? repository.getDir() : repository.getDir() + "/" + repository.getPomFolder();
+            Path exclusionsPath = selectionDir.resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".txt").toAbsolutePath();
+            Files.write(exclusionsPath, exclusions);
+            return List.of("-Dsurefire.excludesFile=" + exclusionsPath, "-Dfailsafe.excludesFile=" + exclusionsPath);
+        } catch (Exception e) {
+            log.warn("Running all tests of '{}' [pom:{}], failed to resolve the modules impacted since its latest release. Error: {}",
+                    repository.getUrl(), repository.getPomFolder(), e.getMessage());
+            return List.of();
+        }
+    }
+
+    static List<Module> modules(RepositoryInfo repository, Path repositoryDirPath) {
+        // refreshes the dependencies of the modules if the poms have changed since they were resolved
+        Reactor reactor = repository.reactor();
+        Map<GA, Set<GAV>> perModuleDependencies = repository.getPerModuleDependencies();
+        return reactor.getPoms().stream()
+                .map(pom -> {
+                    GA ga = new GA(pom.getGroupId(), pom.getArtifactId());
+                    Path dir = repositoryDirPath.relativize(pom.getPath().toAbsolutePath().normalize().getParent());
+                    Set<GA> parents = pom.getParentsFlatList().stream().map(parent -> new GA(parent.getGroupId(), parent.getArtifactId()))
+                            .collect(Collectors.toSet());
+                    Set<GA> dependencies = perModuleDependencies.getOrDefault(ga, Set.of()).stream().map(GAV::toGA).collect(Collectors.toSet());
+                    return new Module(ga, dir.toString().replace('\\', '/'), parents, dependencies);
+                })
+                .toList();
+    }
+
+    static List<Change> changes(Repository rep, ObjectId release, String pomFolder) throws Exception {
+        List<Change> changes = new ArrayList<>();
+        try (RevWalk revWalk = new RevWalk(rep); TreeWalk treeWalk = new TreeWalk(rep)) {
+            treeWalk.addTree(revWalk.parseCommit(release).getTree());
+            treeWalk.addTree(revWalk.parseCommit(rep.resolve(Constants.HEAD)).getTree());
+            treeWalk.setRecursive(true);
+            treeWalk.setFilter(pomFolder.isBlank() ? TreeFilter.ANY_DIFF
+                    : AndTreeFilter.create(PathFilter.create(pomFolder), TreeFilter.ANY_DIFF));
+            while (treeWalk.next()) {
+                String before = null;
+                String after = null;
+                if (GitService.isPom(treeWalk.getNameString())) {
+                    before = content(rep, treeWalk.getObjectId(0));
+                    after = content(rep, treeWalk.getObjectId(1));
+                }
+                changes.add(new Change(treeWalk.getPathString(), before, after));
+            }
+        }
+        return changes;
+    }
+
+    static String content(Repository rep, ObjectId blob) throws IOException {
+        return blob.equals(ObjectId.zeroId()) ? null : new String(rep.open(blob).getBytes(), UTF_8);
+    }
+
+    static Set<GA> impacted(List<Module> modules, List<Change> changes) {
+        Set<GA> own = modules.stream().map(Module::ga).collect(Collectors.toSet());
+        Set<GA> impacted = new HashSet<>();
+        Set<GA> changedVersions = new HashSet<>();
+        for (Change change : changes) {
+            Optional<Module> owner = modules.stream().filter(module -> contains(module.dir(), change.path()))
+                    .max(Comparator.comparingInt(module -> module.dir().length()));
+            if (owner.isEmpty()) {
+                // outside all modules, e.g. a file next to an aggregator pom in a sub folder
+                return own;
+            }
+            if (change.before() != null && change.after() != null) {
+                Set<GA> changed = PomHolder.changedVersions(change.before(), change.after());
+                if (PomHolder.sameIgnoringVersions(change.before(), change.after(), changed)) {
+                    // the versions of the modules themselves change with every release
+                    changed.stream().filter(ga -> !own.contains(ga)).forEach(changedVersions::add);
+                    continue;
+                }
+            }
+            // a file of an aggregator, like .mvn/jvm.config or lombok.config, may be used by every module below it
+            modules.stream().filter(module -> contains(owner.get().dir(), module.dir())).forEach(module -> impacted.add(module.ga()));
+        }
+        modules.stream().filter(module -> !Collections.disjoint(module.dependencies(), changedVersions)).forEach(module -> impacted.add(module.ga()));
+        boolean added = true;
+        while (added) {
+            added = false;
+            for (Module module : modules) {
+                if (!impacted.contains(module.ga())
+                    && (!Collections.disjoint(module.parents(), impacted) || !Collections.disjoint(module.dependencies(), impacted))) {
+                    impacted.add(module.ga());
+                    added = true;
+                }
+            }
+        }
+        return impacted;
+    }
+
+    static boolean contains(String dir, String path) {
+        return dir.isEmpty() || path.equals(dir) || path.startsWith(dir + "/");
+    }
+
+    /**
+     * @return surefire exclusion patterns for the test sources of the modules which are not impacted, except the ones
+     * with the same name as a test source of an impacted module
+     */
+    static List<String> exclusions(Path repositoryDirPath, List<Module> modules, Set<GA> impacted) throws IOException {
+        Set<String> excluded = new TreeSet<>();
+        Set<String> included = new HashSet<>();
+        for (Module module : modules) {
+            Path testSourcesPath = repositoryDirPath.resolve(module.dir()).resolve(TEST_SOURCES_DIR);
+            if (!Files.isDirectory(testSourcesPath)) continue;
+            try (Stream<Path> files = Files.walk(testSourcesPath)) {
+                List<String> sources = files.filter(file -> file.getFileName().toString().endsWith(".java"))
+                        .map(file -> testSourcesPath.relativize(file).toString().replace('\\', '/'))
+                        .toList();
+                (impacted.contains(module.ga()) ? included : excluded).addAll(sources);
+            }
+        }
+        excluded.removeAll(included);
+        return List.copyOf(excluded);
+    }
+}
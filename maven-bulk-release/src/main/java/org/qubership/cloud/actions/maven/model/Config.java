@@ -25,7 +25,14 @@ public class Config {
     boolean dryRun;
     boolean switchInterModuleDepsToSnapshot;
     boolean logsToConsole;
+    // skip phases already completed according to the release journal of the previous run
+    boolean resume;
+    // reuse the latest release of repositories without changes since it, unless a repository they depend on is released
+    boolean skipUnchanged;
+    // run only the tests of the modules impacted by the changes since the latest release
+    boolean selectiveTests;
     int runParallelism;
+    int performParallelism;
     @JsonIgnore
     OutputStream summaryOutputStream;
 
@@ -42,7 +49,11 @@ public class Config {
                    boolean dryRun,
                    boolean switchInterModuleDepsToSnapshot,
                    boolean logsToConsole,
+                   boolean resume,
+                   boolean skipUnchanged,
+                   boolean selectiveTests,
                    int runParallelism,
+                   int performParallelism,
                    OutputStream summaryOutputStream) {
         this.baseDir = baseDir;
         this.gitConfig = gitConfig;
@@ -55,7 +66,11 @@ public class Config {
         this.dryRun = dryRun;
         this.switchInterModuleDepsToSnapshot = switchInterModuleDepsToSnapshot;
         this.logsToConsole = logsToConsole;
+        this.resume = resume;
+        this.skipUnchanged = skipUnchanged;
+        this.selectiveTests = selectiveTests;
         this.runParallelism = runParallelism <= 0 ? 1 : runParallelism;
+        this.performParallelism = performParallelism <= 0 ? 1 : performParallelism;
         this.versionIncrementType = versionIncrementType;
         this.summaryOutputStream = summaryOutputStream;
     }
@@ -0,0 +1,62 @@
+package org.qubership.cloud.actions.maven.model;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes maven command lines to warm maven daemons through the 'mvnd' client, so that JVM startup and plugin class
+ * loading are paid once per daemon instead of once per call. mvnd only reuses a daemon started with the same java home
+ * and starts another one while all of them are busy, so each JAVA_HOME gets its own pool sized by the parallelism of the
+ * release. If 'mvnd' cannot be started, this and all the following command lines are run by the fallback executor.
+ */
+@Slf4j
+public class DaemonMavenExecutor implements MavenExecutor {
+
+    static final DaemonMavenExecutor INSTANCE = new DaemonMavenExecutor("mvnd", ForkedMavenExecutor.INSTANCE);
+
+    final String executable;
+    final MavenExecutor fallback;
+    // java homes of the pools used by this run, "" for the inherited one
+    final Set<String> javaHomes = ConcurrentHashMap.newKeySet();
+    volatile boolean unavailable;
+
+    DaemonMavenExecutor(String executable, MavenExecutor fallback) {
+        this.executable = executable;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public Process start(Path directory, List<String> cmd, String javaHome, Map<String, String> environment) throws IOException {
+        if (unavailable || !"mvn".equals(cmd.getFirst())) return fallback.start(directory, cmd, javaHome, environment);
+        try {
+            Process process = ForkedMavenExecutor.INSTANCE.start(directory, daemonCmd(cmd, javaHome), javaHome, environment);
+            if (javaHomes.add(Optional.ofNullable(javaHome).orElse(""))) {
+                log.info("Routing maven builds with JAVA_HOME '{}' to maven daemons", Optional.ofNullable(javaHome).orElse("<inherited>"));
+            }
+            return process;
+        } catch (IOException e) {
+            unavailable = true;
+            log.warn("Failed to start '{}', falling back to forking 'mvn' per build. Error: {}", executable, e.getMessage());
+            return fallback.start(directory, cmd, javaHome, environment);
+        }
+    }
+
+    List<String> daemonCmd(List<String> cmd, String javaHome) {
+        List<String> result = new ArrayList<>();
+        result.add(executable);
+        // the daemon is picked by its java home, not by the JAVA_HOME of the client
+        if (javaHome != null) result.add("-Dmvnd.javaHome=" + javaHome);
+        // build the modules one after the other as 'mvn' does, mvnd builds in parallel by default
+        result.add("--serial");
+        result.addAll(cmd.subList(1, cmd.size()));
+        return result;
+    }
+}
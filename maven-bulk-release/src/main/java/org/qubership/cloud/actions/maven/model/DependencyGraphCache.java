@@ -0,0 +1,111 @@
+package org.qubership.cloud.actions.maven.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * On-disk cache of the modules and module dependencies resolved per repository, keyed by url, pomFolder and the commit
+ * they were resolved from. Only the latest commit is kept per repository, so a repository is parsed again only after its
+ * HEAD has moved. Repositories whose resolution depends on SNAPSHOT parents or boms outside of the repository are never
+ * cached, because their content may change without the commit changing.
+ */
+@Slf4j
+public class DependencyGraphCache {
+
+    public static final String DIR_NAME = ".dependency-graph-cache";
+    // bump when the way dependencies are resolved changes
+    static final String FORMAT_VERSION = "1";
+    static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    static final Map<Path, DependencyGraphCache> instances = new ConcurrentHashMap<>();
+
+    public record Entry(String formatVersion, String url, String pomFolder, String commit, String baseModule,
+                        List<String> modules, Map<String, List<String>> perModuleDependencies) {
+
+        GAV baseModuleGAV() {
+            return baseModule == null ? null : new GAV(baseModule);
+        }
+
+        Set<GAV> moduleGAVs() {
+            Set<GAV> result = new HashSet<>();
+            modules.forEach(module -> result.add(new GAV(module)));
+            return result;
+        }
+
+        Map<GA, Set<GAV>> perModuleDependencyGAVs() {
+            Map<GA, Set<GAV>> result = new HashMap<>();
+            perModuleDependencies.forEach((module, dependencies) -> {
+                Set<GAV> gavs = new HashSet<>();
+                dependencies.forEach(dependency -> gavs.add(new GAV(dependency)));
+                String[] ga = module.split(":", 2);
+                result.put(new GA(ga[0], ga[1]), gavs);
+            });
+            return result;
+        }
+    }
+
+    final Path cacheDir;
+
+    DependencyGraphCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public static DependencyGraphCache forDirectory(Path cacheDir) {
+        return instances.computeIfAbsent(cacheDir.toAbsolutePath().normalize(), DependencyGraphCache::new);
+    }
+
+    Path entryPath(String url, String pomFolder) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(RepositoryConfig.key(url, pomFolder).getBytes(UTF_8));
+            return cacheDir.resolve(HexFormat.of().formatHex(digest.digest()) + ".json");
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the entry of the repository if it was resolved from the given commit
+     */
+    public Optional<Entry> get(String url, String pomFolder, String commit) {
+        Path entryPath = entryPath(url, pomFolder);
+        if (!Files.isRegularFile(entryPath)) return Optional.empty();
+        try {
+            Entry entry = objectMapper.readValue(entryPath.toFile(), Entry.class);
+            if (FORMAT_VERSION.equals(entry.formatVersion()) && Objects.equals(url, entry.url()) &&
+                    Objects.equals(pomFolder, entry.pomFolder()) && Objects.equals(commit, entry.commit())) {
+                return Optional.of(entry);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read dependency-graph cache entry: {}, ignoring it. Error: {}", entryPath, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    public void put(String url, String pomFolder, String commit, GAV baseModule, Set<GAV> modules, Map<GA, Set<GAV>> perModuleDependencies) {
+        Map<String, List<String>> dependencies = new TreeMap<>();
+        perModuleDependencies.forEach((ga, gavs) -> dependencies.put(ga.toString(), gavs.stream().map(GAV::toString).sorted().toList()));
+        Entry entry = new Entry(FORMAT_VERSION, url, pomFolder, commit, baseModule == null ? null : baseModule.toString(),
+                modules.stream().map(GAV::toString).sorted().toList(), dependencies);
+        Path entryPath = entryPath(url, pomFolder);
+        try {
+            Files.createDirectories(cacheDir);
+            Path tmpPath = Files.createTempFile(cacheDir, entryPath.getFileName().toString(), ".tmp");
+            objectMapper.writeValue(tmpPath.toFile(), entry);
+            Files.move(tmpPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write dependency-graph cache entry: {}. Error: {}", entryPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package org.qubership.cloud.actions.maven.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.model.*;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Builds the part of the effective model the release needs (coordinates, properties, dependencies, dependencyManagement
+ * and plugins with their versions) in-process, without forking 'mvn help:effective-pom'. Parents are resolved from the
+ * reactor, by relativePath or from the local repository, 'import' scoped boms from the local repository. Released poms
+ * read from the local repository and the dependencyManagement of imported boms are cached and shared by all the
+ * repositories resolved with the same local repository.
+ * <p>
+ * Poms which are not present in the local repository yet are not downloaded, instead {@link UnresolvableModelException}
+ * is thrown, so that the caller can fall back to maven.
+ * <p>
+ * Unlike maven, only profiles marked as activeByDefault are applied, profiles activated by the JDK, the OS, a property
+ * or a file are not. If such a profile of the lineage contributes dependencies or dependencyManagement, or a dependency
+ * is left without a version, {@link UnresolvableModelException} is thrown too, so the dependencies are those maven sees.
+ * Plugins bound by the default lifecycle and the super POM are not added, so the model only has the plugins the poms
+ * declare.
+ */
+@Slf4j
+public class EffectivePomBuilder {
+
+    static final Map<Path, EffectivePomBuilder> instances = new ConcurrentHashMap<>();
+    static final Pattern referencePattern = Pattern.compile("\\$\\{(.+?)}");
+    static final int maxLineageDepth = 64;
+
+    final Path localRepositoryPath;
+    // raw models of released poms from the local repository
+    final Map<String, Model> repositoryModels = new ConcurrentHashMap<>();
+    // effective dependencyManagement of released boms
+    final Map<String, List<Dependency>> importedManagement = new ConcurrentHashMap<>();
+
+    EffectivePomBuilder(Path localRepositoryPath) {
+        this.localRepositoryPath = localRepositoryPath;
+    }
+
+    public static EffectivePomBuilder forLocalRepository(Path localRepositoryPath) {
+        return instances.computeIfAbsent(localRepositoryPath.toAbsolutePath().normalize(), EffectivePomBuilder::new);
+    }
+
+    /**
+     * @return the builder for the local repository maven uses by default, i.e. the one 'mvn help:effective-pom' would use
+     */
+    public static EffectivePomBuilder defaultInstance() {
+        return forLocalRepository(Path.of(Optional.ofNullable(System.getProperty("maven.repo.local"))
+                .orElseGet(() -> Path.of(System.getProperty("user.home"), ".m2", "repository").toString())));
+    }
+
+    public static class UnresolvableModelException extends RuntimeException {
+        public UnresolvableModelException(String message) {
+            super(message);
+        }
+    }
+
+    public Model build(PomHolder pom) {
+        return build(pom.getModel(), pom.getPath(), pom.getParent(), new HashSet<>());
+    }
+
+    Model build(Model model, Path pomPath, PomHolder reactorParent, Set<String> importing) {
+        List<Model> lineage = lineage(model, pomPath, reactorParent);
+        lineage.stream()
+                .flatMap(m -> m.getProfiles().stream().filter(p -> !isActiveByDefault(p)).filter(EffectivePomBuilder::hasDependencies)
+                        .map(p -> "%s:%s".formatted(m.getArtifactId(), p.getId())))
+                .findFirst()
+                .ifPresent(profile -> {
+                    throw new UnresolvableModelException("Profile %s contributes dependencies, if activated".formatted(profile));
+                });
+        String groupId = Optional.ofNullable(model.getGroupId()).orElseGet(() -> model.getParent().getGroupId());
+        String version = Optional.ofNullable(model.getVersion()).orElseGet(() -> model.getParent().getVersion());
+
+        Map<String, String> properties = new HashMap<>();
+        lineage.forEach(m -> contributions(m).forEach(base -> base.getProperties()
+                .forEach((k, v) -> properties.put(String.valueOf(k), String.valueOf(v)))));
+        Map<String, String> builtIns = new HashMap<>();
+        builtIns.put("groupId", groupId);
+        builtIns.put("artifactId", model.getArtifactId());
+        builtIns.put("version", version);
+        if (model.getParent() != null) {
+            builtIns.put("parent.groupId", model.getParent().getGroupId());
+            builtIns.put("parent.artifactId", model.getParent().getArtifactId());
+            builtIns.put("parent.version", model.getParent().getVersion());
+        }
+        if (pomPath != null) {
+            builtIns.put("basedir", pomPath.toAbsolutePath().getParent().toString());
+            properties.put("basedir", pomPath.toAbsolutePath().getParent().toString());
+        }
+        builtIns.forEach((k, v) -> {
+            properties.put("project." + k, v);
+            properties.put("pom." + k, v);
+        });
+        Function<String, String> interpolator = value -> interpolate(value, properties);
+
+        // child declarations override the inherited ones
+        List<Model> childFirst = new ArrayList<>(lineage);
+        Collections.reverse(childFirst);
+
+        Map<String, Dependency> managed = new LinkedHashMap<>();
+        List<Dependency> imports = new ArrayList<>();
+        childFirst.forEach(m -> contributions(m)
+                .flatMap(base -> Optional.ofNullable(base.getDependencyManagement()).map(DependencyManagement::getDependencies).orElse(List.of()).stream())
+                .map(d -> interpolate(d, interpolator))
+                .forEach(d -> {
+                    if ("import".equals(d.getScope()) && "pom".equals(d.getType())) {
+                        imports.add(d);
+                    } else {
+                        managed.putIfAbsent(d.getManagementKey(), d);
+                    }
+                }));
+        // imported boms never override the managed dependencies declared in the lineage
+        for (Dependency bom : imports) {
+            importedManagement(bom, importing).forEach(d -> managed.putIfAbsent(d.getManagementKey(), d));
+        }
+
+        Map<String, Dependency> dependencies = new LinkedHashMap<>();
+        childFirst.forEach(m -> contributions(m)
+                .flatMap(base -> base.getDependencies().stream())
+                .map(d -> interpolate(d, interpolator))
+                .forEach(d -> dependencies.putIfAbsent(d.getManagementKey(), d)));
+        dependencies.values().forEach(d -> Optional.ofNullable(managed.get(d.getManagementKey())).ifPresent(m -> {
+            if (d.getVersion() == null) d.setVersion(m.getVersion());
+            if (d.getScope() == null) d.setScope(m.getScope());
+        }));
+        dependencies.values().stream().filter(d -> d.getVersion() == null).findFirst().ifPresent(d -> {
+            throw new UnresolvableModelException("Unmanaged version of dependency %s:%s".formatted(d.getGroupId(), d.getArtifactId()));
+        });
+
+        Map<String, Plugin> managedPlugins = new LinkedHashMap<>();
+        Map<String, Plugin> plugins = new LinkedHashMap<>();
+        childFirst.forEach(m -> builds(m).forEach(build -> {
+            Optional.ofNullable(build.getPluginManagement()).map(PluginManagement::getPlugins).orElse(List.of())
+                    .forEach(p -> merge(managedPlugins, interpolate(p, interpolator)));
+            build.getPlugins().forEach(p -> merge(plugins, interpolate(p, interpolator)));
+        }));
+        plugins.values().forEach(p -> Optional.ofNullable(managedPlugins.get(p.getKey())).ifPresent(m -> {
+            if (p.getVersion() == null) p.setVersion(m.getVersion());
+            m.getDependencies().forEach(d -> {
+                if (p.getDependencies().stream().noneMatch(pd -> pd.getManagementKey().equals(d.getManagementKey()))) {
+                    p.addDependency(d.clone());
+                }
+            });
+        }));
+
+        Model effective = new Model();
+        effective.setModelVersion(model.getModelVersion());
+        effective.setGroupId(groupId);
+        effective.setArtifactId(model.getArtifactId());
+        effective.setVersion(version);
+        effective.setPackaging(model.getPackaging());
+        Properties effectiveProperties = new Properties();
+        effectiveProperties.putAll(properties);
+        effective.setProperties(effectiveProperties);
+        DependencyManagement dependencyManagement = new DependencyManagement();
+        dependencyManagement.setDependencies(new ArrayList<>(managed.values()));
+        effective.setDependencyManagement(dependencyManagement);
+        effective.setDependencies(new ArrayList<>(dependencies.values()));
+        Build build = new Build();
+        PluginManagement pluginManagement = new PluginManagement();
+        pluginManagement.setPlugins(new ArrayList<>(managedPlugins.values()));
+        build.setPluginManagement(pluginManagement);
+        build.setPlugins(new ArrayList<>(plugins.values()));
+        effective.setBuild(build);
+        return effective;
+    }
+
+    /**
+     * @return the model with all its parents, starting from the root one
+     */
+    List<Model> lineage(Model model, Path pomPath, PomHolder reactorParent) {
+        List<Model> lineage = new ArrayList<>(List.of(model));
+        Model current = model;
+        Path currentPath = pomPath;
+        PomHolder currentReactorParent = reactorParent;
+        while (current.getParent() != null) {
+            Parent parent = current.getParent();
+            if (lineage.size() > maxLineageDepth) {
+                throw new IllegalStateException("Parent poms cycle detected for: %s".formatted(pomPath));
+            }
+            Path parentPath;
+            if (currentReactorParent != null && matches(currentReactorParent.getModel(), parent)) {
+                current = currentReactorParent.getModel();
+                currentPath = currentReactorParent.getPath();
+                currentReactorParent = currentReactorParent.getParent();
+            } else if ((parentPath = relativeParentPath(currentPath, parent)) != null) {
+                current = read(parentPath);
+                currentPath = parentPath;
+                currentReactorParent = null;
+            } else {
+                current = repositoryModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+                currentPath = null;
+                currentReactorParent = null;
+            }
+            lineage.add(current);
+        }
+        Collections.reverse(lineage);
+        return lineage;
+    }
+
+    static boolean matches(Model model, Parent parent) {
+        String groupId = Optional.ofNullable(model.getGroupId()).orElseGet(() -> Optional.ofNullable(model.getParent()).map(Parent::getGroupId).orElse(null));
+        return Objects.equals(groupId, parent.getGroupId()) && Objects.equals(model.getArtifactId(), parent.getArtifactId());
+    }
+
+    Path relativeParentPath(Path pomPath, Parent parent) {
+        if (pomPath == null || parent.getRelativePath() == null || parent.getRelativePath().isBlank()) return null;
+        Path path = pomPath.toAbsolutePath().getParent().resolve(parent.getRelativePath()).normalize();
+        if (Files.isDirectory(path)) path = path.resolve("pom.xml");
+        if (!Files.isRegularFile(path)) return null;
+        return matches(read(path), parent) ? path : null;
+    }
+
+    List<Dependency> importedManagement(Dependency bom, Set<String> importing) {
+        String key = "%s:%s:%s".formatted(bom.getGroupId(), bom.getArtifactId(), bom.getVersion());
+        List<Dependency> cached = importedManagement.get(key);
+        if (cached != null) return cached;
+        Set<String> importingBom = new HashSet<>(importing);
+        if (!importingBom.add(key)) {
+            throw new IllegalStateException("Import poms cycle detected for: %s".formatted(key));
+        }
+        Model bomModel = repositoryModel(bom.getGroupId(), bom.getArtifactId(), bom.getVersion());
+        List<Dependency> result = build(bomModel, null, null, importingBom).getDependencyManagement().getDependencies();
+        if (isCacheable(bom.getVersion())) {
+            importedManagement.put(key, result);
+        }
+        return result;
+    }
+
+    Model repositoryModel(String groupId, String artifactId, String version) {
+        if (Stream.of(groupId, artifactId, version).anyMatch(v -> v == null || v.contains("${"))) {
+            throw new UnresolvableModelException("Unresolved pom coordinates: %s:%s:%s".formatted(groupId, artifactId, version));
+        }
+        String key = "%s:%s:%s".formatted(groupId, artifactId, version);
+        Model cached = repositoryModels.get(key);
+        if (cached != null) return cached;
+        Path path = localRepositoryPath.resolve(Path.of(groupId.replace('.', '/'), artifactId, version, "%s-%s.pom".formatted(artifactId, version)));
+        if (!Files.isRegularFile(path)) {
+            throw new UnresolvableModelException("Pom %s not found in local repository: %s".formatted(key, localRepositoryPath));
+        }
+        Model model = read(path);
+        if (isCacheable(version)) {
+            repositoryModels.put(key, model);
+        }
+        return model;
+    }
+
+    // snapshots in the local repository get overwritten by the builds running during the release
+    static boolean isCacheable(String version) {
+        return !version.endsWith("-SNAPSHOT");
+    }
+
+    static Model read(Path path) {
+        try (Reader reader = Files.newBufferedReader(path)) {
+            return new MavenXpp3Reader().read(reader, false);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse pom: %s".formatted(path), e);
+        }
+    }
+
+    static Stream<ModelBase> contributions(Model model) {
+        return Stream.concat(Stream.of(model), activeByDefaultProfiles(model));
+    }
+
+    static Stream<PluginConfiguration> builds(Model model) {
+        return Stream.concat(Stream.ofNullable(model.getBuild()), activeByDefaultProfiles(model).map(Profile::getBuild).filter(Objects::nonNull));
+    }
+
+    static Stream<Profile> activeByDefaultProfiles(Model model) {
+        return model.getProfiles().stream().filter(EffectivePomBuilder::isActiveByDefault);
+    }
+
+    static boolean isActiveByDefault(Profile profile) {
+        return profile.getActivation() != null && profile.getActivation().isActiveByDefault();
+    }
+
+    static boolean hasDependencies(Profile profile) {
+        return !profile.getDependencies().isEmpty() || Optional.ofNullable(profile.getDependencyManagement())
+                .map(DependencyManagement::getDependencies).filter(dependencies -> !dependencies.isEmpty()).isPresent();
+    }
+
+    static void merge(Map<String, Plugin> plugins, Plugin plugin) {
+        Plugin existing = plugins.putIfAbsent(plugin.getKey(), plugin);
+        if (existing != null) {
+            if (existing.getVersion() == null) existing.setVersion(plugin.getVersion());
+            plugin.getDependencies().forEach(d -> {
+                if (existing.getDependencies().stream().noneMatch(ed -> ed.getManagementKey().equals(d.getManagementKey()))) {
+                    existing.addDependency(d);
+                }
+            });
+        }
+    }
+
+    static Dependency interpolate(Dependency dependency, Function<String, String> interpolator) {
+        Dependency result = dependency.clone();
+        result.setGroupId(interpolator.apply(dependency.getGroupId()));
+        result.setArtifactId(interpolator.apply(dependency.getArtifactId()));
+        result.setVersion(interpolator.apply(dependency.getVersion()));
+        result.setType(interpolator.apply(dependency.getType()));
+        result.setClassifier(interpolator.apply(dependency.getClassifier()));
+        result.setScope(interpolator.apply(dependency.getScope()));
+        return result;
+    }
+
+    static Plugin interpolate(Plugin plugin, Function<String, String> interpolator) {
+        Plugin result = new Plugin();
+        result.setGroupId(interpolator.apply(plugin.getGroupId()));
+        result.setArtifactId(interpolator.apply(plugin.getArtifactId()));
+        result.setVersion(interpolator.apply(plugin.getVersion()));
+        result.setConfiguration(plugin.getConfiguration());
+        result.setDependencies(new ArrayList<>(plugin.getDependencies().stream().map(d -> interpolate(d, interpolator)).toList()));
+        return result;
+    }
+
+    /**
+     * Replaces all property references, including the nested ones. Unknown references are left as is.
+     */
+    static String interpolate(String value, Map<String, String> properties) {
+        if (value == null || !value.contains("${")) return value;
+        String result = value;
+        for (int depth = 0; depth < 10 && result.contains("${"); depth++) {
+            Matcher matcher = referencePattern.matcher(result);
+            StringBuilder sb = new StringBuilder();
+            boolean replaced = false;
+            while (matcher.find()) {
+                String property = properties.get(matcher.group(1));
+                if (property == null && matcher.group(1).startsWith("env.")) {
+                    property = System.getenv(matcher.group(1).substring("env.".length()));
+                }
+                replaced |= property != null;
+                matcher.appendReplacement(sb, Matcher.quoteReplacement(property != null ? property : matcher.group()));
+            }
+            matcher.appendTail(sb);
+            result = sb.toString();
+            if (!replaced) break;
+        }
+        return result.trim();
+    }
+}
@@ -0,0 +1,158 @@
+package org.qubership.cloud.actions.maven.model;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * On-disk cache of effective models. An entry is addressed by the hash of everything the effective model is built from:
+ * the pom itself, its parents from the reactor and the coordinates of the released parent and the boms it imports.
+ * Poms which inherit from or import a SNAPSHOT outside the reactor are not cached, because their content may change
+ * without their coordinates changing. Entries not used for {@link #maxAge} are evicted, then the least recently
+ * used ones until the cache fits into {@link #maxSize}.
+ */
+@Slf4j
+public class EffectivePomCache {
+
+    public static final String DIR_NAME = ".effective-pom-cache";
+    // bump when the way effective models are built changes
+    static final String FORMAT_VERSION = "2";
+    static final long defaultMaxSize = 512L * 1024 * 1024;
+    static final Duration defaultMaxAge = Duration.ofDays(30);
+    static final Map<Path, EffectivePomCache> instances = new ConcurrentHashMap<>();
+
+    final Path cacheDir;
+    final long maxSize;
+    final Duration maxAge;
+
+    EffectivePomCache(Path cacheDir, long maxSize, Duration maxAge) {
+        this.cacheDir = cacheDir;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+        evict();
+    }
+
+    public static EffectivePomCache forDirectory(Path cacheDir) {
+        return instances.computeIfAbsent(cacheDir.toAbsolutePath().normalize(), dir -> new EffectivePomCache(dir, defaultMaxSize, defaultMaxAge));
+    }
+
+    public Model get(PomHolder pom, Function<PomHolder, Model> effectivePom) {
+        Optional<String> key = key(pom);
+        if (key.isEmpty()) return effectivePom.apply(pom);
+        Path entryPath = cacheDir.resolve(key.get().substring(0, 2)).resolve(key.get() + ".xml");
+        if (Files.isRegularFile(entryPath)) {
+            try (Reader reader = Files.newBufferedReader(entryPath)) {
+                Model model = new MavenXpp3Reader().read(reader, false);
+                Files.setLastModifiedTime(entryPath, FileTime.from(Instant.now()));
+                return model;
+            } catch (Exception e) {
+                log.warn("Failed to read effective-pom cache entry: {}, rebuilding it. Error: {}", entryPath, e.getMessage());
+            }
+        }
+        Model model = effectivePom.apply(pom);
+        try {
+            Files.createDirectories(entryPath.getParent());
+            Path tmpPath = Files.createTempFile(entryPath.getParent(), key.get(), ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tmpPath, UTF_8)) {
+                new MavenXpp3Writer().write(writer, model);
+            }
+            Files.move(tmpPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write effective-pom cache entry: {}. Error: {}", entryPath, e.getMessage());
+        }
+        return model;
+    }
+
+    /**
+     * @return the content hash of the pom or empty if the effective model of the pom cannot be cached
+     */
+    Optional<String> key(PomHolder pom) {
+        List<PomHolder> lineage = Stream.concat(Stream.of(pom), pom.getParentsFlatList().stream()).toList();
+        List<String> externalGAVs = new ArrayList<>();
+        PomHolder root = lineage.getLast();
+        Parent externalParent = root.getModel().getParent();
+        if (externalParent != null) {
+            externalGAVs.add("%s:%s:%s".formatted(externalParent.getGroupId(), externalParent.getArtifactId(),
+                    root.autoResolvePropReference(externalParent.getVersion())));
+        }
+        lineage.stream()
+                .flatMap(holder -> Optional.ofNullable(holder.getModel().getDependencyManagement())
+                        .map(DependencyManagement::getDependencies).orElse(List.of()).stream())
+                .filter(d -> "import".equals(d.getScope()) && "pom".equals(d.getType()))
+                .map(d -> "%s:%s:%s".formatted(pom.autoResolvePropReference(d.getGroupId()),
+                        pom.autoResolvePropReference(d.getArtifactId()), pom.autoResolvePropReference(d.getVersion())))
+                .forEach(externalGAVs::add);
+        if (externalGAVs.stream().anyMatch(gav -> gav.contains("${") || gav.endsWith("-SNAPSHOT"))) {
+            return Optional.empty();
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(FORMAT_VERSION.getBytes(UTF_8));
+            for (PomHolder holder : lineage) {
+                digest.update((byte) 0);
+                digest.update(holder.getPom().getBytes(UTF_8));
+            }
+            for (String gav : externalGAVs) {
+                digest.update((byte) 0);
+                digest.update(gav.getBytes(UTF_8));
+            }
+            return Optional.of(HexFormat.of().formatHex(digest.digest()));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void evict() {
+        if (!Files.isDirectory(cacheDir)) return;
+        record Entry(Path path, long size, FileTime lastModified) {
+        }
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(cacheDir)) {
+            for (Path path : files.filter(Files::isRegularFile).toList()) {
+                entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path)));
+            }
+        } catch (IOException e) {
+            log.warn("Failed to list effective-pom cache: {}. Error: {}", cacheDir, e.getMessage());
+            return;
+        }
+        entries.sort(Comparator.comparing(Entry::lastModified).reversed());
+        FileTime expired = FileTime.from(Instant.now().minus(maxAge));
+        long size = 0;
+        int evicted = 0;
+        for (Entry entry : entries) {
+            size += entry.size();
+            if (entry.lastModified().compareTo(expired) < 0 || size > maxSize) {
+                try {
+                    Files.deleteIfExists(entry.path());
+                    evicted++;
+                } catch (IOException e) {
+                    log.warn("Failed to evict effective-pom cache entry: {}. Error: {}", entry.path(), e.getMessage());
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted {} of {} effective-pom cache entries from: {}", evicted, entries.size(), cacheDir);
+        }
+    }
+}
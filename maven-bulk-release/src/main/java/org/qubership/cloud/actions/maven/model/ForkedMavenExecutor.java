@@ -0,0 +1,23 @@
+package org.qubership.cloud.actions.maven.model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts a new 'mvn' JVM for every command line
+ */
+public class ForkedMavenExecutor implements MavenExecutor {
+
+    static final ForkedMavenExecutor INSTANCE = new ForkedMavenExecutor();
+
+    @Override
+    public Process start(Path directory, List<String> cmd, String javaHome, Map<String, String> environment) throws IOException {
+        ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(directory.toFile());
+        if (javaHome != null) processBuilder.environment().put("JAVA_HOME", javaHome);
+        processBuilder.environment().putAll(environment);
+        processBuilder.redirectErrorStream(true);
+        return processBuilder.start();
+    }
+}
@@ -17,17 +17,24 @@ public class GitConfig {
     String url;
     int checkoutParallelism;
     boolean printProgress;
+    // directory of the persistent bare mirrors of the repositories, mirrors are not used if null
+    String mirrorDir;
+    // fetch and hard reset existing working trees instead of checking out their local state
+    boolean refresh;
     @JsonIgnore
     CredentialsProvider credentialsProvider;
 
     @Builder
-    public GitConfig(String username, String email, String password, String url, int checkoutParallelism, boolean printProgress) {
+    public GitConfig(String username, String email, String password, String url, int checkoutParallelism, boolean printProgress,
+                     String mirrorDir, boolean refresh) {
         this.username = username;
         this.email = email;
         this.password = password;
         this.url = url;
         this.checkoutParallelism = checkoutParallelism <= 0 ? 1 : checkoutParallelism;
         this.printProgress = printProgress;
+        this.mirrorDir = mirrorDir;
+        this.refresh = refresh;
         CredentialsProvider credentialsProvider = new UsernamePasswordCredentialsProvider(this.getUsername(), this.getPassword());
         CredentialsProvider.setDefault(credentialsProvider);
         this.credentialsProvider = credentialsProvider;
@@ -5,10 +5,17 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.ToString;
 
-@ToString(exclude = "password")
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@ToString(exclude = {"password", "resourceGovernor"})
 @Data
 @Builder
 public class MavenConfig {
+    static final Pattern expressionPattern = Pattern.compile("\\$\\{([^}]+)}");
+
     String user;
     @JsonIgnore
     String password;
@@ -17,4 +24,62 @@ public class MavenConfig {
     String localRepositoryPath = "${user.home}/.m2/repository";
     @Builder.Default
     boolean deployArtifacts = true;
+    // deploy artifacts installed by release:prepare instead of rebuilding the tag by release:perform
+    boolean singleBuild;
+    // each 'prepare' installs into its own layer on top of the local repository, merged into it once the 'prepare' is done
+    boolean overlayLocalRepository;
+    @Builder.Default
+    MavenExecutorType executor = MavenExecutorType.FORK;
+
+    // if set, admits the forked maven processes only while there is headroom, not used with the DAEMON executor
+    @JsonIgnore
+    ResourceGovernor resourceGovernor;
+
+    @JsonIgnore
+    public MavenExecutor getMavenExecutor() {
+        MavenExecutor mavenExecutor = executor == null ? MavenExecutorType.FORK.instance() : executor.instance();
+        // the builds of mvnd run in the daemons, which are not descendants of the client process the governor would watch
+        return resourceGovernor == null || executor == MavenExecutorType.DAEMON ? mavenExecutor : resourceGovernor.govern(mavenExecutor);
+    }
+
+    /**
+     * @return the given parallelism of a pool whose tasks may fork maven, limited by the resource governor if any
+     */
+    public int parallelism(int parallelism) {
+        return resourceGovernor == null ? parallelism : resourceGovernor.parallelism(parallelism);
+    }
+
+    /**
+     * @return MAVEN_USER and MAVEN_TOKEN if the credentials are set
+     */
+    @JsonIgnore
+    public Map<String, String> getEnvironment() {
+        return user != null && password != null ? Map.of("MAVEN_USER", user, "MAVEN_TOKEN", password) : Map.of();
+    }
+
+    /**
+     * @return the local repository as maven resolves 'maven.repo.local' in the given working directory
+     */
+    public Path resolveLocalRepositoryPath(Path workingDirPath) {
+        return resolvePath(localRepositoryPath, workingDirPath, System.getenv());
+    }
+
+    /**
+     * Interpolates ${env.NAME} with the environment and other ${name} expressions with the system properties, like
+     * ${user.home}. A relative path is resolved against the working directory.
+     *
+     * @throws IllegalArgumentException if an expression cannot be resolved
+     */
+    public static Path resolvePath(String path, Path workingDirPath, Map<String, String> environment) {
+        Matcher matcher = expressionPattern.matcher(path);
+        StringBuilder result = new StringBuilder();
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            String value = name.startsWith("env.") ? environment.get(name.substring("env.".length())) : System.getProperty(name);
+            if (value == null) throw new IllegalArgumentException("Failed to resolve %s in path: %s".formatted(matcher.group(), path));
+            matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+        }
+        matcher.appendTail(result);
+        return workingDirPath.toAbsolutePath().resolve(result.toString()).normalize();
+    }
 }
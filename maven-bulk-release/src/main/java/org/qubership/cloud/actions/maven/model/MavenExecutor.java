@@ -0,0 +1,35 @@
+package org.qubership.cloud.actions.maven.model;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs maven command lines. The command line is the one 'mvn' would be called with, starting with "mvn", so that it can
+ * be logged as is, the executor decides which process actually runs it.
+ */
+public interface MavenExecutor {
+
+    /**
+     * @param directory   working directory of the build
+     * @param cmd         "mvn" followed by the arguments
+     * @param javaHome    JAVA_HOME to build with, null for the inherited one
+     * @param environment additional environment variables
+     * @return the started process with the error stream redirected to its output
+     */
+    Process start(Path directory, List<String> cmd, String javaHome, Map<String, String> environment) throws IOException;
+
+    /**
+     * Runs the command line and copies its output to the stream
+     *
+     * @return exit code of the build
+     */
+    default int execute(Path directory, List<String> cmd, String javaHome, Map<String, String> environment,
+                        OutputStream outputStream) throws IOException, InterruptedException {
+        Process process = start(directory, cmd, javaHome, environment);
+        process.getInputStream().transferTo(outputStream);
+        return process.waitFor();
+    }
+}
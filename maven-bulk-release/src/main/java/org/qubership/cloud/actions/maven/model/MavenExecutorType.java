@@ -0,0 +1,15 @@
+package org.qubership.cloud.actions.maven.model;
+
+public enum MavenExecutorType {
+    // a new 'mvn' process per call
+    FORK,
+    // warm maven daemons ('mvnd'), one pool per JAVA_HOME, falls back to FORK if 'mvnd' is not available
+    DAEMON;
+
+    public MavenExecutor instance() {
+        return switch (this) {
+            case FORK -> ForkedMavenExecutor.INSTANCE;
+            case DAEMON -> DaemonMavenExecutor.INSTANCE;
+        };
+    }
+}
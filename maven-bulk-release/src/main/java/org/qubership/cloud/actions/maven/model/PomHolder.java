@@ -1,48 +1,75 @@
 package org.qubership.cloud.actions.maven.model;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Parent;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
-import org.codehaus.plexus.util.xml.Xpp3Dom;
-import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.io.StringReader;
-import java.nio.file.FileVisitResult;
-import java.nio.file.FileVisitor;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.text.MessageFormat;
 import java.util.*;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * A parsed pom, read-only outside of this package. The poms of a {@link RepositorySnapshot} are never changed, their
+ * copies are patched instead.
+ */
 @Slf4j
 @Data
 public class PomHolder {
 
     static Pattern referencePattern = Pattern.compile("\\$\\{(.+?)}");
 
+    @Setter(AccessLevel.PACKAGE)
     Path path;
     PomHolder parent;
     Model model;
     String pom;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    PomIndex index;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    volatile PropertyTable propertyTable;
 
     public PomHolder(String pom, Path path) {
         this.path = path;
         this.setPom(pom);
     }
 
-    public void setPom(String pom) {
+    /**
+     * @return a holder of the same pom without a parent, sharing the parsed model, which is never modified
+     */
+    PomHolder copy() {
+        PomHolder copy = new PomHolder();
+        copy.path = path;
+        copy.pom = pom;
+        copy.model = model;
+        copy.index = index;
+        return copy;
+    }
+
+    private PomHolder() {
+    }
+
+    void setPom(String pom) {
         try {
             this.pom = pom;
             Model model = new MavenXpp3Reader().read(new StringReader(pom));
             this.setModel(model);
+            this.index = new PomIndex(pom);
         } catch (Exception e) {
             throw new RuntimeException("Failed to parse pom: %s".formatted(path.toString()), e);
         }
@@ -69,166 +96,193 @@ public class PomHolder {
         return Optional.ofNullable(model.getVersion()).orElseGet(() -> model.getParent().getVersion());
     }
 
+    /**
+     * Replaces all resolvable ${...} references in the value, unresolvable ones are left as is.
+     */
     public String autoResolvePropReference(String value) {
-        if (value == null) return null;
-        Matcher referenceMatcher = referencePattern.matcher(value);
-        if (referenceMatcher.find()) {
-            // find reference among properties
-            String prop = referenceMatcher.group(1);
-            Map<String, String> properties = getProperties();
-            properties.put("project.groupId", this.getGroupId());
-            properties.put("project.version", this.getVersion());
-            String valueFromProperty = properties.get(prop);
-            if (valueFromProperty != null) {
-                return autoResolvePropReference(valueFromProperty, properties);
-            } else {
-                return value;
-            }
-        }
-        return value;
+        return interpolate(value, propertyTable().lookup::get);
     }
 
     public String autoResolvePropReference(String value, Map<String, String> properties) {
-        if (value == null) return null;
+        return interpolate(value, name -> {
+            String property = properties.get(name);
+            return property == null ? null : autoResolvePropReference(property, properties);
+        });
+    }
+
+    static String interpolate(String value, Function<String, String> resolver) {
+        if (value == null || !value.contains("${")) return value;
         Matcher referenceMatcher = referencePattern.matcher(value);
-        if (referenceMatcher.find()) {
-            // find reference among properties
-            String prop = referenceMatcher.group(1);
-            String valueFromProperty = properties.get(prop);
-            if (valueFromProperty != null) {
-                return autoResolvePropReference(valueFromProperty, properties);
-            } else {
-                return value;
-            }
+        StringBuilder sb = new StringBuilder();
+        while (referenceMatcher.find()) {
+            String resolved = resolver.apply(referenceMatcher.group(1));
+            referenceMatcher.appendReplacement(sb, Matcher.quoteReplacement(resolved != null ? resolved : referenceMatcher.group()));
         }
-        return value;
+        referenceMatcher.appendTail(sb);
+        return sb.toString();
     }
 
+    /**
+     * @return the resolved properties of this pom and its parents, the ones of this pom overriding the parents' ones
+     */
     public Map<String, String> getProperties() {
-        Map<String, String> properties = new HashMap<>();
-        PomHolder ph = this;
-        while (ph != null) {
-            Model model = ph.getModel();
-            properties.putAll(model.getProperties().entrySet().stream()
-                    .filter(entry -> entry.getKey() instanceof String && entry.getValue() instanceof String)
-                    .collect(Collectors.toMap(entry -> (String) entry.getKey(), entry -> (String) entry.getValue())));
-            ph = ph.getParent();
-        }
-        return properties.entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
-                    String value = entry.getValue();
-                    return autoResolvePropReference(value, properties);
-                }));
+        return Collections.unmodifiableMap(propertyTable().properties);
     }
 
-    // todo re-write with Xpp3Dom approach
-    public void updateProperty(String name, String version) {
-        Pattern propertiesPattern = Pattern.compile("(?s)<properties>(.+?)</properties>");
-        Pattern propertyPattern = Pattern.compile(MessageFormat.format("<{0}>(.+?)</{0}>", name));
-        String pomContent = this.getPom();
-        Matcher matcher = propertiesPattern.matcher(pomContent);
-        while (matcher.find()) {
-            String properties = matcher.group();
-            String propertiesContent = matcher.group(1);
-            Matcher propMatcher = propertyPattern.matcher(propertiesContent);
-            String newVersionTag = MessageFormat.format("<{0}>{1}</{0}>", name, version);
-            while (propMatcher.find()) {
-                String oldVersion = propMatcher.group(1);
-                String oldVersionTag = propMatcher.group();
-                pomContent = pomContent.replace(properties, properties.replace(oldVersionTag, newVersionTag));
-                if (!Objects.equals(oldVersion, version))
-                    log.info("Updated property: {} [{} -> {}] in {}:{}", name, oldVersion, version, this.getGroupId(), this.getArtifactId());
-            }
+    void setModel(Model model) {
+        this.model = model;
+        this.propertyTable = null;
+    }
+
+    void setParent(PomHolder parent) {
+        this.parent = parent;
+        this.propertyTable = null;
+    }
+
+    /**
+     * The table is built once and reused until the model of this pom is replaced or the table of the parent is rebuilt.
+     */
+    PropertyTable propertyTable() {
+        PropertyTable parentTable = parent != null ? parent.propertyTable() : null;
+        PropertyTable table = this.propertyTable;
+        if (table == null || table.parent != parentTable) {
+            table = new PropertyTable(parentTable, this);
+            this.propertyTable = table;
         }
-        setPom(pomContent);
+        return table;
     }
 
-    public void updateVersionInGAV(GAV gav) {
-        try (Reader reader = new StringReader(pom)) {
-            Xpp3Dom dom = Xpp3DomBuilder.build(reader, false);
-            Arrays.stream(dom.getChildren()).forEach(child -> updateGAV(child, gav));
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    static final class PropertyTable {
+        final PropertyTable parent;
+        // declared values of this pom and its parents
+        final Map<String, String> declared;
+        final Map<String, String> properties = new HashMap<>();
+        // resolved properties and the built-in project.* ones
+        final Map<String, String> lookup = new HashMap<>();
+
+        PropertyTable(PropertyTable parent, PomHolder pom) {
+            this.parent = parent;
+            this.declared = parent != null ? new HashMap<>(parent.declared) : new HashMap<>();
+            pom.getModel().getProperties().forEach((key, value) -> {
+                if (key instanceof String k && value instanceof String v) declared.put(k, v);
+            });
+            Model model = pom.getModel();
+            Map<String, String> builtIns = new HashMap<>();
+            Optional.ofNullable(model.getGroupId()).or(() -> Optional.ofNullable(model.getParent()).map(Parent::getGroupId))
+                    .ifPresent(groupId -> builtIns.put("project.groupId", groupId));
+            Optional.ofNullable(model.getVersion()).or(() -> Optional.ofNullable(model.getParent()).map(Parent::getVersion))
+                    .ifPresent(version -> builtIns.put("project.version", version));
+            // the built-ins are resolvable from the declared properties, i.e. <lib.version>${project.version}</lib.version>
+            Map<String, String> values = new HashMap<>(declared);
+            values.putAll(builtIns);
+            Set<String> inProgress = new HashSet<>();
+            values.keySet().forEach(name -> resolve(name, values, lookup, inProgress));
+            lookup.forEach((name, value) -> {
+                if (declared.containsKey(name)) properties.put(name, value);
+            });
+        }
+
+        String resolve(String name, Map<String, String> values, Map<String, String> resolved, Set<String> inProgress) {
+            String result = resolved.get(name);
+            if (result != null) return result;
+            String value = values.get(name);
+            // a reference cycle is left unresolved
+            if (value == null || !inProgress.add(name)) return null;
+            result = interpolate(value, reference -> resolve(reference, values, resolved, inProgress));
+            inProgress.remove(name);
+            resolved.put(name, result);
+            return result;
         }
     }
 
-    void updateGAV(Xpp3Dom container, GAV gav) {
-        Set<String> gavNames = Set.of("groupId", "artifactId", "version");
-        List<Xpp3Dom> children = Arrays.stream(container.getChildren()).toList();
-        if (gavNames.stream().allMatch(n -> children.stream().anyMatch(cn -> Objects.equals(cn.getName(), n)))) {
-            String groupId = container.getChild("groupId").getValue();
-            String artifactId = container.getChild("artifactId").getValue();
-            Xpp3Dom versionDom = container.getChild("version");
-            if (Objects.equals(gav.getGroupId(), groupId) && Objects.equals(gav.getArtifactId(), artifactId) && versionDom != null) {
-                StringBuilder sb = new StringBuilder("<").append(container.getName()).append(">");
-                children.forEach(child -> {
-                    sb.append("(\\s+|<!--.*?-->)*");
-                    sb.append("<").append(child.getName()).append(">");
-                    if (child.getValue() != null) {
-                        if (Objects.equals(child.getName(), "version")) {
-                            sb.append("(?<before>\\s+|<!--.*?-->)*").append("(?<version>").append(child.getValue()).append(")").append("(?<after>\\s+|<!--.*?-->)*");
-                        } else {
-                            sb.append("(\\s+|<!--.*?-->)*").append(child.getValue()).append("(\\s+|<!--.*?-->)*");
-                        }
-                    } else {
-                        sb.append(".*?");
-                    }
-                    sb.append("</").append(child.getName()).append(">");
-                });
-                sb.append("(\\s+|<!--.*?-->)*</").append(container.getName()).append(">");
-                Pattern pattern = Pattern.compile(sb.toString(), Pattern.DOTALL);
-                Matcher matcher = pattern.matcher(pom);
-                if (!matcher.find()) {
-                    throw new IllegalStateException(String.format("Failed to find GAV [%s] with pattern: '%s' in pom:\n%s", gav, pattern, pom));
-                } else {
-                    String originalVersion = versionDom.getValue();
-                    String newVersion = gav.getVersion();
-                    int start = matcher.start("version");
-                    int end = matcher.end("version");
-                    String updatedPom = pom.substring(0, start) + newVersion + pom.substring(end);
-                    setPom(updatedPom);
-                    log.info("Updated GAV: {}:{} {} -> {}", gav.getGroupId(), gav.getArtifactId(), originalVersion, newVersion);
+    void updateProperty(String name, String version) {
+        apply(new PomPatch().property(name, version));
+    }
+
+    void updateVersionInGAV(GAV gav) {
+        apply(new PomPatch().version(gav.toGA(), gav.getVersion()));
+    }
+
+    /**
+     * Applies all edits of the patch in a single left-to-right pass over the pom text and re-parses the pom once.
+     *
+     * @return the edits which actually changed the pom, in the order of their position in the pom
+     */
+    List<PomPatch.Change> apply(PomPatch patch) {
+        record Splice(int start, int end, PomPatch.Change change) {
+        }
+        List<Splice> splices = new ArrayList<>();
+        if (!patch.versions.isEmpty()) {
+            for (PomIndex.GAVEntry entry : index.gavs()) {
+                GA ga = entry.gav().toGA();
+                String version = patch.versions.get(ga);
+                if (version != null) {
+                    splices.add(new Splice(entry.version().valueStart, entry.version().valueEnd,
+                            new PomPatch.Change(path, PomPatch.Kind.GAV, ga.toString(), entry.gav().getVersion(), version)));
+                }
+            }
+        }
+        if (!patch.properties.isEmpty()) {
+            for (PomIndex.Element property : index.properties()) {
+                String value = patch.properties.get(property.name);
+                if (value != null && property.contentStart >= 0) {
+                    splices.add(new Splice(property.contentStart, property.contentEnd, new PomPatch.Change(path, PomPatch.Kind.PROPERTY,
+                            property.name, pom.substring(property.contentStart, property.contentEnd), value)));
                 }
             }
         }
-        children.stream()
-                .filter(child -> !gavNames.contains(child.getName()))
-                .filter(child -> child.getChildren().length > 0)
-                .forEach(child -> updateGAV(child, gav));
+        splices.sort(Comparator.comparingInt(Splice::start));
+        StringBuilder pomContent = new StringBuilder(pom.length());
+        List<PomPatch.Change> changes = new ArrayList<>();
+        int copied = 0;
+        for (Splice splice : splices) {
+            pomContent.append(pom, copied, splice.start()).append(splice.change().to());
+            copied = splice.end();
+            if (!Objects.equals(splice.change().from(), splice.change().to())) {
+                changes.add(splice.change());
+            }
+        }
+        if (changes.isEmpty()) return changes;
+        pomContent.append(pom, copied, pom.length());
+        setPom(pomContent.toString());
+        changes.forEach(change -> {
+            if (change.kind() == PomPatch.Kind.GAV) {
+                log.info("Updated GAV: {} {} -> {}", change.name(), change.from(), change.to());
+            } else {
+                log.info("Updated property: {} [{} -> {}] in {}:{}", change.name(), change.from(), change.to(), this.getGroupId(), this.getArtifactId());
+            }
+        });
+        return changes;
     }
 
     public Set<GAV> getGAVs() {
-        try (Reader reader = new StringReader(pom)) {
-            Xpp3Dom dom = Xpp3DomBuilder.build(reader);
-            return Arrays.stream(dom.getChildren()).map(this::getGAVs).flatMap(Collection::stream).collect(Collectors.toSet());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        return index.gavs().stream().map(PomIndex.GAVEntry::gav).collect(Collectors.toSet());
     }
 
-    Set<GAV> getGAVs(Xpp3Dom container) {
-        Set<GAV> gavs = new HashSet<>();
-        Xpp3Dom groupIdDom = container.getChild("groupId");
-        Xpp3Dom artifactIdDom = container.getChild("artifactId");
-        Xpp3Dom versionDom = container.getChild("version");
-        if (groupIdDom != null && artifactIdDom != null && versionDom != null) {
-            String groupId = groupIdDom.getValue();
-            String artifactId = artifactIdDom.getValue();
-            String version = versionDom.getValue();
-            if (groupId != null && artifactId != null && version != null) {
-                groupId = groupId.trim();
-                artifactId = artifactId.trim();
-                version = version.trim();
-                gavs.add(new GAV(groupId, artifactId, version));
-            }
-        }
-        gavs.addAll(Arrays.stream(container.getChildren())
-                .filter(child -> !Set.of("groupId", "artifactId", "version").contains(child.getName()))
-                .filter(child -> child.getChildren().length > 0)
-                .map(this::getGAVs)
-                .flatMap(Collection::stream)
-                .collect(Collectors.toSet()));
-        return gavs;
+    /**
+     * @return true if the poms differ only in the project version and the versions of the given GAs, like the poms of a
+     * release and of the next development iteration
+     */
+    public static boolean sameIgnoringVersions(String pom1, String pom2, Set<GA> gas) {
+        return new PomIndex(pom1).withoutVersions(gas).equals(new PomIndex(pom2).withoutVersions(gas));
+    }
+
+    /**
+     * @return the GAs declared by both poms with different versions
+     */
+    public static Set<GA> changedVersions(String pom1, String pom2) {
+        Map<GA, String> versions1 = new PomIndex(pom1).versions();
+        Map<GA, String> versions2 = new PomIndex(pom2).versions();
+        return versions1.keySet().stream()
+                .filter(ga -> versions2.containsKey(ga) && !Objects.equals(versions1.get(ga), versions2.get(ga)))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return the versions of the GAs declared by the pom, with references to its properties resolved
+     */
+    public static Map<GA, String> versions(String pom) {
+        return new PomIndex(pom).versions();
     }
 
     public static PomHolder parsePom(Path pomPath) throws IOException {
@@ -236,57 +290,12 @@ public class PomHolder {
         return new PomHolder(content, pomPath);
     }
 
+    /**
+     * @return poms found under the directory, starting with leaf poms
+     * @see Reactor
+     */
     public static List<PomHolder> parsePoms(Path repositoryDir) {
-        List<PomHolder> poms = new ArrayList<>();
-        try {
-            Files.walkFileTree(repositoryDir, new FileVisitor<>() {
-
-                @Override
-                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    boolean isPom = file.getFileName() != null && "pom.xml".equals(file.getFileName().toString());
-                    boolean underTarget = false;
-                    for (Path part : file) {
-                        if ("target".equals(part.toString())) {
-                            underTarget = true;
-                            break;
-                        }
-                    }
-                    if (isPom && !underTarget) {
-                        poms.add(parsePom(file));
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-
-                @Override
-                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                    return FileVisitResult.CONTINUE;
-                }
-            });
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-        return poms.stream().peek(pom -> {
-                    Parent parent = pom.getModel().getParent();
-                    if (parent != null) {
-                        String groupId = parent.getGroupId();
-                        String artifactId = parent.getArtifactId();
-                        poms.stream().filter(ph -> Objects.equals(ph.getGroupId(), groupId) && Objects.equals(ph.getArtifactId(), artifactId))
-                                .findFirst().ifPresent(pom::setParent);
-                    }
-                })
-                // start with leaf poms
-                .sorted(Comparator.<PomHolder>comparingInt(p -> p.getParentsFlatList().size()).reversed())
-                .toList();
+        return Reactor.discover(repositoryDir).getPoms();
     }
 
     @Override
@@ -0,0 +1,291 @@
+package org.qubership.cloud.actions.maven.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Element tree of a pom built by a single forward scan of its text, keeping the exact character offsets of every element's
+ * content and text value. GAVs and properties are located by walking the tree, and their values are updated by splicing
+ * the original text at the recorded offsets, so formatting and comments around them are preserved.
+ */
+final class PomIndex {
+
+    static final Set<String> gavNames = Set.of("groupId", "artifactId", "version");
+    static final Map<String, String> entities = Map.of("lt", "<", "gt", ">", "amp", "&", "apos", "'", "quot", "\"");
+
+    static final class Element {
+        final String name;
+        final List<Element> children = new ArrayList<>();
+        final StringBuilder text = new StringBuilder();
+        // offsets of everything between the start and the end tags, -1 for a self-closing element
+        int contentStart = -1;
+        int contentEnd = -1;
+        // offsets of the text from its first to its last non-whitespace character, -1 if there is no such text
+        int valueStart = -1;
+        int valueEnd = -1;
+
+        Element(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the trimmed text of an element without child elements, null if it has child elements or no text
+         */
+        String value() {
+            String value = text.toString().trim();
+            return children.isEmpty() && !value.isEmpty() ? value : null;
+        }
+
+        Element child(String name) {
+            return children.stream().filter(child -> child.name.equals(name)).findFirst().orElse(null);
+        }
+    }
+
+    /**
+     * GAV declared by a container element, i.e. an element having groupId, artifactId and version children
+     */
+    record GAVEntry(GAV gav, Element version) {
+    }
+
+    final String pom;
+    final Element root;
+
+    PomIndex(String pom) {
+        this.pom = pom;
+        this.root = new Parser(pom).parse();
+    }
+
+    List<GAVEntry> gavs() {
+        List<GAVEntry> result = new ArrayList<>();
+        root.children.forEach(child -> collectGAVs(child, result));
+        return result;
+    }
+
+    void collectGAVs(Element container, List<GAVEntry> result) {
+        Element groupId = container.child("groupId");
+        Element artifactId = container.child("artifactId");
+        Element version = container.child("version");
+        if (groupId != null && artifactId != null && version != null
+                && groupId.value() != null && artifactId.value() != null && version.value() != null) {
+            result.add(new GAVEntry(new GAV(groupId.value(), artifactId.value(), version.value()), version));
+        }
+        container.children.stream()
+                .filter(child -> !gavNames.contains(child.name))
+                .filter(child -> !child.children.isEmpty())
+                .forEach(child -> collectGAVs(child, result));
+    }
+
+    /**
+     * @return children of all 'properties' elements, including the ones of profiles
+     */
+    List<Element> properties() {
+        List<Element> result = new ArrayList<>();
+        walk(root, element -> {
+            if (element.name.equals("properties")) result.addAll(element.children);
+        });
+        return result;
+    }
+
+    /**
+     * @return the versions of the declared GAs, with references to the properties of this pom resolved
+     */
+    Map<GA, String> versions() {
+        Map<String, String> properties = new HashMap<>();
+        properties().stream().filter(property -> property.value() != null).forEach(property -> properties.putIfAbsent(property.name, property.value()));
+        Map<GA, String> result = new HashMap<>();
+        for (GAVEntry entry : gavs()) {
+            String version = entry.gav().getVersion();
+            if (version.startsWith("${") && version.endsWith("}")) {
+                version = properties.getOrDefault(version.substring(2, version.length() - 1), version);
+            }
+            result.put(entry.gav().toGA(), version);
+        }
+        return result;
+    }
+
+    /**
+     * @return the pom text without the project version, the versions of the given GAs and the properties these versions
+     * reference
+     */
+    String withoutVersions(Set<GA> gas) {
+        List<Element> versions = new ArrayList<>();
+        Optional.ofNullable(root.child("version")).ifPresent(versions::add);
+        Set<String> referenced = new HashSet<>();
+        for (GAVEntry entry : gavs()) {
+            if (!gas.contains(entry.gav().toGA())) continue;
+            versions.add(entry.version());
+            String version = entry.gav().getVersion();
+            if (version.startsWith("${") && version.endsWith("}")) referenced.add(version.substring(2, version.length() - 1));
+        }
+        properties().stream().filter(property -> referenced.contains(property.name)).forEach(versions::add);
+        versions.removeIf(version -> version.valueStart < 0);
+        versions.sort(Comparator.comparingInt(version -> version.valueStart));
+        StringBuilder result = new StringBuilder(pom.length());
+        int copied = 0;
+        for (Element version : versions) {
+            if (version.valueStart < copied) continue;
+            result.append(pom, copied, version.valueStart);
+            copied = version.valueEnd;
+        }
+        return result.append(pom, copied, pom.length()).toString();
+    }
+
+    static void walk(Element element, Consumer<Element> consumer) {
+        consumer.accept(element);
+        element.children.forEach(child -> walk(child, consumer));
+    }
+
+    static class Parser {
+        final String xml;
+        int pos;
+
+        Parser(String xml) {
+            this.xml = xml;
+        }
+
+        Element parse() {
+            List<Element> stack = new ArrayList<>();
+            Element root = null;
+            int textStart = 0;
+            while (pos < xml.length()) {
+                int lt = xml.indexOf('<', pos);
+                if (lt < 0) lt = xml.length();
+                if (!stack.isEmpty()) text(stack.getLast(), textStart, lt, true);
+                pos = lt;
+                if (pos == xml.length()) break;
+                if (xml.startsWith("<!--", pos)) {
+                    pos = end("-->", pos + 4);
+                } else if (xml.startsWith("<![CDATA[", pos)) {
+                    int start = pos + 9;
+                    pos = end("]]>", start);
+                    if (stack.isEmpty()) throw error("CDATA outside of the root element");
+                    text(stack.getLast(), start, pos - 3, false);
+                } else if (xml.startsWith("<?", pos)) {
+                    pos = end("?>", pos + 2);
+                } else if (xml.startsWith("<!", pos)) {
+                    skipDeclaration();
+                } else if (xml.startsWith("</", pos)) {
+                    int nameEnd = nameEnd(pos + 2);
+                    String name = xml.substring(pos + 2, nameEnd);
+                    if (stack.isEmpty() || !stack.getLast().name.equals(name)) throw error("unexpected end tag </%s>".formatted(name));
+                    stack.removeLast().contentEnd = pos;
+                    pos = end(">", nameEnd);
+                } else {
+                    int nameEnd = nameEnd(pos + 1);
+                    Element element = new Element(xml.substring(pos + 1, nameEnd));
+                    boolean empty = skipAttributes(nameEnd);
+                    if (!empty) element.contentStart = pos;
+                    if (stack.isEmpty()) {
+                        if (root != null) throw error("more than one root element");
+                        root = element;
+                    } else {
+                        stack.getLast().children.add(element);
+                    }
+                    if (!empty) stack.add(element);
+                }
+                textStart = pos;
+            }
+            if (root == null || !stack.isEmpty()) throw error("unexpected end of document");
+            return root;
+        }
+
+        void text(Element element, int start, int end, boolean decode) {
+            if (start >= end) return;
+            int first = start;
+            while (first < end && Character.isWhitespace(xml.charAt(first))) first++;
+            int last = end;
+            while (last > first && Character.isWhitespace(xml.charAt(last - 1))) last--;
+            if (first < last) {
+                if (element.valueStart < 0) element.valueStart = first;
+                element.valueEnd = last;
+            }
+            element.text.append(decode ? decode(start, end) : xml.substring(start, end));
+        }
+
+        String decode(int start, int end) {
+            int amp = xml.indexOf('&', start);
+            if (amp < 0 || amp >= end) return xml.substring(start, end);
+            StringBuilder sb = new StringBuilder();
+            int i = start;
+            while (i < end) {
+                char c = xml.charAt(i);
+                int semicolon = c == '&' ? xml.indexOf(';', i) : -1;
+                if (semicolon < 0 || semicolon >= end) {
+                    sb.append(c);
+                    i++;
+                    continue;
+                }
+                String entity = xml.substring(i + 1, semicolon);
+                if (entity.startsWith("#x")) {
+                    sb.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+                } else if (entity.startsWith("#")) {
+                    sb.appendCodePoint(Integer.parseInt(entity.substring(1)));
+                } else {
+                    sb.append(entities.getOrDefault(entity, "&" + entity + ";"));
+                }
+                i = semicolon + 1;
+            }
+            return sb.toString();
+        }
+
+        int nameEnd(int start) {
+            int i = start;
+            while (i < xml.length() && !Character.isWhitespace(xml.charAt(i)) && "/>".indexOf(xml.charAt(i)) < 0) i++;
+            if (i == start) throw error("element name expected");
+            return i;
+        }
+
+        /**
+         * @return true if the tag is self-closing
+         */
+        boolean skipAttributes(int start) {
+            int i = start;
+            while (i < xml.length()) {
+                char c = xml.charAt(i);
+                if (c == '"' || c == '\'') {
+                    int close = xml.indexOf(c, i + 1);
+                    if (close < 0) break;
+                    i = close + 1;
+                } else if (c == '>') {
+                    pos = i + 1;
+                    return xml.charAt(i - 1) == '/';
+                } else {
+                    i++;
+                }
+            }
+            throw error("unterminated tag");
+        }
+
+        void skipDeclaration() {
+            // <!DOCTYPE ...> may contain an internal subset in square brackets
+            int depth = 0;
+            for (int i = pos + 2; i < xml.length(); i++) {
+                char c = xml.charAt(i);
+                if (c == '[') depth++;
+                else if (c == ']') depth--;
+                else if (c == '>' && depth == 0) {
+                    pos = i + 1;
+                    return;
+                }
+            }
+            throw error("unterminated declaration");
+        }
+
+        int end(String terminator, int from) {
+            int i = xml.indexOf(terminator, from);
+            if (i < 0) throw error("'%s' expected".formatted(terminator));
+            return i + terminator.length();
+        }
+
+        IllegalStateException error(String message) {
+            return new IllegalStateException("Failed to index pom at offset %d: %s".formatted(pos, message));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.qubership.cloud.actions.maven.model;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Set of version edits for a single pom: new versions of GAVs matched by groupId/artifactId and new values of properties.
+ * All edits of a patch are applied to the pom text in one pass by {@link PomHolder#apply(PomPatch)}.
+ */
+public class PomPatch {
+
+    public enum Kind {
+        GAV, PROPERTY
+    }
+
+    /**
+     * Edit which actually changed the pom
+     */
+    public record Change(Path pom, Kind kind, String name, String from, String to) {
+        @Override
+        public String toString() {
+            return "%s %s [%s -> %s] in %s".formatted(kind, name, from, to, pom);
+        }
+    }
+
+    final Map<GA, String> versions = new LinkedHashMap<>();
+    final Map<String, String> properties = new LinkedHashMap<>();
+
+    public PomPatch version(GA ga, String version) {
+        versions.put(ga, version);
+        return this;
+    }
+
+    public PomPatch property(String name, String value) {
+        properties.put(name, value);
+        return this;
+    }
+
+    public Map<GA, String> getVersions() {
+        return Collections.unmodifiableMap(versions);
+    }
+
+    public Map<String, String> getProperties() {
+        return Collections.unmodifiableMap(properties);
+    }
+
+    public boolean isEmpty() {
+        return versions.isEmpty() && properties.isEmpty();
+    }
+}
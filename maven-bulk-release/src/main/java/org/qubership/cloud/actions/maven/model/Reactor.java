@@ -0,0 +1,144 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Profile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Snapshot of the poms found under a directory, linked to their parents from the same directory and ordered starting
+ * with the leaf poms. Discovery skips VCS and build output directories, also picks up poms declared as modules under
+ * a name other than pom.xml and parses the files in parallel.
+ */
+public final class Reactor {
+
+    static final String POM_FILE_NAME = "pom.xml";
+    static final Set<String> skippedDirs = Set.of(".git", ".svn", ".hg", ".idea", "node_modules", "target");
+
+    final Path rootDir;
+    final List<PomHolder> poms;
+
+    Reactor(Path rootDir, List<PomHolder> poms) {
+        this.rootDir = rootDir;
+        this.poms = poms;
+    }
+
+    /**
+     * @return true for pom.xml and for poms with a custom file name, which are referenced as modules
+     */
+    public static boolean isPom(String fileName) {
+        return fileName.equals(POM_FILE_NAME) || (fileName.endsWith(".xml") && fileName.contains("pom"));
+    }
+
+    public static Reactor discover(Path directory) {
+        Path rootDir = directory.normalize();
+        Map<Path, PomHolder> parsed = new LinkedHashMap<>();
+        Collection<Path> toParse = pomFiles(rootDir);
+        while (!toParse.isEmpty()) {
+            parse(toParse).forEach(pom -> parsed.put(pom.getPath(), pom));
+            // modules with a custom pom file name are not found by the walk
+            toParse = parsed.values().stream()
+                    .flatMap(pom -> modulePaths(pom).stream())
+                    .filter(path -> !parsed.containsKey(path) && Files.isRegularFile(path))
+                    .distinct()
+                    .toList();
+        }
+        return new Reactor(rootDir, link(List.copyOf(parsed.values())));
+    }
+
+    /**
+     * @return the pom.xml files under the directory, sorted for a stable order regardless of the file system
+     */
+    static Set<Path> pomFiles(Path rootDir) {
+        Set<Path> pomPaths = new TreeSet<>();
+        try {
+            Files.walkFileTree(rootDir, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (!dir.equals(rootDir) && skippedDirs.contains(dir.getFileName().toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (POM_FILE_NAME.equals(file.getFileName().toString())) {
+                        pomPaths.add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pomPaths;
+    }
+
+    static List<PomHolder> parse(Collection<Path> paths) {
+        return paths.parallelStream().map(path -> {
+            try {
+                return PomHolder.parsePom(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).toList();
+    }
+
+    static List<Path> modulePaths(PomHolder pom) {
+        Model model = pom.getModel();
+        Path dir = pom.getPath().getParent();
+        return Stream.concat(model.getModules().stream(), model.getProfiles().stream().map(Profile::getModules).flatMap(List::stream))
+                .map(module -> dir.resolve(module).normalize())
+                .map(path -> Files.isDirectory(path) ? path.resolve(POM_FILE_NAME) : path)
+                .toList();
+    }
+
+    static List<PomHolder> link(List<PomHolder> poms) {
+        Map<GA, PomHolder> byGA = new HashMap<>();
+        poms.forEach(pom -> byGA.putIfAbsent(new GA(pom.getGroupId(), pom.getArtifactId()), pom));
+        for (PomHolder pom : poms) {
+            Parent parent = pom.getModel().getParent();
+            if (parent == null) continue;
+            PomHolder parentPom = byGA.get(new GA(parent.getGroupId(), parent.getArtifactId()));
+            if (parentPom != null && parentPom != pom) pom.setParent(parentPom);
+        }
+        Map<PomHolder, Integer> depths = new IdentityHashMap<>();
+        poms.forEach(pom -> depths.put(pom, pom.getParentsFlatList().size()));
+        // start with leaf poms
+        return poms.stream()
+                .sorted(Comparator.<PomHolder>comparingInt(depths::get).reversed())
+                .toList();
+    }
+
+    /**
+     * @return a reactor of copies of the poms linked to each other, which can be patched without changing this one
+     */
+    Reactor copy() {
+        return new Reactor(rootDir, link(poms.stream().map(PomHolder::copy).toList()));
+    }
+
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    public List<PomHolder> getPoms() {
+        return poms;
+    }
+
+    public Optional<PomHolder> getRootPom() {
+        Path rootPomPath = rootDir.resolve(POM_FILE_NAME);
+        return poms.stream().filter(pom -> pom.getPath().equals(rootPomPath)).findFirst();
+    }
+}
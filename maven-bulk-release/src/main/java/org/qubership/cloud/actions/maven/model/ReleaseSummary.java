@@ -21,6 +21,7 @@ public class ReleaseSummary {
                     String urlName = r.getRepository().getUrl();
                     urlName += " [branch: %s, folder: %s]"
                             .formatted(r.getRepository().getBranch(), r.getRepository().getPomFolder());
+                    if (r.isReused()) urlName += " [unchanged]";
                     String link = String.format("[%s](%s)", urlName, tagUrl);
                     return String.format(repositoryPart, link, gavs);
                 }).toList());
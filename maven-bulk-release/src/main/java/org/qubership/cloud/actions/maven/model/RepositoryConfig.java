@@ -13,7 +13,7 @@ import java.util.stream.Collectors;
 
 @Data
 public class RepositoryConfig {
-    public static Pattern pattern = Pattern.compile("^(?<url>https://[^/]+/(?<dir>[^\\[]+))(\\[(?<params>.*)])?$");
+    public static Pattern pattern = Pattern.compile("^(?<url>https://[^/]+/(?<dir>[^\\[|]+))(\\[(?<params>.*)])?$");
 
     final String url;
     final String dir;
@@ -47,6 +47,18 @@ public class RepositoryConfig {
         this.params = params;
     }
 
+    /**
+     * @return the key of a repository and its pom folder, shared by everything stored or looked up per repository. It is
+     * unambiguous, because the url cannot contain '|'.
+     */
+    public static String key(String url, String pomFolder) {
+        return url + "|" + Optional.ofNullable(pomFolder).orElse("");
+    }
+
+    public String key() {
+        return key(url, pomFolder);
+    }
+
     public static RepositoryConfigBuilder builder(String url) {
         return new RepositoryConfigBuilder().url(url);
     }
@@ -1,5 +1,6 @@
 package org.qubership.cloud.actions.maven.model;
 
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -35,11 +37,23 @@ public class RepositoryInfo extends RepositoryConfig {
     Set<GAV> modules = new HashSet<>();
     Set<GAV> moduleDependencies = new HashSet<>();
     Map<GA, Set<GAV>> perModuleDependencies = new HashMap<>();
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    RepositorySnapshot snapshot;
+    // forks 'mvn help:effective-pom' for the poms the in-process builder cannot resolve, null for an ungoverned FORK
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    MavenConfig mavenConfig;
 
     public RepositoryInfo(RepositoryConfig repositoryConfig, String baseDir) {
+        this(repositoryConfig, baseDir, (MavenConfig) null);
+    }
+
+    public RepositoryInfo(RepositoryConfig repositoryConfig, String baseDir, MavenConfig mavenConfig) {
         super(repositoryConfig.getUrl(), repositoryConfig.getBranch(), repositoryConfig.getPomFolder(), repositoryConfig.isSkipTests(),
                 repositoryConfig.getVersion(), repositoryConfig.getVersionIncrementType(), repositoryConfig.getParams());
         this.baseDir = baseDir;
+        this.mavenConfig = mavenConfig;
         try {
             Path repositoryDirPath = Paths.get(baseDir, getDir());
             Path repositoryPomPath = Paths.get(baseDir, getDir(), getPomFolder());
@@ -55,12 +69,70 @@ public class RepositoryInfo extends RepositoryConfig {
                     git.checkout().setName("origin/" + branch).call();
                 }
             }
-            this.resolveDependencies();
+            Optional<String> head = RepositorySnapshot.committedHead(repositoryDirPath, getPomFolder());
+            DependencyGraphCache graphCache = DependencyGraphCache.forDirectory(Path.of(baseDir, DependencyGraphCache.DIR_NAME));
+            Optional<DependencyGraphCache.Entry> cached = head.flatMap(commit -> graphCache.get(getUrl(), getPomFolder(), commit));
+            if (cached.isPresent()) {
+                // the poms are parsed on demand by snapshot()
+                log.info("Restored modules and dependencies of {} from commit {}", this, head.get());
+                restore(cached.get());
+            } else {
+                RepositorySnapshot snapshot = this.snapshot();
+                if (head.isPresent() && snapshot.isCacheable()) {
+                    graphCache.put(getUrl(), getPomFolder(), head.get(), baseModule, modules, perModuleDependencies);
+                }
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    RepositoryInfo(RepositoryConfig repositoryConfig, String baseDir, DependencyGraphCache.Entry entry) {
+        super(repositoryConfig.getUrl(), repositoryConfig.getBranch(), repositoryConfig.getPomFolder(), repositoryConfig.isSkipTests(),
+                repositoryConfig.getVersion(), repositoryConfig.getVersionIncrementType(), repositoryConfig.getParams());
+        this.baseDir = baseDir;
+        restore(entry);
+    }
+
+    /**
+     * Links a repository from the dependency graph cache without checking it out. Such a repository can only be used to
+     * resolve the dependency graph, everything requiring its working tree needs a checked out one.
+     */
+    public static RepositoryInfo fromCache(RepositoryConfig repositoryConfig, String baseDir, DependencyGraphCache.Entry entry) {
+        return new RepositoryInfo(repositoryConfig, baseDir, entry);
+    }
+
+    void restore(DependencyGraphCache.Entry entry) {
+        this.baseModule = entry.baseModuleGAV();
+        this.modules = entry.moduleGAVs();
+        this.moduleDependencies = new HashSet<>();
+        this.perModuleDependencies = entry.perModuleDependencyGAVs();
+        this.perModuleDependencies.values().forEach(this.moduleDependencies::addAll);
+    }
+
+    /**
+     * @return the state derived from the poms of the repository, parsed on the first call and replaced by
+     * {@link #updateDepVersions} only, so poms changed by other processes are not seen
+     */
+    public synchronized RepositorySnapshot snapshot() {
+        if (snapshot == null) {
+            use(resolveDependencies(Reactor.discover(Path.of(getBaseDir(), getDir(), getPomFolder()))));
+        }
+        return snapshot;
+    }
+
+    synchronized void use(RepositorySnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.baseModule = snapshot.getBaseModule();
+        this.modules = snapshot.getModules();
+        this.moduleDependencies = snapshot.getModuleDependencies();
+        this.perModuleDependencies = snapshot.getPerModuleDependencies();
+    }
+
+    public Reactor reactor() {
+        return snapshot().getReactor();
+    }
+
     public record UrlAndPomFolder(String url, String pomFolder) {
     }
 
@@ -75,7 +147,24 @@ public class RepositoryInfo extends RepositoryConfig {
         return new UrlAndPomFolder(url, pomFolder);
     }
 
+    /**
+     * The version is derived from the modules, so a repository linked from the cache, or not parsed yet, is not parsed
+     * for it
+     */
     public VersionTag calculateReleaseVersion(VersionIncrementType versionIncrementType) throws Exception {
+        RepositorySnapshot snapshot;
+        Set<GAV> modules;
+        GAV baseModule;
+        synchronized (this) {
+            snapshot = this.snapshot;
+            modules = this.modules;
+            baseModule = this.baseModule;
+        }
+        return snapshot == null ? releaseVersion(versionIncrementType, modules, baseModule)
+                : snapshot.releaseVersion(versionIncrementType, type -> releaseVersion(type, snapshot.getModules(), snapshot.getBaseModule()));
+    }
+
+    VersionTag releaseVersion(VersionIncrementType versionIncrementType, Set<GAV> modules, GAV baseModule) {
 //        Path releasePropsPath = Path.of(getBaseDir(), getDir(), getPomFolder(), "release.properties");
 //        if (Files.exists(releasePropsPath)) {
 //            String content = Files.readString(releasePropsPath);
@@ -95,8 +184,7 @@ public class RepositoryInfo extends RepositoryConfig {
 //                return versions.iterator().next();
 //            }
 //        }
-        List<PomHolder> poms = PomHolder.parsePoms(Path.of(getBaseDir(), getDir(), getPomFolder()));
-        Set<String> pomVersions = poms.stream().map(PomHolder::getVersion).collect(Collectors.toSet());
+        Set<String> pomVersions = modules.stream().map(GAV::getVersion).collect(Collectors.toSet());
         if (pomVersions.size() != 1) {
             throw new IllegalArgumentException(String.format("pom.xml files from repository: %s have different versions: %s",
                     this.getUrl(), String.join(",", pomVersions)));
@@ -134,7 +222,11 @@ public class RepositoryInfo extends RepositoryConfig {
     }
 
     public String calculateJavaVersion() {
-        List<PomHolder> poms = PomHolder.parsePoms(Path.of(getBaseDir(), getDir(), getPomFolder()));
+        return snapshot().javaVersion(this::javaVersion);
+    }
+
+    String javaVersion() {
+        List<PomHolder> poms = reactor().getPoms();
         Set<String> propsToSearch = Set.of("maven.compiler.source", "maven.compiler.target", "maven.compiler.release", "java.version");
         // first search among plugins in poms
         Optional<String> versionFromPlugin = poms.stream().map(ph -> {
@@ -191,22 +283,25 @@ public class RepositoryInfo extends RepositoryConfig {
         return props.getOrDefault("release", props.getOrDefault("target", props.get("source")));
     }
 
-    void resolveDependencies() {
-        Path basePomFolderPath = Path.of(getBaseDir(), getDir(), getPomFolder());
-        List<PomHolder> poms = PomHolder.parsePoms(basePomFolderPath);
-        this.modules.clear();
-        this.moduleDependencies.clear();
+    RepositorySnapshot resolveDependencies(Reactor reactor) {
+        List<PomHolder> poms = reactor.getPoms();
+        GAV baseModule = reactor.getRootPom().map(base -> new GAV(base.getGroupId(), base.getArtifactId(), base.getVersion())).orElse(null);
+        Set<GAV> modules = new HashSet<>();
+        // filled by parallel workers
+        Set<GAV> moduleDependencies = ConcurrentHashMap.newKeySet();
+        Map<GA, Set<GAV>> perModuleDependencies = new HashMap<>();
+        boolean cacheable;
         try {
-            if (Files.exists(basePomFolderPath.resolve("pom.xml"))) {
-                PomHolder base = PomHolder.parsePom(basePomFolderPath.resolve("pom.xml"));
-                baseModule = new GAV(base.getGroupId(), base.getArtifactId(), base.getVersion());
-            }
             for (PomHolder pomHolder : poms) {
                 GAV moduleGAV = new GAV(pomHolder.getGroupId(), pomHolder.getArtifactId(), pomHolder.getVersion());
-                this.modules.add(moduleGAV);
-                this.perModuleDependencies.put(moduleGAV.toGA(), new HashSet<>());
+                modules.add(moduleGAV);
+                perModuleDependencies.put(moduleGAV.toGA(), ConcurrentHashMap.newKeySet());
             }
-            try (ForkJoinPool pool = new ForkJoinPool(8)) {
+            EffectivePomCache effectivePoms = EffectivePomCache.forDirectory(Path.of(getBaseDir(), EffectivePomCache.DIR_NAME));
+            cacheable = poms.stream().allMatch(pom -> effectivePoms.key(pom).isPresent());
+            MavenExecutor mavenExecutor = mavenConfig == null ? MavenExecutorType.FORK.instance() : mavenConfig.getMavenExecutor();
+            // the workers may fork maven for an effective pom, which is admitted by the resource governor if any
+            try (ForkJoinPool pool = new ForkJoinPool(mavenConfig == null ? 8 : mavenConfig.parallelism(8))) {
                 AtomicInteger counter = new AtomicInteger();
                 pool.submit(() -> poms.stream().parallel().forEach(pomHolder -> {
                     Model project = pomHolder.getModel();
@@ -214,8 +309,8 @@ public class RepositoryInfo extends RepositoryConfig {
                     Parent parent = project.getParent();
                     if (parent != null && !Objects.equals(parent.getGroupId(), pomHolder.getGroupId())) {
                         GAV parentGAV = new GAV(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
-                        this.moduleDependencies.add(parentGAV);
-                        this.perModuleDependencies.get(projectGA).add(parentGAV);
+                        moduleDependencies.add(parentGAV);
+                        perModuleDependencies.get(projectGA).add(parentGAV);
                     }
                     List<GAV> dependenciesNodes = Stream.concat(
                                     Optional.ofNullable(project.getDependencies()).orElse(List.of()).stream(),
@@ -246,13 +341,22 @@ public class RepositoryInfo extends RepositoryConfig {
                             })
                             .toList();
                     // need to get dependencies from management section from effective-pom.xml because those dependencies do not contain versions in plain pom.xml
-                    AtomicReference<PomHolder> effectivePomCache = new AtomicReference<>();
-                    Supplier<PomHolder> effectivePom = () -> {
+                    AtomicReference<Model> effectivePomCache = new AtomicReference<>();
+                    Supplier<Model> effectivePom = () -> {
                         if (effectivePomCache.get() == null) {
-                            effectivePomCache.set(effectivePom(pomHolder));
+                            effectivePomCache.set(effectivePoms.get(pomHolder, pom -> effectivePom(pom, EffectivePomBuilder.defaultInstance(), mavenExecutor)));
                         }
                         return effectivePomCache.get();
                     };
+                    // maven has the final say on a dependency version the in-process model has not resolved
+                    AtomicReference<Model> forkedEffectivePomCache = new AtomicReference<>();
+                    Supplier<Model> forkedEffectivePom = () -> {
+                        if (forkedEffectivePomCache.get() == null) {
+                            log.info("Falling back to 'mvn help:effective-pom' for: {}. Reason: unresolved dependency versions", pomHolder.getPath());
+                            forkedEffectivePomCache.set(forkedEffectivePom(pomHolder, mavenExecutor).getModel());
+                        }
+                        return forkedEffectivePomCache.get();
+                    };
                     List<GAV> allDependenciesNodes = Stream.concat(dependenciesNodes.stream(), pluginsDependenciesNodes.stream()).toList();
 
                     for (GAV dependency : allDependenciesNodes) {
@@ -260,16 +364,15 @@ public class RepositoryInfo extends RepositoryConfig {
                         String artifactId = pomHolder.autoResolvePropReference(dependency.getArtifactId());
                         String version = pomHolder.autoResolvePropReference(dependency.getVersion());
                         if (version == null) {
-                            version = effectivePom.get().getModel().getDependencies().stream()
-                                    .filter(d -> Objects.equals(groupId, d.getGroupId()) && Objects.equals(artifactId, d.getArtifactId()))
-                                    .findFirst()
-                                    .map(Dependency::getVersion)
-                                    .orElse(null);
+                            version = dependencyVersion(effectivePom.get(), groupId, artifactId);
+                        }
+                        if (version == null && dependenciesNodes.contains(dependency)) {
+                            version = dependencyVersion(forkedEffectivePom.get(), groupId, artifactId);
                         }
                         if (Stream.of(groupId, artifactId, version).allMatch(Objects::nonNull)) {
                             GAV dependencyGAV = new GAV(groupId, artifactId, version);
-                            this.moduleDependencies.add(dependencyGAV);
-                            this.perModuleDependencies.get(projectGA).add(dependencyGAV);
+                            moduleDependencies.add(dependencyGAV);
+                            perModuleDependencies.get(projectGA).add(dependencyGAV);
                         }
                     }
                     synchronized (counter) {
@@ -280,21 +383,50 @@ public class RepositoryInfo extends RepositoryConfig {
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+        return new RepositorySnapshot(reactor, baseModule, modules, moduleDependencies, perModuleDependencies, cacheable);
+    }
+
+    static String dependencyVersion(Model effectivePom, String groupId, String artifactId) {
+        return effectivePom.getDependencies().stream()
+                .filter(d -> Objects.equals(groupId, d.getGroupId()) && Objects.equals(artifactId, d.getArtifactId()))
+                .findFirst()
+                .map(Dependency::getVersion)
+                .orElse(null);
+    }
+
+    public static Model effectivePom(PomHolder pom) {
+        return effectivePom(pom, EffectivePomBuilder.defaultInstance());
+    }
+
+    /**
+     * Builds the effective model in-process. Only if some of the parent or imported poms are not available
+     * in the local repository yet, maven is forked to download them and to build the effective pom.
+     */
+    public static Model effectivePom(PomHolder pom, EffectivePomBuilder builder) {
+        return effectivePom(pom, builder, MavenExecutorType.FORK.instance());
+    }
+
+    public static Model effectivePom(PomHolder pom, EffectivePomBuilder builder, MavenExecutor executor) {
+        try {
+            return builder.build(pom);
+        } catch (EffectivePomBuilder.UnresolvableModelException e) {
+            log.info("Falling back to 'mvn help:effective-pom' for: {}. Reason: {}", pom.getPath(), e.getMessage());
+            return forkedEffectivePom(pom, executor).getModel();
+        }
     }
 
-    public static PomHolder effectivePom(PomHolder pom) {
+    /**
+     * @return the effective pom as built by 'mvn help:effective-pom', with the active profiles and the plugins of the
+     * default lifecycle
+     */
+    public static PomHolder forkedEffectivePom(PomHolder pom, MavenExecutor executor) {
         try {
             Path parentPath = pom.getPath().getParent();
             Path effectivePomPath = Path.of(parentPath.toString(), "effective-pom.xml");
             List<String> cmd = List.of("mvn", "-B", "-N", "-f", pom.getPath().getFileName().toString(), "help:effective-pom",
                     "-Doutput=" + effectivePomPath
             );
-            ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(parentPath.toFile());
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            process.getInputStream().transferTo(System.out);
-            process.waitFor();
-            if (process.exitValue() != 0) {
+            if (executor.execute(parentPath, cmd, null, Map.of(), System.out) != 0) {
                 throw new RuntimeException("Failed to execute cmd: %s".formatted(String.join(" ", cmd)));
             }
             return PomHolder.parsePom(effectivePomPath);
@@ -303,7 +435,14 @@ public class RepositoryInfo extends RepositoryConfig {
         }
     }
 
-    public void updateDepVersions(Collection<GAV> dependencies) {
+    /**
+     * Updates versions of the given dependencies in all poms of the repository, each changed pom is rewritten once.
+     * The edits are applied to copies of the poms, whose snapshot replaces the current one.
+     *
+     * @return the edits which actually changed the poms
+     */
+    public List<PomPatch.Change> updateDepVersions(Collection<GAV> dependencies) {
+        Map<PomHolder, PomPatch> patches = new IdentityHashMap<>();
         Map<String, List<GAV>> propertiesToDependencies = new HashMap<>();
         Map<String, Set<PomHolder>> propertiesToPoms = new HashMap<>();
         BiConsumer<PomHolder, GAV> gavFunction = (holder, gav) -> {
@@ -330,12 +469,13 @@ public class RepositoryInfo extends RepositoryConfig {
                     List<GAV> dependenciesList = propertiesToDependencies.computeIfAbsent(propertyName, k -> new ArrayList<>());
                     if (!dependenciesList.contains(newGav)) dependenciesList.add(newGav);
                 } else {
-                    // update a hard-coded version right away
-                    holder.updateVersionInGAV(newGav);
+                    // a hard-coded version is patched in place
+                    patches.computeIfAbsent(holder, h -> new PomPatch()).version(newGav.toGA(), newGav.getVersion());
                 }
             }
         };
-        List<PomHolder> poms = PomHolder.parsePoms(Path.of(getBaseDir(), getDir(), getPomFolder()));
+        Reactor reactor = reactor().copy();
+        List<PomHolder> poms = reactor.getPoms();
         poms.forEach(ph -> {
             ph.getGAVs().forEach(gav -> gavFunction.accept(ph, gav));
             ph.getProperties().forEach((propertyName, propertyValue) -> {
@@ -356,17 +496,22 @@ public class RepositoryInfo extends RepositoryConfig {
                 }
                 String version = versionToGavs.keySet().iterator().next();
                 // update property value
-                propertyNodes.forEach(pom -> pom.updateProperty(propertyName, version));
+                propertyNodes.forEach(pom -> patches.computeIfAbsent(pom, h -> new PomPatch()).property(propertyName, version));
             });
         }
-        poms.forEach(pom -> {
+        List<PomPatch.Change> changes = new ArrayList<>();
+        poms.stream().filter(patches::containsKey).forEach(pom -> {
+            List<PomPatch.Change> pomChanges = pom.apply(patches.get(pom));
+            if (pomChanges.isEmpty()) return;
+            changes.addAll(pomChanges);
             try {
                 Files.writeString(pom.getPath(), pom.getPom(), StandardOpenOption.TRUNCATE_EXISTING);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
         });
-        this.resolveDependencies();
+        if (!changes.isEmpty()) use(resolveDependencies(reactor));
+        return changes;
     }
 
     @Override
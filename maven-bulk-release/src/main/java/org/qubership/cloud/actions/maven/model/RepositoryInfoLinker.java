@@ -2,40 +2,290 @@ package org.qubership.cloud.actions.maven.model;
 
 import java.util.*;
 
+/**
+ * Dependency graph of repositories, indexed once on creation: repositories get dense ids, module GAs are mapped to the
+ * repositories producing them and the direct links are stored as adjacency bitsets. Transitive links are computed lazily
+ * as bitsets over repository ids and memoized, so repeated queries over shared subgraphs cost no more than a lookup.
+ */
 public class RepositoryInfoLinker {
 
-    final Collection<RepositoryInfo> repositories;
+    final List<RepositoryInfo> repositories;
+    final Map<RepositoryInfo, Integer> ids = new IdentityHashMap<>();
+    final Map<String, Integer> idsByUrlAndPomFolder = new HashMap<>();
+    // inverted index: module GA -> ids of the repositories producing it
+    final Map<GA, BitSet> producers = new HashMap<>();
+    // repositories used by / using the repository with the given id
+    final BitSet[] upstreams;
+    final BitSet[] downstreams;
+    final BitSet[] upstreamClosures;
+    final BitSet[] downstreamClosures;
 
     public RepositoryInfoLinker(Collection<RepositoryInfo> repositories) {
-        this.repositories = repositories;
+        this.repositories = List.copyOf(repositories);
+        int size = this.repositories.size();
+        for (int i = 0; i < size; i++) {
+            RepositoryInfo repository = this.repositories.get(i);
+            ids.putIfAbsent(repository, i);
+            idsByUrlAndPomFolder.putIfAbsent(repository.key(), i);
+            for (GAV module : repository.getModules()) {
+                producers.computeIfAbsent(module.toGA(), ga -> new BitSet(size)).set(i);
+            }
+        }
+        upstreams = new BitSet[size];
+        downstreams = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            downstreams[i] = new BitSet(size);
+        }
+        for (int i = 0; i < size; i++) {
+            upstreams[i] = usedBy(this.repositories.get(i));
+            for (int j = upstreams[i].nextSetBit(0); j >= 0; j = upstreams[i].nextSetBit(j + 1)) {
+                downstreams[j].set(i);
+            }
+        }
+        upstreamClosures = new BitSet[size];
+        downstreamClosures = new BitSet[size];
+    }
+
+    BitSet usedBy(RepositoryInfo repository) {
+        BitSet result = new BitSet(repositories.size());
+        for (GAV dependency : repository.getModuleDependencies()) {
+            BitSet found = producers.get(dependency.toGA());
+            if (found != null) result.or(found);
+        }
+        excludeSelf(result, repository);
+        return result;
+    }
+
+    BitSet using(RepositoryInfo repository) {
+        BitSet result = new BitSet(repositories.size());
+        Set<GA> modules = new HashSet<>();
+        repository.getModules().forEach(module -> modules.add(module.toGA()));
+        for (int i = 0; i < repositories.size(); i++) {
+            if (repositories.get(i).getModuleDependencies().stream().map(GAV::toGA).anyMatch(modules::contains)) {
+                result.set(i);
+            }
+        }
+        excludeSelf(result, repository);
+        return result;
+    }
+
+    void excludeSelf(BitSet result, RepositoryInfo repository) {
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            RepositoryInfo r = repositories.get(i);
+            if (Objects.equals(r.getUrl(), repository.getUrl()) && Objects.equals(r.getPomFolder(), repository.getPomFolder())) {
+                result.clear(i);
+            }
+        }
+    }
+
+    public List<RepositoryInfo> getRepositories() {
+        return repositories;
     }
 
     public List<RepositoryInfo> getRepositoriesUsedByThis(RepositoryInfo thisRepository) {
-        return this.repositories.stream()
-                .filter(r ->
-                        !Objects.equals(r.getUrl(), thisRepository.getUrl()) ||
-                        !Objects.equals(r.getPomFolder(), thisRepository.getPomFolder()))
-                .filter(r ->
-                        r.getModules().stream().map(GAV::toGA).anyMatch(module ->
-                                thisRepository.getModuleDependencies().stream().map(GAV::toGA).anyMatch(module::equals)))
-                .toList();
+        Integer id = ids.get(thisRepository);
+        return toList(id != null ? upstreams[id] : usedBy(thisRepository));
     }
 
     public List<RepositoryInfo> getRepositoriesUsingThis(RepositoryInfo thisRepository) {
-        return this.repositories.stream()
-                .filter(r ->
-                        !Objects.equals(r.getUrl(), thisRepository.getUrl()) ||
-                        !Objects.equals(r.getPomFolder(), thisRepository.getPomFolder()))
-                .filter(r ->
-                        r.getModuleDependencies().stream().map(GAV::toGA).anyMatch(module ->
-                                thisRepository.getModules().stream().map(GAV::toGA).anyMatch(module::equals)))
-                .toList();
+        Integer id = ids.get(thisRepository);
+        return toList(id != null ? downstreams[id] : using(thisRepository));
     }
 
     public Set<RepositoryInfo> getRepositoriesUsedByThisFlatSet(RepositoryInfo thisRepository) {
-        List<RepositoryInfo> repositoryList = getRepositoriesUsedByThis(thisRepository);
-        Set<RepositoryInfo> result = new HashSet<>(repositoryList);
-        repositoryList.forEach(ri -> result.addAll(this.getRepositoriesUsedByThisFlatSet(ri)));
+        Integer id = ids.get(thisRepository);
+        if (id != null) return new RepositorySet(upstreamClosure(id));
+        BitSet result = new BitSet(repositories.size());
+        BitSet direct = usedBy(thisRepository);
+        result.or(direct);
+        for (int i = direct.nextSetBit(0); i >= 0; i = direct.nextSetBit(i + 1)) {
+            result.or(upstreamClosure(i));
+        }
+        return new RepositorySet(result);
+    }
+
+    public Set<RepositoryInfo> getRepositoriesUsingThisFlatSet(RepositoryInfo thisRepository) {
+        Integer id = ids.get(thisRepository);
+        if (id != null) return new RepositorySet(downstreamClosure(id));
+        BitSet result = new BitSet(repositories.size());
+        BitSet direct = using(thisRepository);
+        result.or(direct);
+        for (int i = direct.nextSetBit(0); i >= 0; i = direct.nextSetBit(i + 1)) {
+            result.or(downstreamClosure(i));
+        }
+        return new RepositorySet(result);
+    }
+
+    /**
+     * @return the linked repositories matching the given ones by url and pomFolder
+     */
+    public List<RepositoryInfo> find(Collection<? extends RepositoryConfig> repositoryConfigs) {
+        BitSet result = new BitSet(repositories.size());
+        repositoryConfigs.forEach(rc -> Optional.ofNullable(idsByUrlAndPomFolder.get(rc.key())).ifPresent(result::set));
+        return toList(result);
+    }
+
+    /**
+     * Groups the given repositories by levels with an in-degree based topological sort over the direct links: a repository
+     * is placed on the level following the highest level of the repositories it uses. Only links between the given
+     * repositories are taken into account, so the subset must contain every repository on a path between its members
+     * (which is the case for the whole graph and for the repositories affected by a partial release).
+     *
+     * @throws IllegalStateException describing the repositories and GAVs which form a dependency cycle
+     */
+    public Map<Integer, List<RepositoryInfo>> levels(Collection<RepositoryInfo> subset) {
+        BitSet members = new BitSet(repositories.size());
+        subset.forEach(ri -> members.set(Objects.requireNonNull(ids.get(ri), () -> "Unknown repository: " + ri.getUrl())));
+        int[] pending = new int[repositories.size()];
+        int[] level = new int[repositories.size()];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = members.nextSetBit(0); i >= 0; i = members.nextSetBit(i + 1)) {
+            BitSet used = (BitSet) upstreams[i].clone();
+            used.and(members);
+            pending[i] = used.cardinality();
+            if (pending[i] == 0) ready.add(i);
+        }
+        int leveled = 0;
+        while (!ready.isEmpty()) {
+            int i = ready.poll();
+            leveled++;
+            for (int j = downstreams[i].nextSetBit(0); j >= 0; j = downstreams[i].nextSetBit(j + 1)) {
+                if (!members.get(j)) continue;
+                level[j] = Math.max(level[j], level[i] + 1);
+                if (--pending[j] == 0) ready.add(j);
+            }
+        }
+        if (leveled < members.cardinality()) {
+            BitSet blocked = new BitSet(repositories.size());
+            members.stream().filter(i -> pending[i] > 0).forEach(blocked::set);
+            throw new IllegalStateException("Failed to build dependency graph, dependency cycle detected:\n" + describeCycle(findCycle(blocked)));
+        }
+        Map<Integer, List<RepositoryInfo>> levels = new TreeMap<>();
+        levels.put(0, new ArrayList<>());
+        for (int i = members.nextSetBit(0); i >= 0; i = members.nextSetBit(i + 1)) {
+            levels.computeIfAbsent(level[i], l -> new ArrayList<>()).add(repositories.get(i));
+        }
+        return levels;
+    }
+
+    /**
+     * Every blocked repository is either on a cycle or uses one, so walking the upstream links among the blocked
+     * repositories inevitably returns to an already visited one.
+     *
+     * @return ids of the repositories forming the cycle, each one using the next one and the last one using the first one
+     */
+    List<Integer> findCycle(BitSet blocked) {
+        List<Integer> path = new ArrayList<>();
+        Map<Integer, Integer> positions = new HashMap<>();
+        int current = blocked.nextSetBit(0);
+        while (!positions.containsKey(current)) {
+            positions.put(current, path.size());
+            path.add(current);
+            BitSet next = (BitSet) upstreams[current].clone();
+            next.and(blocked);
+            current = next.nextSetBit(0);
+        }
+        return path.subList(positions.get(current), path.size());
+    }
+
+    String describeCycle(List<Integer> cycle) {
+        List<String> lines = new ArrayList<>();
+        for (int k = 0; k < cycle.size(); k++) {
+            RepositoryInfo from = repositories.get(cycle.get(k));
+            RepositoryInfo to = repositories.get(cycle.get((k + 1) % cycle.size()));
+            Set<GA> modules = new HashSet<>();
+            to.getModules().forEach(module -> modules.add(module.toGA()));
+            List<String> gavs = from.getModuleDependencies().stream()
+                    .filter(dependency -> modules.contains(dependency.toGA()))
+                    .map(GAV::toString)
+                    .sorted()
+                    .toList();
+            lines.add("%s [pom:%s] uses %s [pom:%s] via: %s".formatted(from.getUrl(), from.getPomFolder(),
+                    to.getUrl(), to.getPomFolder(), String.join(", ", gavs)));
+        }
+        return String.join("\n", lines);
+    }
+
+    synchronized BitSet upstreamClosure(int id) {
+        return closure(id, upstreams, upstreamClosures, new BitSet(repositories.size()));
+    }
+
+    synchronized BitSet downstreamClosure(int id) {
+        return closure(id, downstreams, downstreamClosures, new BitSet(repositories.size()));
+    }
+
+    /**
+     * Memoized transitive closure. Nodes of a dependency cycle are walked by a plain traversal, because their closures
+     * depend on each other; all the others are composed from the closures of their direct links.
+     *
+     * @return the closure or null if the node is already being computed, i.e. it is a part of a cycle
+     */
+    BitSet closure(int id, BitSet[] links, BitSet[] closures, BitSet inProgress) {
+        if (closures[id] != null) return closures[id];
+        if (inProgress.get(id)) return null;
+        inProgress.set(id);
+        BitSet result = new BitSet(repositories.size());
+        boolean cyclic = false;
+        for (int i = links[id].nextSetBit(0); i >= 0; i = links[id].nextSetBit(i + 1)) {
+            result.set(i);
+            BitSet linkClosure = closure(i, links, closures, inProgress);
+            if (linkClosure == null) {
+                cyclic = true;
+            } else {
+                result.or(linkClosure);
+            }
+        }
+        inProgress.clear(id);
+        if (cyclic) {
+            result = traverse(id, links);
+        }
+        closures[id] = result;
+        return result;
+    }
+
+    BitSet traverse(int id, BitSet[] links) {
+        BitSet result = new BitSet(repositories.size());
+        Deque<Integer> stack = new ArrayDeque<>(List.of(id));
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            for (int i = links[current].nextSetBit(0); i >= 0; i = links[current].nextSetBit(i + 1)) {
+                if (!result.get(i)) {
+                    result.set(i);
+                    stack.push(i);
+                }
+            }
+        }
         return result;
     }
+
+    List<RepositoryInfo> toList(BitSet bits) {
+        return bits.stream().mapToObj(repositories::get).toList();
+    }
+
+    /**
+     * Read-only view of a bitset of repository ids, iterated in the order of the linked repositories.
+     */
+    class RepositorySet extends AbstractSet<RepositoryInfo> {
+        final BitSet bits;
+
+        RepositorySet(BitSet bits) {
+            this.bits = bits;
+        }
+
+        @Override
+        public Iterator<RepositoryInfo> iterator() {
+            return bits.stream().mapToObj(repositories::get).iterator();
+        }
+
+        @Override
+        public int size() {
+            return bits.cardinality();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            Integer id = o instanceof RepositoryInfo ri ? ids.get(ri) : null;
+            return id != null ? bits.get(id) : super.contains(o);
+        }
+    }
 }
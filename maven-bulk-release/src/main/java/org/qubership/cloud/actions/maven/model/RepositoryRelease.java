@@ -2,7 +2,9 @@ package org.qubership.cloud.actions.maven.model;
 
 import lombok.Data;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @Data
 public class RepositoryRelease {
@@ -11,7 +13,13 @@ public class RepositoryRelease {
     List<GAV> gavs;
     List<GAV> devGavs;
     String javaVersion;
+    // how long the 'prepare' build ran, not counting the wait for resources before its process was started
+    Duration prepareDuration;
+    // sha256 of the files installed by 'prepare' by their path in the local repository, if they are deployed as is
+    Map<String, String> installedChecksums;
     boolean pushedToGit;
     boolean deployed;
+    // the latest release of a repository without changes since it, nothing was released for it
+    boolean reused;
     Exception exception;
 }
@@ -0,0 +1,115 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Everything derived from the poms of a repository: the parsed reactor, the modules and their dependencies, the java
+ * version and the release versions. A snapshot is never changed, {@link RepositoryInfo#updateDepVersions} patches
+ * copies of its poms and replaces it with the snapshot of the copies, so it is only recomputed after a write.
+ */
+public final class RepositorySnapshot {
+
+    final Reactor reactor;
+    final GAV baseModule;
+    final Set<GAV> modules;
+    final Set<GAV> moduleDependencies;
+    final Map<GA, Set<GAV>> perModuleDependencies;
+    // false if resolution depends on SNAPSHOT parents or boms outside of the repository
+    final boolean cacheable;
+    // derived on demand, but only from the poms of the reactor
+    volatile Optional<String> javaVersion;
+    final Map<VersionIncrementType, VersionTag> releaseVersions = new ConcurrentHashMap<>();
+
+    RepositorySnapshot(Reactor reactor, GAV baseModule, Set<GAV> modules, Set<GAV> moduleDependencies,
+                       Map<GA, Set<GAV>> perModuleDependencies, boolean cacheable) {
+        this.cacheable = cacheable;
+        this.reactor = reactor;
+        this.baseModule = baseModule;
+        this.modules = Collections.unmodifiableSet(modules);
+        this.moduleDependencies = Collections.unmodifiableSet(moduleDependencies);
+        Map<GA, Set<GAV>> perModule = new HashMap<>();
+        perModuleDependencies.forEach((ga, dependencies) -> perModule.put(ga, Collections.unmodifiableSet(dependencies)));
+        this.perModuleDependencies = Collections.unmodifiableMap(perModule);
+    }
+
+    /**
+     * Compares the poms committed in HEAD under the pom folder with the working tree, without a git status of all the
+     * other files. A new pom which is not committed yet is not noticed, but it is a module only if a committed pom
+     * referencing it has changed too.
+     *
+     * @return the HEAD commit id if the poms are as committed in it
+     */
+    public static Optional<String> committedHead(Path repositoryDir, String pomFolder) {
+        try (Git git = Git.open(repositoryDir.toFile());
+             RevWalk revWalk = new RevWalk(git.getRepository());
+             TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+            ObjectId head = git.getRepository().resolve(Constants.HEAD);
+            if (head == null) return Optional.empty();
+            treeWalk.addTree(revWalk.parseCommit(head).getTree());
+            treeWalk.setRecursive(true);
+            if (!pomFolder.isBlank()) treeWalk.setFilter(PathFilter.create(pomFolder));
+            ObjectInserter.Formatter formatter = new ObjectInserter.Formatter();
+            while (treeWalk.next()) {
+                if (!Reactor.isPom(treeWalk.getNameString())) continue;
+                Path file = repositoryDir.resolve(treeWalk.getPathString());
+                if (!Files.isRegularFile(file)
+                    || !formatter.idFor(Constants.OBJ_BLOB, Files.readAllBytes(file)).equals(treeWalk.getObjectId(0))) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(head.name());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compare poms with HEAD of: %s".formatted(repositoryDir), e);
+        }
+    }
+
+    public Reactor getReactor() {
+        return reactor;
+    }
+
+    public GAV getBaseModule() {
+        return baseModule;
+    }
+
+    public Set<GAV> getModules() {
+        return modules;
+    }
+
+    public Set<GAV> getModuleDependencies() {
+        return moduleDependencies;
+    }
+
+    public Map<GA, Set<GAV>> getPerModuleDependencies() {
+        return perModuleDependencies;
+    }
+
+    public boolean isCacheable() {
+        return cacheable;
+    }
+
+    String javaVersion(Supplier<String> calculate) {
+        Optional<String> result = javaVersion;
+        if (result == null) {
+            result = Optional.ofNullable(calculate.get());
+            javaVersion = result;
+        }
+        return result.orElse(null);
+    }
+
+    VersionTag releaseVersion(VersionIncrementType versionIncrementType, Function<VersionIncrementType, VersionTag> calculate) {
+        return releaseVersions.computeIfAbsent(versionIncrementType, calculate);
+    }
+}
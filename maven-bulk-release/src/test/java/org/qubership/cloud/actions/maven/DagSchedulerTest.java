@@ -0,0 +1,140 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DagSchedulerTest {
+
+    @Test
+    void dependentStartsAfterUpstreamCompletedAndNotBlockedBySlowSibling() throws Exception {
+        // a -> c, b (slow) is independent from c
+        Map<String, List<String>> upstreams = Map.of("a", List.of(), "b", List.of(), "c", List.of("a"));
+        Set<String> completed = ConcurrentHashMap.newKeySet();
+        CountDownLatch cFinished = new CountDownLatch(1);
+        List<String> results = new DagScheduler<>(List.of("a", "b", "c"), upstreams::get, 2)
+                .run(node -> {
+                    switch (node) {
+                        case "b" -> {
+                            try {
+                                // b must not hold back c which only depends on a
+                                Assertions.assertTrue(cFinished.await(10, TimeUnit.SECONDS));
+                            } catch (InterruptedException e) {
+                                throw new RuntimeException(e);
+                            }
+                        }
+                        case "c" -> {
+                            Assertions.assertTrue(completed.contains("a"));
+                            cFinished.countDown();
+                        }
+                        default -> {
+                        }
+                    }
+                    return node.toUpperCase();
+                }, (node, result) -> completed.add(node));
+        Assertions.assertEquals(List.of("A", "B", "C"), results);
+    }
+
+    @Test
+    void parallelismAndExclusiveKeysAreRespected() {
+        List<String> nodes = List.of("x/1", "x/2", "y/1", "z/1", "w/1");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<String> runningKeys = ConcurrentHashMap.newKeySet();
+        new DagScheduler<>(nodes, n -> List.<String>of(), 2)
+                .exclusiveBy(n -> n.split("/")[0])
+                .run(node -> {
+                    String key = node.split("/")[0];
+                    Assertions.assertTrue(runningKeys.add(key), "exclusive key is already running: " + key);
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(20);
+                    } catch (InterruptedException e) {
+                        throw new RuntimeException(e);
+                    }
+                    running.decrementAndGet();
+                    runningKeys.remove(key);
+                    return node;
+                }, (node, result) -> {
+                });
+        Assertions.assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    void criticalPathStartsFirst() {
+        // a -> b -> c is the longest chain, d and e are independent
+        Map<String, List<String>> upstreams = Map.of("a", List.of(), "b", List.of("a"), "c", List.of("b"), "d", List.of(), "e", List.of());
+        Map<String, Double> weights = Map.of("a", 1.0, "b", 1.0, "c", 5.0, "d", 3.0, "e", 2.0);
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        new DagScheduler<>(List.of("d", "e", "a", "b", "c"), upstreams::get, 1)
+                .prioritizeBy(weights::get)
+                .run(node -> {
+                    started.add(node);
+                    return node;
+                }, (node, result) -> {
+                });
+        Assertions.assertEquals(List.of("a", "b", "c", "d", "e"), started);
+
+        started.clear();
+        new DagScheduler<>(List.of("d", "e", "a", "b", "c"), upstreams::get, 1)
+                .run(node -> {
+                    started.add(node);
+                    return node;
+                }, (node, result) -> {
+                });
+        Assertions.assertEquals(List.of("d", "e", "a", "b", "c"), started);
+    }
+
+    @Test
+    void failsOnCycle() {
+        Map<String, List<String>> upstreams = Map.of("a", List.of("b"), "b", List.of("a"));
+        IllegalStateException ex = Assertions.assertThrows(IllegalStateException.class, () ->
+                new DagScheduler<>(List.of("a", "b"), upstreams::get, 1).run(n -> n, (n, r) -> {
+                }));
+        Assertions.assertTrue(ex.getMessage().contains("dependency cycle"));
+    }
+
+    @Test
+    void failureOfTaskIsPropagated() {
+        RuntimeException ex = Assertions.assertThrows(RuntimeException.class, () ->
+                new DagScheduler<>(List.of("a", "b"), n -> n.equals("b") ? List.of("a") : List.<String>of(), 1)
+                        .run(n -> {
+                            throw new IllegalArgumentException("boom " + n);
+                        }, (n, r) -> Assertions.fail("must not complete")));
+        Assertions.assertEquals("boom a", ex.getMessage());
+    }
+
+    @Test
+    void failureOfCompletionAwaitsRunningTasks() {
+        // a completes first, b is still running when the completion of a fails, c depends on a
+        CountDownLatch aCompleted = new CountDownLatch(1);
+        Set<String> finished = ConcurrentHashMap.newKeySet();
+        RuntimeException ex = Assertions.assertThrows(RuntimeException.class, () ->
+                new DagScheduler<>(List.of("a", "b", "c"), n -> n.equals("c") ? List.of("a") : List.<String>of(), 2)
+                        .run(n -> {
+                            if (n.equals("b")) {
+                                try {
+                                    Assertions.assertTrue(aCompleted.await(10, TimeUnit.SECONDS));
+                                    Thread.sleep(200);
+                                } catch (InterruptedException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+                            Assertions.assertNotEquals("c", n, "must not start");
+                            finished.add(n);
+                            return n;
+                        }, (n, r) -> {
+                            if (n.equals("a")) {
+                                aCompleted.countDown();
+                                throw new IllegalStateException("merge failed " + n);
+                            }
+                        }));
+        Assertions.assertEquals("merge failed a", ex.getMessage());
+        Assertions.assertEquals(Set.of("a", "b"), finished);
+    }
+}
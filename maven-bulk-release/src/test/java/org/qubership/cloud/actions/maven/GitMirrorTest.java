@@ -0,0 +1,57 @@
+package org.qubership.cloud.actions.maven;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class GitMirrorTest {
+
+    @Test
+    void checkoutFromMirror(@TempDir Path dir) throws Exception {
+        Path remoteDir = dir.resolve("remote/lib");
+        Files.createDirectories(remoteDir);
+        Files.writeString(remoteDir.resolve("pom.xml"), "<project/>");
+        String url = remoteDir.toUri().toString();
+        try (Git remote = Git.init().setInitialBranch("main").setDirectory(remoteDir.toFile()).call()) {
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("init").setAuthor("t", "t@t").call();
+            remote.tag().setName("v1.0.0").setAnnotated(true).setMessage("v1.0.0").call();
+
+            GitMirror mirror = new GitMirror(dir.resolve("mirrors"), null);
+            Path mirrorPath = mirror.mirrorPath(url);
+            Assertions.assertEquals(mirrorPath, mirror.refresh(url));
+            Assertions.assertTrue(Files.isDirectory(mirrorPath.resolve("objects")));
+
+            Path first = dir.resolve("work/first");
+            mirror.checkout(first, url, "main");
+            Assertions.assertEquals("<project/>", Files.readString(first.resolve("pom.xml")));
+            try (Git git = Git.open(first.toFile()); Stream<Path> packs = Files.list(first.resolve(".git/objects/pack"))) {
+                Assertions.assertEquals(url, git.getRepository().getConfig().getString("remote", "origin", "url"));
+                Assertions.assertEquals("refs/heads/main", git.getRepository().getFullBranch());
+                Assertions.assertNotNull(git.getRepository().resolve("refs/tags/v1.0.0"));
+                Assertions.assertTrue(git.status().call().isClean());
+                // the objects are borrowed from the mirror
+                Assertions.assertEquals(0, packs.count());
+            }
+
+            // the mirror is fetched once per run, the next run fetches the new commit
+            Files.writeString(remoteDir.resolve("pom.xml"), "<project><modelVersion>4.0.0</modelVersion></project>");
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("update").setAuthor("t", "t@t").call();
+            mirror.checkout(dir.resolve("work/second"), url, "main");
+            Assertions.assertEquals("<project/>", Files.readString(dir.resolve("work/second/pom.xml")));
+            new GitMirror(dir.resolve("mirrors"), null).checkout(dir.resolve("work/third"), url, "main");
+            Assertions.assertEquals("<project><modelVersion>4.0.0</modelVersion></project>", Files.readString(dir.resolve("work/third/pom.xml")));
+
+            // a tag is checked out detached
+            Path tag = dir.resolve("work/tag");
+            new GitMirror(dir.resolve("mirrors"), null).checkout(tag, url, "v1.0.0");
+            Assertions.assertEquals("<project/>", Files.readString(tag.resolve("pom.xml")));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.qubership.cloud.actions.maven;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.GitConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class GitServiceTest {
+
+    static GitService gitService(Path home) {
+        String userHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+        try {
+            return new GitService(GitConfig.builder().url("https://github.com").username("user").email("user@example.com")
+                    .password("password").build());
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
+
+    @Test
+    void checkoutPoms(@TempDir Path dir) throws Exception {
+        Path remoteDir = dir.resolve("remote");
+        Files.createDirectories(remoteDir.resolve("impl/src/test/resources"));
+        Files.writeString(remoteDir.resolve("pom.xml"), "<project/>");
+        Files.writeString(remoteDir.resolve("impl/pom.xml"), "<project/>");
+        Files.writeString(remoteDir.resolve("impl/src/test/resources/data.json"), "{}");
+        try (Git remote = Git.init().setInitialBranch("main").setDirectory(remoteDir.toFile()).call()) {
+            remote.getRepository().getConfig().setBoolean("uploadpack", null, "allowFilter", true);
+            remote.getRepository().getConfig().setBoolean("uploadpack", null, "allowAnySHA1InWant", true);
+            remote.getRepository().getConfig().save();
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("init").setAuthor("t", "t@t").call();
+        }
+
+        GitService gitService = gitService(dir);
+        Path localDir = dir.resolve("local");
+        gitService.checkoutPoms(localDir, remoteDir.toUri().toString(), "main");
+        Assertions.assertTrue(GitService.isPomsOnly(localDir));
+        Assertions.assertEquals("<project/>", Files.readString(localDir.resolve("impl/pom.xml")));
+        Assertions.assertFalse(Files.exists(localDir.resolve("impl/src")));
+        try (Git git = Git.open(localDir.toFile())) {
+            git.checkout().setName("main").call();
+            Assertions.assertTrue(git.status().call().isClean());
+            Assertions.assertFalse(git.getRepository().getObjectDatabase().has(
+                    git.getRepository().resolve("HEAD:impl/src/test/resources/data.json")));
+        }
+    }
+
+    @Test
+    void refresh(@TempDir Path dir) throws Exception {
+        Path remoteDir = dir.resolve("remote");
+        Files.createDirectories(remoteDir);
+        Files.writeString(remoteDir.resolve("pom.xml"), "<project/>");
+        Files.writeString(remoteDir.resolve(".gitignore"), "target/");
+        try (Git remote = Git.init().setInitialBranch("main").setDirectory(remoteDir.toFile()).call()) {
+            remote.add().addFilepattern(".").call();
+            remote.commit().setMessage("init").setAuthor("t", "t@t").call();
+
+            Path localDir = dir.resolve("local");
+            try (Git git = Git.cloneRepository().setURI(remoteDir.toUri().toString()).setDirectory(localDir.toFile())
+                    .setBranch("main").setDepth(1).call()) {
+                Files.writeString(remoteDir.resolve("pom.xml"), "<project><modelVersion>4.0.0</modelVersion></project>");
+                remote.add().addFilepattern(".").call();
+                remote.commit().setMessage("update").setAuthor("t", "t@t").call();
+                remote.tag().setName("v1.0.0").setAnnotated(true).setMessage("v1.0.0").call();
+
+                // leftovers of a previous run
+                Files.writeString(localDir.resolve("pom.xml"), "<project><version>1.0.0</version></project>");
+                git.commit().setAll(true).setMessage("release").setAuthor("t", "t@t").call();
+                Files.writeString(localDir.resolve("release.properties"), "");
+                Files.createDirectories(localDir.resolve("target"));
+                Files.writeString(localDir.resolve("target/app.jar"), "");
+
+                gitService(dir).refresh(git, remoteDir.toUri().toString(), "main");
+                Assertions.assertEquals("<project><modelVersion>4.0.0</modelVersion></project>", Files.readString(localDir.resolve("pom.xml")));
+                Assertions.assertEquals(git.getRepository().resolve("refs/remotes/origin/main"), git.getRepository().resolve("HEAD"));
+                Assertions.assertNotNull(git.getRepository().resolve("refs/tags/v1.0.0"));
+                Assertions.assertFalse(Files.exists(localDir.resolve("release.properties")));
+                Assertions.assertTrue(Files.exists(localDir.resolve("target/app.jar")));
+                Assertions.assertTrue(git.status().call().isClean());
+            }
+        }
+    }
+}
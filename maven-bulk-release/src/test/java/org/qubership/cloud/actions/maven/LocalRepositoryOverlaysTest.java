@@ -0,0 +1,84 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.GAV;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class LocalRepositoryOverlaysTest {
+
+    static String metadata(String latest, String... versions) {
+        StringBuilder builder = new StringBuilder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <metadata>
+                  <groupId>org.qubership</groupId>
+                  <artifactId>lib</artifactId>
+                  <versioning>
+                    <latest>%s</latest>
+                    <release>%s</release>
+                    <versions>
+                """.formatted(latest, latest));
+        for (String version : versions) builder.append("      <version>").append(version).append("</version>\n");
+        return builder.append("""
+                    </versions>
+                    <lastUpdated>20240101000000</lastUpdated>
+                  </versioning>
+                </metadata>
+                """).toString();
+    }
+
+    static void write(Path path, String content) throws Exception {
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, content);
+    }
+
+    @Test
+    void mergeMetadata() {
+        Assertions.assertEquals(metadata("1.1.0", "1.0.0", "1.1.0"),
+                LocalRepositoryOverlays.mergeMetadata(metadata("1.0.0", "1.0.0"), metadata("1.1.0", "1.1.0")));
+        Assertions.assertEquals(metadata("1.1.0", "1.0.0", "1.1.0"),
+                LocalRepositoryOverlays.mergeMetadata(metadata("1.1.0", "1.0.0", "1.1.0"), metadata("1.0.0", "1.0.0")));
+        Assertions.assertEquals(metadata("1.1.0", "1.1.0", "1.0.0"),
+                LocalRepositoryOverlays.mergeMetadata(metadata("1.1.0", "1.1.0"), metadata("1.0.0", "1.0.0")));
+    }
+
+    @Test
+    void layerIsMergedIntoLocalRepository(@TempDir Path dir) throws Exception {
+        Path base = dir.resolve("repository");
+        LocalRepositoryOverlays overlays = new LocalRepositoryOverlays(base.toString(), dir.resolve(LocalRepositoryOverlays.DIR_NAME));
+        Path layer = overlays.layer("test/lib", "api");
+        Assertions.assertEquals(dir.resolve(LocalRepositoryOverlays.DIR_NAME).resolve("test_lib_api"), layer);
+        Assertions.assertEquals(List.of("-Dmaven.repo.local=" + layer, "-Dmaven.repo.local.tail=" + base,
+                "-Dmaven.repo.local.tail.ignoreAvailability=true"), overlays.arguments(layer));
+
+        // released by a previous attempt
+        write(base.resolve("org/qubership/lib/1.1.0/lib-1.1.0.jar"), "old");
+        write(base.resolve("org/qubership/lib/maven-metadata-local.xml"), metadata("1.0.0", "1.0.0"));
+        write(base.resolve("org/other/dep/1.0.0/dep-1.0.0.jar"), "dep");
+        write(base.resolve("org/other/dep/1.0.0/_remote.repositories"), "dep-1.0.0.jar>central=\n");
+
+        write(layer.resolve("org/qubership/lib/1.1.0/lib-1.1.0.jar"), "new");
+        write(layer.resolve("org/qubership/lib/maven-metadata-local.xml"), metadata("1.1.0", "1.1.0"));
+        write(layer.resolve("org/other/dep/1.0.0/dep-1.0.0.jar"), "downloaded");
+        write(layer.resolve("org/other/dep/1.0.0/dep-1.0.0.pom"), "pom");
+        write(layer.resolve("org/other/dep/1.0.0/_remote.repositories"), "#comment\ndep-1.0.0.pom>central=\n");
+        write(layer.resolve("org/other/missing/1.0.0/missing-1.0.0.jar.lastUpdated"), "");
+        write(layer.resolve(".locks/lock"), "");
+
+        Assertions.assertTrue(overlays.merge(layer, List.of(new GAV("org.qubership", "lib", "1.1.0"))));
+        Assertions.assertFalse(overlays.merge(layer, List.of()));
+
+        Assertions.assertFalse(Files.exists(layer));
+        Assertions.assertEquals("new", Files.readString(base.resolve("org/qubership/lib/1.1.0/lib-1.1.0.jar")));
+        Assertions.assertEquals(metadata("1.1.0", "1.0.0", "1.1.0"), Files.readString(base.resolve("org/qubership/lib/maven-metadata-local.xml")));
+        Assertions.assertEquals("dep", Files.readString(base.resolve("org/other/dep/1.0.0/dep-1.0.0.jar")));
+        Assertions.assertEquals("pom", Files.readString(base.resolve("org/other/dep/1.0.0/dep-1.0.0.pom")));
+        Assertions.assertEquals("dep-1.0.0.jar>central=\ndep-1.0.0.pom>central=\n", Files.readString(base.resolve("org/other/dep/1.0.0/_remote.repositories")));
+        Assertions.assertFalse(Files.exists(base.resolve("org/other/missing")));
+        Assertions.assertFalse(Files.exists(base.resolve(".locks")));
+    }
+}
@@ -0,0 +1,33 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogMultiplexerTest {
+
+    @Test
+    void writesLogFileAndForwardsLines(@TempDir Path dir) throws Exception {
+        Path logFile = dir.resolve("repo/prepare.log");
+        Files.createDirectories(logFile.getParent());
+        Files.writeString(logFile, "stale content from previous run\n");
+        try (OutputStream out = new LogMultiplexer(false).open(logFile)) {
+            out.write("line 1\r\nline 2\nline".getBytes(StandardCharsets.UTF_8));
+            out.write(" 3".getBytes(StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals("line 1\r\nline 2\nline 3", Files.readString(logFile));
+
+        List<String> lines = new ArrayList<>();
+        try (OutputStream out = LogMultiplexer.lines(lines::add)) {
+            out.write("line 1\r\nline 2\nline 3".getBytes(StandardCharsets.UTF_8));
+        }
+        Assertions.assertEquals(List.of("line 1", "line 2", "line 3"), lines);
+    }
+}
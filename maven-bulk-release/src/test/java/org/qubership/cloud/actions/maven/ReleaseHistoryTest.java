@@ -0,0 +1,67 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.DependencyGraphCache;
+import org.qubership.cloud.actions.maven.model.RepositoryConfig;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+public class ReleaseHistoryTest {
+
+    static RepositoryInfo repository(String url) {
+        return RepositoryInfo.fromCache(RepositoryConfig.builder(url).branch("main").build(), "",
+                new DependencyGraphCache.Entry(null, null, null, null, null, List.of(), Map.of()));
+    }
+
+    @Test
+    void durationsArePersistedAndUnknownRepositoriesWeightTheAverage(@TempDir Path baseDir) {
+        RepositoryInfo api = repository("https://github.com/qubership/api");
+        RepositoryInfo lib = repository("https://github.com/qubership/lib");
+        RepositoryInfo app = repository("https://github.com/qubership/app");
+        ReleaseHistory history = ReleaseHistory.load(baseDir);
+        Assertions.assertEquals(1, history.weight(ReleaseHistory.Phase.PREPARE).applyAsDouble(api));
+        history.record(api, ReleaseHistory.Phase.PREPARE, Duration.ofSeconds(10));
+        history.record(lib, ReleaseHistory.Phase.PREPARE, Duration.ofSeconds(30));
+        history.save();
+
+        ReleaseHistory loaded = ReleaseHistory.load(baseDir);
+        Assertions.assertEquals(OptionalDouble.of(30), loaded.duration(lib, ReleaseHistory.Phase.PREPARE));
+        Assertions.assertEquals(OptionalDouble.empty(), loaded.duration(lib, ReleaseHistory.Phase.PERFORM));
+        Assertions.assertEquals(10, loaded.weight(ReleaseHistory.Phase.PREPARE).applyAsDouble(api));
+        Assertions.assertEquals(20, loaded.weight(ReleaseHistory.Phase.PREPARE).applyAsDouble(app));
+    }
+
+    @Test
+    void corruptHistoryIsIgnored(@TempDir Path baseDir) throws Exception {
+        Files.writeString(baseDir.resolve(ReleaseHistory.FILE_NAME), "{\"https://github.com/qubership/api");
+        ReleaseHistory history = ReleaseHistory.load(baseDir);
+        Assertions.assertEquals(OptionalDouble.empty(), history.duration(repository("https://github.com/qubership/api"), ReleaseHistory.Phase.PREPARE));
+    }
+
+    @Test
+    void testsDurationSumsSurefireAndFailsafeReports(@TempDir Path dir) throws Exception {
+        Assertions.assertEquals(Optional.empty(), ReleaseHistory.testsDuration(dir));
+        Path surefire = Files.createDirectories(dir.resolve("core/target/surefire-reports"));
+        Path failsafe = Files.createDirectories(dir.resolve("it/target/failsafe-reports"));
+        Files.writeString(surefire.resolve("TEST-org.qubership.CoreTest.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <testsuite xmlns:xsi="http://www.w3.org/2001/XMLSchema-instance" name="org.qubership.CoreTest" time="1.5" tests="3">
+                  <testcase name="test" classname="org.qubership.CoreTest" time="0.5"/>
+                </testsuite>
+                """);
+        Files.writeString(failsafe.resolve("TEST-org.qubership.CoreIT.xml"), """
+                <testsuite name="org.qubership.CoreIT" time="1,002.25" tests="1"/>
+                """);
+        Files.writeString(surefire.resolve("org.qubership.CoreTest.txt"), "time=100");
+        Assertions.assertEquals(Optional.of(Duration.ofMillis(1003750)), ReleaseHistory.testsDuration(dir));
+    }
+}
@@ -0,0 +1,91 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.Config;
+import org.qubership.cloud.actions.maven.model.DependencyGraphCache;
+import org.qubership.cloud.actions.maven.model.GitConfig;
+import org.qubership.cloud.actions.maven.model.MavenConfig;
+import org.qubership.cloud.actions.maven.model.RepositoryConfig;
+import org.qubership.cloud.actions.maven.model.RepositoryInfo;
+import org.qubership.cloud.actions.maven.model.VersionTag;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class ReleaseJournalTest {
+
+    static final String url = "https://github.com/test/repo";
+
+    static RepositoryInfo repository(String pomFolder) {
+        return RepositoryInfo.fromCache(RepositoryConfig.builder(url).branch("main").pomFolder(pomFolder).build(), "",
+                new DependencyGraphCache.Entry(null, url, pomFolder, null, "org.qubership:lib:1.0.1", List.of(), Map.of()));
+    }
+
+    @Test
+    void resumeRestoresCompletedPhasesAndDropsTornEntry(@TempDir Path baseDir) throws Exception {
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, false)) {
+            journal.append(new ReleaseJournal.Entry(ReleaseJournal.Phase.DEPENDENCIES_UPDATED, url, "", null, null, null, null, null));
+            journal.append(new ReleaseJournal.Entry(ReleaseJournal.Phase.PREPARED, url, "", new VersionTag("1.0.1", "1.0.1"), "21",
+                    List.of("org.qubership:lib:1.0.1"), List.of("org.qubership:lib:1.0.2-SNAPSHOT"),
+                    Map.of("org/qubership/lib/1.0.1/lib-1.0.1.jar", "ab")));
+        }
+        // simulate a crash in the middle of writing an entry
+        Files.writeString(baseDir.resolve(ReleaseJournal.FILE_NAME), "{\"phase\":\"PUSH", StandardOpenOption.APPEND);
+
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, true)) {
+            Map<ReleaseJournal.Phase, ReleaseJournal.Entry> phases = journal.phases(url, "");
+            Assertions.assertEquals(Set.of(ReleaseJournal.Phase.DEPENDENCIES_UPDATED, ReleaseJournal.Phase.PREPARED), phases.keySet());
+            ReleaseJournal.Entry prepared = phases.get(ReleaseJournal.Phase.PREPARED);
+            Assertions.assertEquals(new VersionTag("1.0.1", "1.0.1"), prepared.versionTag());
+            Assertions.assertEquals(List.of("org.qubership:lib:1.0.1"), prepared.gavs());
+            Assertions.assertEquals(Map.of("org/qubership/lib/1.0.1/lib-1.0.1.jar", "ab"), prepared.installedChecksums());
+            journal.append(new ReleaseJournal.Entry(ReleaseJournal.Phase.PUSHED, url, "", null, null, null, null, null));
+            // the dependencies committed by the previous run are not updated again
+            Assertions.assertTrue(journal.dependenciesUpdated(repository("")));
+            Assertions.assertFalse(journal.dependenciesUpdated(repository("api")));
+        }
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, true)) {
+            Assertions.assertTrue(journal.phases(url, "").containsKey(ReleaseJournal.Phase.PUSHED));
+        }
+        // a new run starts with an empty journal, the previous one is kept
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, false)) {
+            Assertions.assertTrue(journal.phases(url, "").isEmpty());
+        }
+        Assertions.assertEquals(0, Files.size(baseDir.resolve(ReleaseJournal.FILE_NAME)));
+        Files.move(baseDir.resolve(ReleaseJournal.PREVIOUS_FILE_NAME), baseDir.resolve(ReleaseJournal.FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, true)) {
+            Assertions.assertTrue(journal.phases(url, "").containsKey(ReleaseJournal.Phase.PUSHED));
+        }
+    }
+
+    @Test
+    void pomFolderIsNotMistakenForUrlPath(@TempDir Path baseDir) throws Exception {
+        try (ReleaseJournal journal = ReleaseJournal.open(baseDir, false)) {
+            journal.record(ReleaseJournal.Phase.DEPENDENCIES_UPDATED, repository("api"));
+            Assertions.assertTrue(journal.phases(url, "api").containsKey(ReleaseJournal.Phase.DEPENDENCIES_UPDATED));
+            Assertions.assertTrue(journal.phases(url + "/api", "").isEmpty());
+            Assertions.assertTrue(journal.phases(url, "").isEmpty());
+        }
+    }
+
+    @Test
+    void resumeIsRejectedWithGitRefresh() {
+        RepositoryConfig repository = RepositoryConfig.builder(url).branch("main").build();
+        Config config = Config.builder("/tmp",
+                        GitConfig.builder().url("https://github.com").username("u").email("e").password("p").refresh(true).build(),
+                        MavenConfig.builder().build(), List.of(repository))
+                .resume(true)
+                .build();
+        IllegalStateException ex = Assertions.assertThrows(IllegalStateException.class, () -> new ReleaseRunner().assertResumeAllowed(config));
+        Assertions.assertTrue(ex.getMessage().contains("git refresh"));
+        config.setResume(false);
+        Assertions.assertDoesNotThrow(() -> new ReleaseRunner().assertResumeAllowed(config));
+    }
+}
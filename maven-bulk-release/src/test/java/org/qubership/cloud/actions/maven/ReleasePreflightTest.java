@@ -0,0 +1,137 @@
+package org.qubership.cloud.actions.maven;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class ReleasePreflightTest {
+
+    static final String POM = """
+            <project>
+                <modelVersion>4.0.0</modelVersion>
+                <groupId>org.qubership</groupId>
+                <artifactId>lib</artifactId>
+                <version>%s</version>
+                <dependencies>
+                    <dependency>
+                        <groupId>org.qubership</groupId>
+                        <artifactId>api</artifactId>
+                        <version>%s</version>
+                    </dependency>
+                </dependencies>
+            </project>
+            """;
+
+    static ObjectId commit(Git git, Path repoRoot, String version, String apiVersion) throws Exception {
+        Files.writeString(repoRoot.resolve("pom.xml"), POM.formatted(version, apiVersion));
+        git.add().addFilepattern(".").call();
+        return git.commit().setMessage(version).setAuthor("t", "t@t").call();
+    }
+
+    @Test
+    void unchangedSinceLatestRelease(@TempDir Path baseDir) throws Exception {
+        Path repoRoot = baseDir.resolve("qubership/lib");
+        Files.createDirectories(repoRoot);
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repoRoot.toFile()).call()) {
+            ObjectId previous = commit(git, repoRoot, "1.0.0", "2.0.0");
+            git.tag().setName("1.0.0").setAnnotated(false).call();
+            ObjectId release = commit(git, repoRoot, "1.1.0", "2.1.0");
+            git.tag().setName("1.1.0").setAnnotated(false).call();
+            // on another branch
+            git.tag().setName("3.0.0").setObjectId(git.getRepository().parseCommit(previous)).setAnnotated(false).call();
+            ObjectId next = commit(git, repoRoot, "1.1.1-SNAPSHOT", "2.1.1-SNAPSHOT");
+
+            RepositoryInfo repositoryInfo = new RepositoryInfo(RepositoryConfig.builder("https://github.com/qubership/lib")
+                    .branch("main").pomFolder("").build(), baseDir.toString());
+            Map<String, Ref> refs = git.getRepository().getRefDatabase().getRefs().stream()
+                    .collect(Collectors.toMap(Ref::getName, Function.identity()));
+            ReleasePreflight.LatestRelease latest = ReleasePreflight.latestRelease(refs, repositoryInfo).orElseThrow();
+            Assertions.assertEquals(new VersionTag("1.1.0", "1.1.0"), latest.versionTag());
+            Assertions.assertEquals(release, latest.commit());
+
+            Set<GA> own = Set.of(new GA("org.qubership", "lib"));
+            GA api = new GA("org.qubership", "api");
+            // the dependency was switched to the current SNAPSHOT version of its repository
+            Assertions.assertTrue(ReleasePreflight.sameIgnoringVersions(git.getRepository(), next, release, "", own,
+                    Map.of(api, "2.1.1-SNAPSHOT")));
+            // a dependency of another bulk is a change
+            Assertions.assertFalse(ReleasePreflight.sameIgnoringVersions(git.getRepository(), next, release, "", own, Map.of()));
+            Assertions.assertFalse(ReleasePreflight.sameIgnoringVersions(git.getRepository(), next, release, "", own,
+                    Map.of(api, "2.2.0-SNAPSHOT")));
+            // a dependency bumped to another release is a change, even if it is the current version of its repository
+            ObjectId bumped = commit(git, repoRoot, "1.1.1-SNAPSHOT", "2.1.1");
+            Assertions.assertFalse(ReleasePreflight.sameIgnoringVersions(git.getRepository(), bumped, release, "", own,
+                    Map.of(api, "2.1.1")));
+            Files.writeString(repoRoot.resolve("README.md"), "changed");
+            git.add().addFilepattern(".").call();
+            ObjectId changed = git.commit().setMessage("docs").setAuthor("t", "t@t").call();
+            Assertions.assertFalse(ReleasePreflight.sameIgnoringVersions(git.getRepository(), changed, release, "", own,
+                    Map.of(api, "2.1.1-SNAPSHOT")));
+        }
+    }
+
+    @Test
+    void unchangedSinceLatestReleaseInPomsOnlyCheckout(@TempDir Path dir) throws Exception {
+        Path remoteDir = dir.resolve("remote");
+        Files.createDirectories(remoteDir);
+        String url = "https://github.com/qubership/lib";
+        Map<String, Ref> refs;
+        ObjectId readme;
+        try (Git remote = Git.init().setInitialBranch("main").setDirectory(remoteDir.toFile()).call()) {
+            remote.getRepository().getConfig().setBoolean("uploadpack", null, "allowFilter", true);
+            remote.getRepository().getConfig().setBoolean("uploadpack", null, "allowAnySHA1InWant", true);
+            remote.getRepository().getConfig().save();
+            Files.writeString(remoteDir.resolve("README.md"), "docs");
+            commit(remote, remoteDir, "1.1.0", "2.1.0");
+            remote.tag().setName("1.1.0").setAnnotated(false).call();
+            readme = remote.getRepository().resolve("1.1.0:README.md");
+            commit(remote, remoteDir, "1.1.1-SNAPSHOT", "2.1.1-SNAPSHOT");
+            refs = remote.getRepository().getRefDatabase().getRefs().stream()
+                    .collect(Collectors.toMap(Ref::getName, Function.identity()));
+        }
+        Path baseDir = dir.resolve("base");
+        Path repoRoot = baseDir.resolve("qubership/lib");
+        GitService gitService = GitServiceTest.gitService(dir);
+        gitService.checkoutPoms(repoRoot, remoteDir.toUri().toString(), "main");
+
+        ReleasePreflight preflight = new ReleasePreflight(gitService);
+        preflight.remoteRefs.put(url, refs);
+        RepositoryInfo lib = RepositoryInfo.fromCache(RepositoryConfig.builder(url).branch("main").pomFolder("").build(), baseDir.toString(),
+                new DependencyGraphCache.Entry(null, url, "", null, "org.qubership:lib:1.1.1-SNAPSHOT",
+                        List.of("org.qubership:lib:1.1.1-SNAPSHOT"), Map.of("org.qubership:lib", List.of("org.qubership:api:2.1.1-SNAPSHOT"))));
+        GA api = new GA("org.qubership", "api");
+        Assertions.assertEquals(Optional.of(new VersionTag("1.1.0", "1.1.0")), preflight.unchangedSince(lib, Map.of(api, "2.1.1-SNAPSHOT")));
+        Assertions.assertEquals(Optional.empty(), preflight.unchangedSince(lib, Map.of(api, "2.2.0-SNAPSHOT")));
+        // only the poms of the release were fetched
+        try (Git git = Git.open(repoRoot.toFile())) {
+            Assertions.assertNotNull(git.getRepository().resolve("refs/tags/1.1.0"));
+            Assertions.assertFalse(git.getRepository().getObjectDatabase().has(readme));
+        }
+    }
+
+    @Test
+    void reusableOnlyIfUpstreamsAreReusable() {
+        RepositoryInfo api = RepositoryInfo.fromCache(RepositoryConfig.builder("https://github.com/qubership/api").branch("main").build(), "",
+                new DependencyGraphCache.Entry(null, null, null, null, null, List.of(), Map.of()));
+        RepositoryInfo lib = RepositoryInfo.fromCache(RepositoryConfig.builder("https://github.com/qubership/lib").branch("main").build(), "",
+                new DependencyGraphCache.Entry(null, null, null, null, null, List.of(), Map.of()));
+        VersionTag versionTag = new VersionTag("1.0.0", "1.0.0");
+        Function<RepositoryInfo, Set<RepositoryInfo>> upstreams = repository -> repository == lib ? Set.of(api) : Set.of();
+        Assertions.assertEquals(Set.of(api, lib), ReleasePreflight.reusable(Map.of(api, versionTag, lib, versionTag), upstreams).keySet());
+        Assertions.assertEquals(Set.of(api), ReleasePreflight.reusable(Map.of(api, versionTag), upstreams).keySet());
+        Assertions.assertEquals(Set.of(), ReleasePreflight.reusable(Map.of(lib, versionTag), upstreams).keySet());
+    }
+}
@@ -0,0 +1,122 @@
+package org.qubership.cloud.actions.maven;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class ReleaseRunnerSingleBuildTest {
+
+    static final String pom = """
+            <project>
+                <modelVersion>4.0.0</modelVersion>
+                <groupId>org.qubership</groupId>
+                <artifactId>parent</artifactId>
+                <version>1.0.0-SNAPSHOT</version>
+                <properties>
+                    <repo.url>https://nexus/releases</repo.url>
+                </properties>
+                <distributionManagement>
+                    <repository>
+                        <id>releases</id>
+                        <url>${repo.url}</url>
+                    </repository>
+                </distributionManagement>
+            </project>
+            """;
+
+    @Test
+    void deploymentRepositoryFromAltDeploymentRepository() {
+        ReleaseRunner runner = new ReleaseRunner();
+        List<PomHolder> poms = List.of(new PomHolder(pom, Path.of("pom.xml")));
+        Assertions.assertArrayEquals(new String[]{"alt", "https://alt/repo"}, runner.resolveDeploymentRepository(
+                MavenConfig.builder().altDeploymentRepository("alt::default::https://alt/repo").build(), poms, null));
+        Assertions.assertArrayEquals(new String[]{"alt", "https://alt/repo"}, runner.resolveDeploymentRepository(
+                MavenConfig.builder().altDeploymentRepository("alt::https://alt/repo").build(), poms, null));
+    }
+
+    @Test
+    void deploymentRepositoryFromDistributionManagement() {
+        ReleaseRunner runner = new ReleaseRunner();
+        List<PomHolder> poms = List.of(new PomHolder(pom, Path.of("pom.xml")));
+        Assertions.assertArrayEquals(new String[]{"releases", "https://nexus/releases"},
+                runner.resolveDeploymentRepository(MavenConfig.builder().build(), poms, null));
+    }
+
+    @Test
+    void localRepositoryPathIsResolvedLikeMaven(@TempDir Path dir) {
+        Assertions.assertEquals(Path.of(System.getProperty("user.home"), ".m2/repository"),
+                MavenConfig.resolvePath("${user.home}/.m2/repository", dir, Map.of()));
+        Assertions.assertEquals(dir.resolve("cache/repository"), MavenConfig.resolvePath("${env.CACHE}/repository", dir, Map.of("CACHE", "cache")));
+        Assertions.assertEquals(Path.of("/m2"), MavenConfig.resolvePath("/m2", dir, Map.of()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> MavenConfig.resolvePath("${env.MISSING}/repository", dir, Map.of()));
+    }
+
+    @Test
+    void preparedArtifactsAreVerifiedBeforeDeploy(@TempDir Path dir) throws Exception {
+        String releasedPom = pom.replace("1.0.0-SNAPSHOT", "1.0.0").replace("<artifactId>parent</artifactId>", "<artifactId>lib</artifactId>");
+        Path baseDir = dir.resolve("base");
+        RepositoryConfig repositoryConfig = RepositoryConfig.builder("https://github.com/qubership/lib").branch("main").pomFolder("").build();
+        Path repositoryDirPath = baseDir.resolve(repositoryConfig.getDir());
+        Files.createDirectories(repositoryDirPath);
+        Files.writeString(repositoryDirPath.resolve("pom.xml"), releasedPom);
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repositoryDirPath.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("[maven-release-plugin] prepare release 1.0.0").setAuthor("t", "t@t").call();
+            git.tag().setName("1.0.0").setAnnotated(true).setMessage("1.0.0").call();
+        }
+        // installed by release:prepare
+        Path localRepositoryPath = dir.resolve("m2");
+        Path artifactDirPath = localRepositoryPath.resolve("org/qubership/lib/1.0.0");
+        Files.createDirectories(artifactDirPath);
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.pom"), releasedPom);
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.jar"), "jar");
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0-sources.jar"), "sources");
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.jar.sha1"), "sha1");
+        Files.writeString(artifactDirPath.resolve("_remote.repositories"), "");
+
+        Config config = Config.builder(baseDir.toString(),
+                        GitConfig.builder().url("https://github.com").username("u").email("e").password("p").build(),
+                        MavenConfig.builder().localRepositoryPath(localRepositoryPath.toString()).singleBuild(true).build(),
+                        List.of(repositoryConfig))
+                .build();
+        RepositoryRelease release = new RepositoryRelease();
+        release.setRepository(RepositoryInfo.fromCache(repositoryConfig, baseDir.toString(),
+                new DependencyGraphCache.Entry(null, null, null, null, null, List.of(), Map.of())));
+        release.setVersionTag(new VersionTag("1.0.0", "1.0.0"));
+        release.setGavs(List.of(new GAV("org.qubership:lib:1.0.0")));
+        release.setInstalledChecksums(ReleaseRunner.installedChecksums(localRepositoryPath, release.getGavs()));
+        Assertions.assertEquals(List.of("org/qubership/lib/1.0.0/lib-1.0.0-sources.jar", "org/qubership/lib/1.0.0/lib-1.0.0.jar",
+                "org/qubership/lib/1.0.0/lib-1.0.0.pom"), List.copyOf(release.getInstalledChecksums().keySet()));
+
+        ReleaseRunner runner = new ReleaseRunner();
+        List<List<String>> commands = runner.deployFileCommands(config, release);
+        Assertions.assertEquals(1, commands.size());
+        Assertions.assertTrue(commands.getFirst().containsAll(List.of("deploy:deploy-file", "-DrepositoryId=releases", "-Durl=https://nexus/releases",
+                "-DpomFile=" + artifactDirPath.resolve("lib-1.0.0.pom"), "-Dfile=" + artifactDirPath.resolve("lib-1.0.0.jar"),
+                "-Dfiles=" + artifactDirPath.resolve("lib-1.0.0-sources.jar"), "-Dclassifiers=sources", "-Dtypes=jar")),
+                String.join(" ", commands.getFirst()));
+
+        // another build has installed the same version since
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.jar"), "rebuilt");
+        IllegalStateException changed = Assertions.assertThrows(IllegalStateException.class, () -> runner.deployFileCommands(config, release));
+        Assertions.assertTrue(changed.getMessage().contains("org/qubership/lib/1.0.0/lib-1.0.0.jar"), changed.getMessage());
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.jar"), "jar");
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0-javadoc.jar"), "javadoc");
+        IllegalStateException added = Assertions.assertThrows(IllegalStateException.class, () -> runner.deployFileCommands(config, release));
+        Assertions.assertTrue(added.getMessage().contains("org/qubership/lib/1.0.0/lib-1.0.0-javadoc.jar"), added.getMessage());
+        Files.delete(artifactDirPath.resolve("lib-1.0.0-javadoc.jar"));
+
+        // the installed pom must be the released one
+        Files.writeString(artifactDirPath.resolve("lib-1.0.0.pom"), releasedPom.replace("<project>", "<project>\n"));
+        release.setInstalledChecksums(ReleaseRunner.installedChecksums(localRepositoryPath, release.getGavs()));
+        IllegalStateException modifiedPom = Assertions.assertThrows(IllegalStateException.class, () -> runner.deployFileCommands(config, release));
+        Assertions.assertTrue(modifiedPom.getMessage().contains("does not match tag 1.0.0"), modifiedPom.getMessage());
+    }
+}
@@ -0,0 +1,133 @@
+package org.qubership.cloud.actions.maven;
+
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdRef;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.*;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+public class RepositoryServiceTest {
+
+    static final String HEAD = "0123456789012345678901234567890123456789";
+    static final String MOVED = "9876543210987654321098765432109876543210";
+
+    // url -> module, dependencies
+    static final Map<String, List<String>> poms = Map.of(
+            "https://github.com/qubership/api", List.of("org.qubership:api:1.0.0"),
+            "https://github.com/qubership/lib", List.of("org.qubership:lib:1.0.0", "org.qubership:api:1.0.0"),
+            "https://github.com/qubership/app", List.of("org.qubership:app:1.0.0", "org.qubership:lib:1.0.0"),
+            "https://github.com/qubership/tools", List.of("org.qubership:tools:1.0.0"),
+            "https://github.com/qubership/other", List.of("org.qubership:other:1.0.0", "org.qubership:tools:1.0.0"));
+
+    static DependencyGraphCache.Entry entry(RepositoryConfig rc) {
+        String module = poms.get(rc.getUrl()).getFirst();
+        return new DependencyGraphCache.Entry(null, rc.getUrl(), rc.getPomFolder(), null, module, List.of(module),
+                Map.of(module.substring(0, module.lastIndexOf(':')), poms.get(rc.getUrl()).subList(1, poms.get(rc.getUrl()).size())));
+    }
+
+    static class RecordingRepositoryService extends RepositoryService {
+        final List<String> checkouts = Collections.synchronizedList(new ArrayList<>());
+        final List<String> pomsOnlyCheckouts = Collections.synchronizedList(new ArrayList<>());
+        final Map<String, RepositoryInfo> checkedOut = Collections.synchronizedMap(new HashMap<>());
+
+        RecordingRepositoryService(ReleasePreflight preflight) {
+            super(null, preflight, null);
+        }
+
+        @Override
+        RepositoryInfo createRepositoryInfo(String baseDir, RepositoryConfig repositoryConfig, OutputStream out) {
+            checkouts.add(repositoryConfig.getUrl());
+            RepositoryInfo repositoryInfo = RepositoryInfo.fromCache(repositoryConfig, baseDir, entry(repositoryConfig));
+            checkedOut.put(repositoryConfig.getUrl(), repositoryInfo);
+            return repositoryInfo;
+        }
+
+        @Override
+        RepositoryInfo createPomsOnlyRepositoryInfo(String baseDir, RepositoryConfig repositoryConfig, OutputStream out) {
+            pomsOnlyCheckouts.add(repositoryConfig.getUrl());
+            return RepositoryInfo.fromCache(repositoryConfig, baseDir, entry(repositoryConfig));
+        }
+    }
+
+    static List<RepositoryConfig> repositories(Path baseDir, ReleasePreflight preflight) {
+        List<RepositoryConfig> repositories = poms.keySet().stream().sorted()
+                .map(url -> RepositoryConfig.builder(url).branch("main").pomFolder("").build())
+                .toList();
+        // lib and other are cached at their remote heads, the cache entries of app and tools are outdated
+        DependencyGraphCache cache = DependencyGraphCache.forDirectory(baseDir.resolve(DependencyGraphCache.DIR_NAME));
+        for (RepositoryConfig rc : repositories) {
+            RepositoryInfo cached = RepositoryInfo.fromCache(rc, baseDir.toString(), entry(rc));
+            cache.put(rc.getUrl(), rc.getPomFolder(), HEAD, cached.getBaseModule(), cached.getModules(), cached.getPerModuleDependencies());
+        }
+        // the refs are listed by the preflight only, no remote is listed again
+        for (RepositoryConfig rc : repositories) {
+            String commit = rc.getUrl().endsWith("/app") || rc.getUrl().endsWith("/tools") ? MOVED : HEAD;
+            preflight.remoteRefs.put(rc.getUrl(), Map.<String, Ref>of("refs/heads/main",
+                    new ObjectIdRef.PeeledNonTag(Ref.Storage.NETWORK, "refs/heads/main", ObjectId.fromString(commit))));
+        }
+        return repositories;
+    }
+
+    @Test
+    void onlyAffectedRepositoriesAreCheckedOut(@TempDir Path baseDir) {
+        ReleasePreflight preflight = new ReleasePreflight(null);
+        List<RepositoryConfig> repositories = repositories(baseDir, preflight);
+        RepositoryConfig api = repositories.stream().filter(rc -> rc.getUrl().endsWith("/api")).findFirst().orElseThrow();
+
+        RecordingRepositoryService repositoryService = new RecordingRepositoryService(preflight);
+        List<RepositoryInfo> affected;
+        try (ExecutorService executorService = Executors.newFixedThreadPool(2)) {
+            affected = repositoryService.createAffectedRepositoryInfos(executorService, baseDir.toString(), repositories, List.of(api));
+        }
+
+        Assertions.assertEquals(List.of("https://github.com/qubership/api", "https://github.com/qubership/app", "https://github.com/qubership/lib"),
+                affected.stream().map(RepositoryInfo::getUrl).toList());
+        Assertions.assertEquals(Set.of("https://github.com/qubership/api", "https://github.com/qubership/app", "https://github.com/qubership/lib"),
+                Set.copyOf(repositoryService.checkouts));
+        Assertions.assertEquals(3, repositoryService.checkouts.size());
+        Assertions.assertEquals(Set.of("https://github.com/qubership/app", "https://github.com/qubership/tools"),
+                Set.copyOf(repositoryService.pomsOnlyCheckouts));
+        // the affected repositories are the fully checked out ones, not the ones linked from the cache
+        affected.forEach(ri -> Assertions.assertSame(repositoryService.checkedOut.get(ri.getUrl()), ri));
+    }
+
+    @Test
+    void reusableRepositoriesAreNotCheckedOut(@TempDir Path baseDir) {
+        Set<String> unchanged = Set.of("https://github.com/qubership/api", "https://github.com/qubership/lib", "https://github.com/qubership/other");
+        ReleasePreflight preflight = new ReleasePreflight(null) {
+            @Override
+            Optional<VersionTag> unchangedSince(RepositoryInfo repository, Map<GA, String> devVersions) {
+                Assertions.assertEquals("1.0.0", devVersions.get(new GA("org.qubership", "tools")));
+                return unchanged.contains(repository.getUrl()) ? Optional.of(new VersionTag("0.9.0", "0.9.0")) : Optional.empty();
+            }
+        };
+        List<RepositoryConfig> repositories = repositories(baseDir, preflight);
+
+        RecordingRepositoryService repositoryService = new RecordingRepositoryService(preflight);
+        List<RepositoryInfo> affected;
+        try (ExecutorService executorService = Executors.newFixedThreadPool(2)) {
+            affected = repositoryService.createAffectedRepositoryInfos(executorService, baseDir.toString(), repositories, List.of(), true, 2);
+        }
+
+        Assertions.assertEquals(repositories.stream().map(RepositoryConfig::getUrl).toList(), affected.stream().map(RepositoryInfo::getUrl).toList());
+        // other is unchanged, but depends on tools to be released
+        Assertions.assertEquals(Set.of("https://github.com/qubership/api", "https://github.com/qubership/lib"),
+                preflight.reusable.keySet().stream().map(RepositoryInfo::getUrl).collect(Collectors.toSet()));
+        Assertions.assertEquals(Set.of("https://github.com/qubership/app", "https://github.com/qubership/other", "https://github.com/qubership/tools"),
+                Set.copyOf(repositoryService.checkouts));
+        Assertions.assertEquals(3, repositoryService.checkouts.size());
+        Assertions.assertEquals(Set.of("https://github.com/qubership/app", "https://github.com/qubership/tools"),
+                Set.copyOf(repositoryService.pomsOnlyCheckouts));
+        affected.stream().filter(ri -> !preflight.reusable.containsKey(ri))
+                .forEach(ri -> Assertions.assertSame(repositoryService.checkedOut.get(ri.getUrl()), ri));
+    }
+}
@@ -80,8 +80,8 @@ public class SwitchInterModuleDepsToSnapshotE2ETest {
 
     RepositoryRelease prepare(ReleaseRunner runner, Config config, RepositoryInfo repo, Set<GAV> deps) throws Exception {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
-        try {
-            return runner.releasePrepare(config, repo, deps, out);
+        try (ReleaseJournal journal = ReleaseJournal.open(Path.of(config.getBaseDir()), false)) {
+            return runner.releasePrepare(config, journal, repo, deps, out);
         } catch (Exception e) {
             System.out.println("=== release:prepare output for " + repo.getPomFolder() + " ===");
             System.out.println(out.toString(StandardCharsets.UTF_8));
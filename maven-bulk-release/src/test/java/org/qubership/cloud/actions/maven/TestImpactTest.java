@@ -0,0 +1,87 @@
+package org.qubership.cloud.actions.maven;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.qubership.cloud.actions.maven.model.GA;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+public class TestImpactTest {
+
+    static final GA parent = new GA("org.qubership", "parent");
+    static final GA api = new GA("org.qubership", "api");
+    static final GA core = new GA("org.qubership", "core");
+    static final GA web = new GA("org.qubership", "web");
+    static final GA tools = new GA("org.qubership", "tools");
+    static final GA jackson = new GA("com.fasterxml.jackson.core", "jackson-databind");
+    static final GA slf4j = new GA("org.slf4j", "slf4j-api");
+
+    // core -> api, web -> core, tools is independent
+    static final List<TestImpact.Module> modules = List.of(
+            new TestImpact.Module(parent, "", Set.of(), Set.of()),
+            new TestImpact.Module(api, "api", Set.of(parent), Set.of()),
+            new TestImpact.Module(core, "core", Set.of(parent), Set.of(api, jackson)),
+            new TestImpact.Module(web, "web", Set.of(parent), Set.of(core)),
+            new TestImpact.Module(tools, "tools", Set.of(parent), Set.of(slf4j)));
+
+    static String pom(String version, String jacksonVersion, String extra) {
+        return """
+                <project>
+                    <groupId>org.qubership</groupId>
+                    <artifactId>parent</artifactId>
+                    <version>%s</version>
+                    <properties>
+                        <jackson.version>%s</jackson.version>
+                    </properties>
+                    <dependencyManagement>
+                        <dependencies>
+                            <dependency>
+                                <groupId>com.fasterxml.jackson.core</groupId>
+                                <artifactId>jackson-databind</artifactId>
+                                <version>${jackson.version}</version>
+                            </dependency>
+                        </dependencies>
+                    </dependencyManagement>%s
+                </project>
+                """.formatted(version, jacksonVersion, extra);
+    }
+
+    @Test
+    void sourceChangeImpactsModuleAndItsDependents() {
+        Set<GA> impacted = TestImpact.impacted(modules, List.of(new TestImpact.Change("api/src/main/java/org/qubership/Api.java", null, null)));
+        Assertions.assertEquals(Set.of(api, core, web), impacted);
+    }
+
+    @Test
+    void dependencyBumpImpactsOnlyModulesUsingIt() {
+        List<TestImpact.Change> changes = List.of(
+                // the release and the next development iteration only change the project version
+                new TestImpact.Change("pom.xml", pom("1.0.0", "2.17.0", ""), pom("1.0.1-SNAPSHOT", "2.17.0", "")),
+                new TestImpact.Change("pom.xml", pom("1.0.1-SNAPSHOT", "2.17.0", ""), pom("1.0.1-SNAPSHOT", "2.18.0", "")));
+        Assertions.assertEquals(Set.of(core, web), TestImpact.impacted(modules, changes));
+        Assertions.assertEquals(Set.of(), TestImpact.impacted(modules, changes.subList(0, 1)));
+    }
+
+    @Test
+    void aggregatorChangeImpactsAllModules() {
+        Assertions.assertEquals(Set.of(parent, api, core, web, tools), TestImpact.impacted(modules, List.of(
+                new TestImpact.Change("pom.xml", pom("1.0.0", "2.17.0", ""), pom("1.0.0", "2.17.0", "<packaging>pom</packaging>")))));
+        Assertions.assertEquals(Set.of(parent, api, core, web, tools), TestImpact.impacted(modules, List.of(
+                new TestImpact.Change(".mvn/jvm.config", null, null))));
+    }
+
+    @Test
+    void testsOfModulesNotImpactedAreExcluded(@TempDir Path dir) throws Exception {
+        for (String source : List.of("api/src/test/java/org/qubership/ApiTest.java", "tools/src/test/java/org/qubership/tools/ToolsTest.java",
+                "tools/src/test/java/org/qubership/ApiTest.java", "core/src/test/java/org/qubership/core/CoreIT.java")) {
+            Files.createDirectories(dir.resolve(source).getParent());
+            Files.writeString(dir.resolve(source), "");
+        }
+        Assertions.assertEquals(List.of("org/qubership/core/CoreIT.java", "org/qubership/tools/ToolsTest.java"),
+                TestImpact.exclusions(dir, modules, Set.of(api)));
+    }
+}
@@ -0,0 +1,62 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class DaemonMavenExecutorTest {
+
+    @Test
+    void routesToDaemonPerJavaHome(@TempDir Path dir) throws Exception {
+        Path mvnd = dir.resolve("mvnd");
+        Files.writeString(mvnd, "#!/bin/sh\necho \"$JAVA_HOME|$MAVEN_USER|$*\"\n");
+        Files.setPosixFilePermissions(mvnd, PosixFilePermissions.fromString("rwxr-xr-x"));
+        List<List<String>> forked = new ArrayList<>();
+        DaemonMavenExecutor executor = new DaemonMavenExecutor(mvnd.toString(), (directory, cmd, javaHome, environment) -> {
+            forked.add(cmd);
+            return ForkedMavenExecutor.INSTANCE.start(directory, List.of("true"), javaHome, environment);
+        });
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Assertions.assertEquals(0, executor.execute(dir, List.of("mvn", "-B", "release:prepare"), "/opt/jdk17",
+                Map.of("MAVEN_USER", "user"), output));
+        Assertions.assertEquals("/opt/jdk17|user|-Dmvnd.javaHome=/opt/jdk17 --serial -B release:prepare", output.toString().trim());
+        Assertions.assertEquals(List.of(), forked);
+
+        output.reset();
+        executor.execute(dir, List.of("mvn", "-B", "-N", "help:effective-pom"), null, Map.of(), output);
+        Assertions.assertTrue(output.toString().trim().endsWith("|--serial -B -N help:effective-pom"), output.toString());
+        Assertions.assertEquals(Set.of("/opt/jdk17", ""), executor.javaHomes);
+    }
+
+    @Test
+    void fallsBackToForkWithoutDaemon(@TempDir Path dir) throws Exception {
+        List<List<String>> forked = new ArrayList<>();
+        DaemonMavenExecutor executor = new DaemonMavenExecutor(dir.resolve("missing-mvnd").toString(), (directory, cmd, javaHome, environment) -> {
+            forked.add(cmd);
+            return ForkedMavenExecutor.INSTANCE.start(directory, List.of("true"), javaHome, environment);
+        });
+        Assertions.assertEquals(0, executor.execute(dir, List.of("mvn", "-B", "release:prepare"), null, Map.of(), new ByteArrayOutputStream()));
+        Assertions.assertEquals(0, executor.execute(dir, List.of("mvn", "-B", "release:perform"), null, Map.of(), new ByteArrayOutputStream()));
+        Assertions.assertTrue(executor.unavailable);
+        Assertions.assertEquals(List.of(List.of("mvn", "-B", "release:prepare"), List.of("mvn", "-B", "release:perform")), forked);
+    }
+
+    @Test
+    void daemonIsNotGoverned(@TempDir Path dir) {
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 1, 1024L * 1024 * 1024);
+        Assertions.assertSame(DaemonMavenExecutor.INSTANCE,
+                MavenConfig.builder().executor(MavenExecutorType.DAEMON).resourceGovernor(governor).build().getMavenExecutor());
+        Assertions.assertNotSame(ForkedMavenExecutor.INSTANCE,
+                MavenConfig.builder().executor(MavenExecutorType.FORK).resourceGovernor(governor).build().getMavenExecutor());
+    }
+}
@@ -0,0 +1,65 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+public class DependencyGraphCacheTest {
+
+    static RepositoryInfo repositoryInfo(Path baseDir) {
+        return new RepositoryInfo(RepositoryConfig.builder("https://github.com/test/lib").branch("main").pomFolder("").build(),
+                baseDir.toString());
+    }
+
+    @Test
+    void repositoryIsParsedOncePerCommit(@TempDir Path baseDir) throws Exception {
+        Path repoRoot = baseDir.resolve("test/lib");
+        Files.createDirectories(repoRoot);
+        Files.writeString(repoRoot.resolve("pom.xml"), RepositorySnapshotTest.POM);
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repoRoot.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("init").setAuthor("t", "t@t").call();
+
+            RepositoryInfo parsed = repositoryInfo(baseDir);
+            Assertions.assertNotNull(parsed.snapshot);
+
+            RepositoryInfo restored = repositoryInfo(baseDir);
+            Assertions.assertNull(restored.snapshot);
+            Assertions.assertEquals(parsed.getBaseModule(), restored.getBaseModule());
+            Assertions.assertEquals(parsed.getModules(), restored.getModules());
+            Assertions.assertEquals(parsed.getModuleDependencies(), restored.getModuleDependencies());
+            Assertions.assertEquals(parsed.getPerModuleDependencies(), restored.getPerModuleDependencies());
+            Assertions.assertEquals(Map.of(new GA("com.example.test", "consumer-lib"), Set.of(new GAV("com.example.test:producer-lib:1.0.0"))),
+                    restored.getPerModuleDependencies());
+            // the poms are parsed as soon as the working tree is needed
+            Assertions.assertEquals("17", restored.calculateJavaVersion());
+
+            // a repository can be linked from the cache without a checkout
+            RepositoryConfig config = RepositoryConfig.builder("https://github.com/test/lib").branch("main").pomFolder("").build();
+            DependencyGraphCache.Entry entry = DependencyGraphCache.forDirectory(baseDir.resolve(DependencyGraphCache.DIR_NAME))
+                    .get(config.getUrl(), config.getPomFolder(), git.getRepository().resolve("HEAD").name()).orElseThrow();
+            RepositoryInfo linked = RepositoryInfo.fromCache(config, baseDir.resolve("elsewhere").toString(), entry);
+            Assertions.assertEquals(parsed.getModules(), linked.getModules());
+            Assertions.assertEquals(parsed.getPerModuleDependencies(), linked.getPerModuleDependencies());
+
+            // a dirty working tree is neither restored nor cached
+            Files.writeString(repoRoot.resolve("pom.xml"), RepositorySnapshotTest.POM.replace("1.0.0", "1.1.0"));
+            RepositoryInfo dirty = repositoryInfo(baseDir);
+            Assertions.assertNotNull(dirty.snapshot);
+            Assertions.assertEquals(Set.of(new GAV("com.example.test:producer-lib:1.1.0")), dirty.getModuleDependencies());
+            Assertions.assertNotNull(repositoryInfo(baseDir).snapshot);
+
+            // a new commit is parsed again
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("update").setAuthor("t", "t@t").call();
+            Assertions.assertNotNull(repositoryInfo(baseDir).snapshot);
+            Assertions.assertNull(repositoryInfo(baseDir).snapshot);
+        }
+    }
+}
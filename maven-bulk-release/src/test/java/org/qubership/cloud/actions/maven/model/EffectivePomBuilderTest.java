@@ -0,0 +1,213 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class EffectivePomBuilderTest {
+
+    static void install(Path localRepo, String groupId, String artifactId, String version, String pom) throws Exception {
+        Path path = localRepo.resolve(Path.of(groupId.replace('.', '/'), artifactId, version, "%s-%s.pom".formatted(artifactId, version)));
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, pom);
+    }
+
+    @Test
+    void resolvesVersionsFromParentAndImportedBom(@TempDir Path tmp) throws Exception {
+        Path localRepo = tmp.resolve("repository");
+        // language=xml
+        install(localRepo, "org.qubership", "parent", "1.0.0", """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.qubership</groupId>
+                    <artifactId>parent</artifactId>
+                    <version>1.0.0</version>
+                    <packaging>pom</packaging>
+                    <properties>
+                        <lib.version>2.1.0</lib.version>
+                        <bom.version>3.0.0</bom.version>
+                    </properties>
+                    <dependencyManagement>
+                        <dependencies>
+                            <dependency>
+                                <groupId>org.qubership</groupId>
+                                <artifactId>lib</artifactId>
+                                <version>${lib.version}</version>
+                            </dependency>
+                            <dependency>
+                                <groupId>org.qubership</groupId>
+                                <artifactId>bom</artifactId>
+                                <version>${bom.version}</version>
+                                <type>pom</type>
+                                <scope>import</scope>
+                            </dependency>
+                        </dependencies>
+                    </dependencyManagement>
+                    <build>
+                        <pluginManagement>
+                            <plugins>
+                                <plugin>
+                                    <artifactId>maven-compiler-plugin</artifactId>
+                                    <version>3.14.0</version>
+                                </plugin>
+                            </plugins>
+                        </pluginManagement>
+                    </build>
+                </project>
+                """);
+        // language=xml
+        install(localRepo, "org.qubership", "bom", "3.0.0", """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.qubership</groupId>
+                    <artifactId>bom</artifactId>
+                    <version>3.0.0</version>
+                    <packaging>pom</packaging>
+                    <dependencyManagement>
+                        <dependencies>
+                            <dependency>
+                                <groupId>org.qubership</groupId>
+                                <artifactId>lib</artifactId>
+                                <version>0.0.1</version>
+                            </dependency>
+                            <dependency>
+                                <groupId>org.qubership</groupId>
+                                <artifactId>from-bom</artifactId>
+                                <version>${project.version}</version>
+                            </dependency>
+                        </dependencies>
+                    </dependencyManagement>
+                </project>
+                """);
+        // language=xml
+        PomHolder pom = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <parent>
+                        <groupId>org.qubership</groupId>
+                        <artifactId>parent</artifactId>
+                        <version>1.0.0</version>
+                        <relativePath/>
+                    </parent>
+                    <artifactId>service</artifactId>
+                    <version>1.2.0-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.qubership</groupId>
+                            <artifactId>lib</artifactId>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.qubership</groupId>
+                            <artifactId>from-bom</artifactId>
+                        </dependency>
+                    </dependencies>
+                    <build>
+                        <plugins>
+                            <plugin>
+                                <artifactId>maven-compiler-plugin</artifactId>
+                            </plugin>
+                        </plugins>
+                    </build>
+                </project>
+                """, tmp.resolve("service/pom.xml"));
+
+        Model model = EffectivePomBuilder.forLocalRepository(localRepo).build(pom);
+        Assertions.assertEquals("org.qubership", model.getGroupId());
+        // the version managed by the lineage wins over the one from the imported bom
+        Assertions.assertEquals(List.of("org.qubership:lib:2.1.0", "org.qubership:from-bom:3.0.0"),
+                model.getDependencies().stream().map(d -> "%s:%s:%s".formatted(d.getGroupId(), d.getArtifactId(), d.getVersion())).toList());
+        Assertions.assertTrue(model.getDependencyManagement().getDependencies().stream().map(Dependency::getArtifactId).noneMatch("bom"::equals));
+        Assertions.assertEquals(List.of("3.14.0"), model.getBuild().getPlugins().stream().map(Plugin::getVersion).toList());
+    }
+
+    @Test
+    void missingParentIsReportedAsUnresolvable(@TempDir Path tmp) {
+        // language=xml
+        PomHolder pom = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <parent>
+                        <groupId>org.qubership</groupId>
+                        <artifactId>absent</artifactId>
+                        <version>1.0.0</version>
+                    </parent>
+                    <artifactId>service</artifactId>
+                </project>
+                """, tmp.resolve("pom.xml"));
+        Assertions.assertThrows(EffectivePomBuilder.UnresolvableModelException.class,
+                () -> EffectivePomBuilder.forLocalRepository(tmp.resolve("repository")).build(pom));
+    }
+
+    @Test
+    void profilesContributingDependenciesAreReportedAsUnresolvable(@TempDir Path tmp) {
+        EffectivePomBuilder builder = EffectivePomBuilder.forLocalRepository(tmp.resolve("repository"));
+        // language=xml
+        String pom = """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.qubership</groupId>
+                    <artifactId>service</artifactId>
+                    <version>1.0.0</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.qubership</groupId>
+                            <artifactId>lib</artifactId>
+                            %s
+                        </dependency>
+                    </dependencies>
+                    <profiles>
+                        <profile>
+                            <id>jdk21</id>
+                            <activation>
+                                %s
+                            </activation>
+                            <dependencyManagement>
+                                <dependencies>
+                                    <dependency>
+                                        <groupId>org.qubership</groupId>
+                                        <artifactId>lib</artifactId>
+                                        <version>2.0.0</version>
+                                    </dependency>
+                                </dependencies>
+                            </dependencyManagement>
+                        </profile>
+                    </profiles>
+                </project>
+                """;
+        // maven would manage the version by the profile activated by the JDK
+        Assertions.assertThrows(EffectivePomBuilder.UnresolvableModelException.class,
+                () -> builder.build(new PomHolder(pom.formatted("", "<jdk>21</jdk>"), tmp.resolve("pom.xml"))));
+        Assertions.assertThrows(EffectivePomBuilder.UnresolvableModelException.class,
+                () -> builder.build(new PomHolder(pom.formatted("<version>1.0.0</version>", "<jdk>21</jdk>"), tmp.resolve("pom.xml"))));
+        Model model = builder.build(new PomHolder(pom.formatted("", "<activeByDefault>true</activeByDefault>"), tmp.resolve("pom.xml")));
+        Assertions.assertEquals("2.0.0", model.getDependencies().getFirst().getVersion());
+    }
+
+    @Test
+    void unmanagedDependencyVersionIsReportedAsUnresolvable(@TempDir Path tmp) {
+        // language=xml
+        PomHolder pom = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.qubership</groupId>
+                    <artifactId>service</artifactId>
+                    <version>1.0.0</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.qubership</groupId>
+                            <artifactId>lib</artifactId>
+                        </dependency>
+                    </dependencies>
+                </project>
+                """, tmp.resolve("pom.xml"));
+        Assertions.assertThrows(EffectivePomBuilder.UnresolvableModelException.class,
+                () -> EffectivePomBuilder.forLocalRepository(tmp.resolve("repository")).build(pom));
+    }
+}
@@ -0,0 +1,69 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.apache.maven.model.Model;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public class EffectivePomCacheTest {
+
+    static PomHolder pom(String parentVersion, String version) {
+        // language=xml
+        return new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <parent>
+                        <groupId>org.qubership</groupId>
+                        <artifactId>parent</artifactId>
+                        <version>%s</version>
+                    </parent>
+                    <artifactId>service</artifactId>
+                    <version>%s</version>
+                </project>
+                """.formatted(parentVersion, version), Path.of("pom.xml"));
+    }
+
+    static long entries(Path dir) throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    @Test
+    void effectiveModelIsComputedOncePerContent(@TempDir Path dir) throws Exception {
+        AtomicInteger computed = new AtomicInteger();
+        Function<PomHolder, Model> effectivePom = pom -> {
+            computed.incrementAndGet();
+            Model model = new Model();
+            model.setArtifactId(pom.getArtifactId());
+            model.setVersion(pom.getVersion());
+            return model;
+        };
+        Assertions.assertEquals("1.0.0-SNAPSHOT", new EffectivePomCache(dir, 1024 * 1024, Duration.ofDays(1))
+                .get(pom("1.0.0", "1.0.0-SNAPSHOT"), effectivePom).getVersion());
+        // a new run reads the entry from disk
+        Assertions.assertEquals("1.0.0-SNAPSHOT", new EffectivePomCache(dir, 1024 * 1024, Duration.ofDays(1))
+                .get(pom("1.0.0", "1.0.0-SNAPSHOT"), effectivePom).getVersion());
+        Assertions.assertEquals(1, computed.get());
+        // changed content is a different entry
+        new EffectivePomCache(dir, 1024 * 1024, Duration.ofDays(1)).get(pom("1.0.0", "1.0.1-SNAPSHOT"), effectivePom);
+        Assertions.assertEquals(2, computed.get());
+        Assertions.assertEquals(2, entries(dir));
+        // SNAPSHOT parents outside the reactor may change, so they are never cached
+        EffectivePomCache cache = new EffectivePomCache(dir, 1024 * 1024, Duration.ofDays(1));
+        cache.get(pom("2.0.0-SNAPSHOT", "1.0.0-SNAPSHOT"), effectivePom);
+        cache.get(pom("2.0.0-SNAPSHOT", "1.0.0-SNAPSHOT"), effectivePom);
+        Assertions.assertEquals(4, computed.get());
+        Assertions.assertEquals(2, entries(dir));
+        // eviction by size keeps nothing if nothing fits
+        new EffectivePomCache(dir, 1, Duration.ofDays(1));
+        Assertions.assertEquals(0, entries(dir));
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.nio.file.Path;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class PomHolderTest {
@@ -253,4 +254,178 @@ public class PomHolderTest {
                     </build>
                 </project>""", pomHolder.getPom());
     }
+
+    @Test
+    void testUpdateProperty() {
+        // language=xml
+        PomHolder pomHolder = new PomHolder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>test</groupId>
+                    <artifactId>test</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <properties>
+                        <lib.version>1.0.0</lib.version>
+                        <empty.version/>
+                        <!-- <lib.version>0.0.1</lib.version> -->
+                        <other.version><![CDATA[2.0.0]]></other.version>
+                    </properties>
+                    <profiles>
+                        <profile>
+                            <id>test</id>
+                            <properties>
+                                <lib.version>1.0.0-test</lib.version>
+                            </properties>
+                        </profile>
+                    </profiles>
+                </project>""", Path.of("test"));
+        Assertions.assertEquals("2.0.0", pomHolder.getProperties().get("other.version"));
+        pomHolder.updateProperty("lib.version", "1.1.0");
+        pomHolder.updateProperty("empty.version", "1.1.0");
+        // language=xml
+        Assertions.assertEquals("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>test</groupId>
+                    <artifactId>test</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <properties>
+                        <lib.version>1.1.0</lib.version>
+                        <empty.version/>
+                        <!-- <lib.version>0.0.1</lib.version> -->
+                        <other.version><![CDATA[2.0.0]]></other.version>
+                    </properties>
+                    <profiles>
+                        <profile>
+                            <id>test</id>
+                            <properties>
+                                <lib.version>1.1.0</lib.version>
+                            </properties>
+                        </profile>
+                    </profiles>
+                </project>""", pomHolder.getPom());
+        Assertions.assertEquals("1.1.0", pomHolder.getModel().getProperties().get("lib.version"));
+    }
+
+    @Test
+    void testApplyPatch() {
+        // language=xml
+        PomHolder pomHolder = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>test</groupId>
+                    <artifactId>test</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <properties>
+                        <lib.version>1.0.0</lib.version>
+                        <same.version>2.0.0</same.version>
+                    </properties>
+                    <dependencies>
+                        <dependency>
+                            <groupId>group-1</groupId>
+                            <artifactId>artifact-1</artifactId>
+                            <version>1.0.0</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>group-1</groupId>
+                            <artifactId>artifact-2</artifactId>
+                            <version>3.0.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>""", Path.of("pom.xml"));
+        List<PomPatch.Change> changes = pomHolder.apply(new PomPatch()
+                .version(new GA("group-1", "artifact-2"), "3.1.0")
+                .version(new GA("group-1", "artifact-1"), "1.0.0")
+                .version(new GA("group-1", "artifact-3"), "1.0.0")
+                .property("same.version", "2.0.0")
+                .property("lib.version", "1.1.0"));
+        Assertions.assertEquals(List.of(
+                new PomPatch.Change(Path.of("pom.xml"), PomPatch.Kind.PROPERTY, "lib.version", "1.0.0", "1.1.0"),
+                new PomPatch.Change(Path.of("pom.xml"), PomPatch.Kind.GAV, "group-1:artifact-2", "3.0.0", "3.1.0")), changes);
+        Assertions.assertEquals(Set.of(
+                new GAV("group-1:artifact-1:1.0.0"),
+                new GAV("group-1:artifact-2:3.1.0")), pomHolder.getGAVs());
+        Assertions.assertEquals("1.1.0", pomHolder.getModel().getProperties().get("lib.version"));
+        String pom = pomHolder.getPom();
+        Assertions.assertTrue(pomHolder.apply(new PomPatch().property("lib.version", "1.1.0")).isEmpty());
+        Assertions.assertSame(pom, pomHolder.getPom());
+    }
+
+    @Test
+    void testPropertyInterpolation() {
+        // language=xml
+        PomHolder parent = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.test</groupId>
+                    <artifactId>parent</artifactId>
+                    <version>1.0.0-SNAPSHOT</version>
+                    <properties>
+                        <lib.version>1.0.0</lib.version>
+                        <lib.classifier>${lib.name}-${lib.version}</lib.classifier>
+                        <lib.name>parent</lib.name>
+                        <cycle.a>${cycle.b}</cycle.a>
+                        <cycle.b>${cycle.a}</cycle.b>
+                    </properties>
+                </project>""", Path.of("pom.xml"));
+        // language=xml
+        PomHolder child = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <parent>
+                        <groupId>org.test</groupId>
+                        <artifactId>parent</artifactId>
+                        <version>1.0.0-SNAPSHOT</version>
+                    </parent>
+                    <artifactId>child</artifactId>
+                    <properties>
+                        <lib.name>child</lib.name>
+                    </properties>
+                </project>""", Path.of("child", "pom.xml"));
+        child.setParent(parent);
+        Assertions.assertEquals("parent-1.0.0", parent.getProperties().get("lib.classifier"));
+        Assertions.assertEquals("child-1.0.0", child.getProperties().get("lib.classifier"));
+        Assertions.assertEquals("org.test:child-1.0.0:1.0.0-SNAPSHOT:${unknown}",
+                child.autoResolvePropReference("${project.groupId}:${lib.classifier}:${project.version}:${unknown}"));
+        Assertions.assertTrue(child.autoResolvePropReference("${cycle.b}").matches("\\$\\{cycle\\.[ab]}"));
+
+        parent.updateProperty("lib.version", "1.1.0");
+        Assertions.assertEquals("child-1.1.0", child.autoResolvePropReference("${lib.classifier}"));
+    }
+
+    @Test
+    void testPropertyReferencingBuiltIns() {
+        // language=xml
+        PomHolder parent = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>org.test</groupId>
+                    <artifactId>parent</artifactId>
+                    <version>1.2.3-SNAPSHOT</version>
+                    <properties>
+                        <lib.version>${project.version}</lib.version>
+                        <lib.coordinates>${project.groupId}:lib:${lib.version}</lib.coordinates>
+                    </properties>
+                </project>""", Path.of("pom.xml"));
+        // language=xml
+        PomHolder child = new PomHolder("""
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                    <parent>
+                        <groupId>org.test</groupId>
+                        <artifactId>parent</artifactId>
+                        <version>1.2.3-SNAPSHOT</version>
+                    </parent>
+                    <artifactId>child</artifactId>
+                    <version>2.0.0-SNAPSHOT</version>
+                </project>""", Path.of("child", "pom.xml"));
+        child.setParent(parent);
+        Assertions.assertEquals("1.2.3-SNAPSHOT", parent.autoResolvePropReference("${lib.version}"));
+        Assertions.assertEquals("org.test:lib:1.2.3-SNAPSHOT", parent.getProperties().get("lib.coordinates"));
+        // as in maven, inherited properties are interpolated with the project they are used in
+        Assertions.assertEquals("2.0.0-SNAPSHOT", child.autoResolvePropReference("${lib.version}"));
+        Assertions.assertFalse(parent.getProperties().containsKey("project.version"));
+    }
 }
@@ -0,0 +1,58 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class ReactorTest {
+
+    static void pom(Path path, String artifactId, String parentArtifactId, String... modules) throws Exception {
+        String parent = parentArtifactId == null ? "" : """
+                    <parent>
+                        <groupId>org.qubership</groupId>
+                        <artifactId>%s</artifactId>
+                        <version>1.0.0-SNAPSHOT</version>
+                    </parent>
+                """.formatted(parentArtifactId);
+        StringBuilder moduleElements = new StringBuilder();
+        for (String module : modules) {
+            moduleElements.append("<module>").append(module).append("</module>");
+        }
+        Files.createDirectories(path.getParent());
+        // language=xml
+        Files.writeString(path, """
+                <project>
+                    <modelVersion>4.0.0</modelVersion>
+                %s    <groupId>org.qubership</groupId>
+                    <artifactId>%s</artifactId>
+                    <version>1.0.0-SNAPSHOT</version>
+                    <modules>%s</modules>
+                </project>
+                """.formatted(parent, artifactId, moduleElements));
+    }
+
+    @Test
+    void discover(@TempDir Path dir) throws Exception {
+        pom(dir.resolve("pom.xml"), "root", null, "api", "impl/impl-pom.xml");
+        pom(dir.resolve("api/pom.xml"), "api", "root");
+        pom(dir.resolve("impl/impl-pom.xml"), "impl", "root");
+        pom(dir.resolve("api/target/pom.xml"), "api-target", "root");
+        pom(dir.resolve("ui/node_modules/lib/pom.xml"), "lib", null);
+        pom(dir.resolve(".git/pom.xml"), "git", null);
+
+        Reactor reactor = Reactor.discover(dir);
+        List<String> artifactIds = reactor.getPoms().stream().map(PomHolder::getArtifactId).toList();
+        Assertions.assertEquals(List.of("api", "impl", "root"), artifactIds);
+        Assertions.assertEquals("root", reactor.getRootPom().orElseThrow().getArtifactId());
+        reactor.getPoms().stream().filter(pom -> !pom.getArtifactId().equals("root"))
+                .forEach(pom -> Assertions.assertSame(reactor.getRootPom().orElseThrow(), pom.getParent()));
+
+        pom(dir.resolve("api/spi/pom.xml"), "spi", "api");
+        Assertions.assertEquals(List.of("spi", "api", "impl", "root"),
+                Reactor.discover(dir).getPoms().stream().map(PomHolder::getArtifactId).toList());
+    }
+}
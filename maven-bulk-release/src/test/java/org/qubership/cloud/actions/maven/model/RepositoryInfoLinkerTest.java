@@ -0,0 +1,146 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class RepositoryInfoLinkerTest {
+
+    static RepositoryInfo repository(String url, String pomFolder, String module, String... dependencies) {
+        return RepositoryInfo.fromCache(RepositoryConfig.builder(url).branch("main").pomFolder(pomFolder).build(), "",
+                new DependencyGraphCache.Entry(null, url, pomFolder, null, module, List.of(module),
+                        Map.of(module.substring(0, module.lastIndexOf(':')), List.of(dependencies))));
+    }
+
+    static final RepositoryInfo parent = repository("https://github.com/qubership/parent", "", "org.qubership:parent:1.0.0");
+    static final RepositoryInfo tools = repository("https://github.com/qubership/tools", "", "org.qubership:tools:1.0.0");
+    static final RepositoryInfo api = repository("https://github.com/qubership/api", "", "org.qubership:api:1.0.0",
+            "org.qubership:parent:1.0.0");
+    // two repositories sharing the url, one using the other
+    static final RepositoryInfo lib = repository("https://github.com/qubership/mono", "lib", "org.qubership:lib:1.0.0",
+            "org.qubership:api:1.0.0");
+    static final RepositoryInfo app = repository("https://github.com/qubership/mono", "app", "org.qubership:app:1.0.0",
+            "org.qubership:lib:1.0.0", "org.qubership:parent:1.0.0");
+    static final RepositoryInfo cli = repository("https://github.com/qubership/cli", "", "org.qubership:cli:1.0.0",
+            "org.qubership:lib:1.0.0", "org.qubership:tools:1.0.0");
+    static final RepositoryInfo service = repository("https://github.com/qubership/service", "", "org.qubership:service:1.0.0",
+            "org.qubership:app:1.0.0", "org.qubership:api:1.0.0");
+    static final List<RepositoryInfo> all = List.of(service, cli, app, lib, api, tools, parent);
+
+    static String name(RepositoryInfo repository) {
+        return repository.getUrl().substring(repository.getUrl().lastIndexOf('/') + 1) + "/" + repository.getPomFolder();
+    }
+
+    static Map<Integer, Set<String>> names(Map<Integer, List<RepositoryInfo>> levels) {
+        Map<Integer, Set<String>> result = new TreeMap<>();
+        levels.forEach((level, repositories) -> result.put(level, repositories.stream().map(RepositoryInfoLinkerTest::name)
+                .collect(Collectors.toCollection(TreeSet::new))));
+        return result;
+    }
+
+    static boolean sameRepository(RepositoryInfo r1, RepositoryInfo r2) {
+        return Objects.equals(r1.getUrl(), r2.getUrl()) && Objects.equals(r1.getPomFolder(), r2.getPomFolder());
+    }
+
+    static Set<RepositoryInfo> usedByTransitively(RepositoryInfo repository, Collection<RepositoryInfo> repositories) {
+        Set<RepositoryInfo> result = new HashSet<>();
+        Deque<RepositoryInfo> stack = new ArrayDeque<>(List.of(repository));
+        while (!stack.isEmpty()) {
+            RepositoryInfo current = stack.pop();
+            Set<GA> dependencies = current.getModuleDependencies().stream().map(GAV::toGA).collect(Collectors.toSet());
+            repositories.stream()
+                    .filter(r -> !sameRepository(r, current))
+                    .filter(r -> r.getModules().stream().map(GAV::toGA).anyMatch(dependencies::contains))
+                    .filter(result::add)
+                    .forEach(stack::push);
+        }
+        return result;
+    }
+
+    /**
+     * The leveling of the dependency graph before the linker was indexed: every repository of the affected set is linked
+     * to all the repositories it uses transitively and a level consists of the repositories all of whose links come from
+     * the previous levels.
+     */
+    static Map<Integer, Set<String>> baselineLevels(Collection<RepositoryInfo> from) {
+        List<RepositoryInfo> affected = all.stream()
+                .filter(r -> from.stream().anyMatch(f -> sameRepository(f, r))
+                             || usedByTransitively(r, all).stream().anyMatch(u -> from.stream().anyMatch(f -> sameRepository(f, u))))
+                .toList();
+        Map<RepositoryInfo, Set<RepositoryInfo>> incoming = new HashMap<>();
+        affected.forEach(r -> incoming.put(r, usedByTransitively(r, all).stream().filter(affected::contains).collect(Collectors.toSet())));
+        Map<Integer, List<RepositoryInfo>> levels = new TreeMap<>();
+        Set<RepositoryInfo> leveled = new HashSet<>();
+        for (int level = 0; leveled.size() < affected.size(); level++) {
+            List<RepositoryInfo> current = affected.stream()
+                    .filter(r -> !leveled.contains(r) && leveled.containsAll(incoming.get(r)))
+                    .toList();
+            Assertions.assertFalse(current.isEmpty(), "cycle");
+            levels.put(level, current);
+            leveled.addAll(current);
+        }
+        return names(levels);
+    }
+
+    static Map<Integer, Set<String>> linkerLevels(RepositoryInfoLinker linker, Collection<RepositoryInfo> from) {
+        Set<RepositoryInfo> affected = new LinkedHashSet<>(linker.find(from));
+        new ArrayList<>(affected).forEach(r -> affected.addAll(linker.getRepositoriesUsingThisFlatSet(r)));
+        return names(linker.levels(affected));
+    }
+
+    @Test
+    void levelsOfTheWholeGraphMatchTheBaseline() {
+        RepositoryInfoLinker linker = new RepositoryInfoLinker(all);
+        Map<Integer, Set<String>> levels = names(linker.levels(all));
+        Assertions.assertEquals(Map.of(
+                0, Set.of("parent/", "tools/"),
+                1, Set.of("api/"),
+                2, Set.of("mono/lib"),
+                3, Set.of("mono/app", "cli/"),
+                4, Set.of("service/")), levels);
+        Assertions.assertEquals(baselineLevels(all), levels);
+    }
+
+    @Test
+    void levelsOfPartialReleasesMatchTheBaseline() {
+        RepositoryInfoLinker linker = new RepositoryInfoLinker(all);
+        Assertions.assertEquals(Map.of(
+                0, Set.of("mono/lib"),
+                1, Set.of("mono/app", "cli/"),
+                2, Set.of("service/")), linkerLevels(linker, List.of(lib)));
+        for (RepositoryInfo repository : all) {
+            Assertions.assertEquals(baselineLevels(List.of(repository)), linkerLevels(linker, List.of(repository)), name(repository));
+        }
+        for (List<RepositoryInfo> from : List.of(List.of(api, tools), List.of(app, cli), List.of(parent, lib))) {
+            Assertions.assertEquals(baselineLevels(from), linkerLevels(linker, from));
+        }
+    }
+
+    @Test
+    void cycleIsDescribedByRepositoriesAndGAVs() {
+        // core -> mono/lib -> mono/app -> core, and web only uses the cycle
+        RepositoryInfo web = repository("https://github.com/qubership/web", "", "org.qubership:web:1.0.0",
+                "org.qubership:core:1.0.0");
+        RepositoryInfo core = repository("https://github.com/qubership/core", "", "org.qubership:core:1.0.0",
+                "org.qubership:lib:1.0.0", "org.qubership:parent:1.0.0");
+        RepositoryInfo cyclicLib = repository("https://github.com/qubership/mono", "lib", "org.qubership:lib:1.0.0",
+                "org.qubership:app:2.0.0-SNAPSHOT");
+        RepositoryInfo cyclicApp = repository("https://github.com/qubership/mono", "app", "org.qubership:app:2.0.0-SNAPSHOT",
+                "org.qubership:core:1.0.0");
+        List<RepositoryInfo> repositories = List.of(web, core, cyclicLib, cyclicApp, parent);
+        RepositoryInfoLinker linker = new RepositoryInfoLinker(repositories);
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> linker.levels(repositories));
+        List<String> lines = List.of(e.getMessage().split("\n"));
+        Assertions.assertEquals("Failed to build dependency graph, dependency cycle detected:", lines.getFirst());
+        Assertions.assertEquals(Set.of(
+                "https://github.com/qubership/core [pom:] uses https://github.com/qubership/mono [pom:lib] via: org.qubership:lib:1.0.0",
+                "https://github.com/qubership/mono [pom:lib] uses https://github.com/qubership/mono [pom:app] via: org.qubership:app:2.0.0-SNAPSHOT",
+                "https://github.com/qubership/mono [pom:app] uses https://github.com/qubership/core [pom:] via: org.qubership:core:1.0.0"),
+                Set.copyOf(lines.subList(1, lines.size())));
+        // repositories outside the cycle can still be leveled
+        Assertions.assertEquals(Map.of(0, Set.of("parent/")), names(linker.levels(List.of(parent))));
+    }
+}
@@ -0,0 +1,92 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class RepositorySnapshotTest {
+
+    static final String POM = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+                <modelVersion>4.0.0</modelVersion>
+                <groupId>com.example.test</groupId>
+                <artifactId>consumer-lib</artifactId>
+                <version>2.0.1-SNAPSHOT</version>
+                <properties>
+                    <maven.compiler.release>17</maven.compiler.release>
+                </properties>
+                <dependencies>
+                    <dependency>
+                        <groupId>com.example.test</groupId>
+                        <artifactId>producer-lib</artifactId>
+                        <version>1.0.0</version>
+                    </dependency>
+                </dependencies>
+            </project>""";
+
+    @Test
+    void snapshotIsReplacedOnlyByWrites(@TempDir Path baseDir) throws Exception {
+        Path repoRoot = baseDir.resolve("test/lib");
+        Files.createDirectories(repoRoot);
+        Files.writeString(repoRoot.resolve("pom.xml"), POM);
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repoRoot.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("init").setAuthor("t", "t@t").call();
+
+            RepositoryInfo repositoryInfo = new RepositoryInfo(RepositoryConfig.builder("https://github.com/test/lib").branch("main").pomFolder("").build(),
+                    baseDir.toString());
+            RepositorySnapshot snapshot = repositoryInfo.snapshot();
+            Assertions.assertEquals("17", repositoryInfo.calculateJavaVersion());
+            Assertions.assertEquals(new VersionTag("2.0.1", "2.0.1"), repositoryInfo.calculateReleaseVersion(VersionIncrementType.PATCH));
+            Assertions.assertSame(snapshot, repositoryInfo.snapshot());
+            Assertions.assertEquals(Set.of(new GAV("com.example.test:producer-lib:1.0.0")), repositoryInfo.getModuleDependencies());
+
+            // a write replaces the snapshot, the poms of the previous one are left as they were
+            List<PomPatch.Change> changes = repositoryInfo.updateDepVersions(List.of(new GAV("com.example.test:producer-lib:1.1.0")));
+            Assertions.assertEquals(1, changes.size());
+            RepositorySnapshot updated = repositoryInfo.snapshot();
+            Assertions.assertNotSame(snapshot, updated);
+            Assertions.assertEquals(Set.of(new GAV("com.example.test:producer-lib:1.1.0")), repositoryInfo.getModuleDependencies());
+            Assertions.assertEquals(POM, snapshot.getReactor().getPoms().getFirst().getPom());
+            Assertions.assertEquals(Files.readString(repoRoot.resolve("pom.xml")), updated.getReactor().getPoms().getFirst().getPom());
+            Assertions.assertEquals(Set.of(new GAV("com.example.test:producer-lib:1.0.0")), snapshot.getModuleDependencies());
+            // nothing to change keeps the snapshot
+            Assertions.assertTrue(repositoryInfo.updateDepVersions(List.of(new GAV("com.example.test:producer-lib:1.1.0"))).isEmpty());
+            Assertions.assertSame(updated, repositoryInfo.snapshot());
+        }
+    }
+
+    @Test
+    void committedHeadComparesOnlyPoms(@TempDir Path baseDir) throws Exception {
+        Path repoRoot = baseDir.resolve("test/lib");
+        Files.createDirectories(repoRoot.resolve("sub"));
+        Files.writeString(repoRoot.resolve("pom.xml"), POM);
+        Files.writeString(repoRoot.resolve("sub/tools-pom.xml"), POM.replace("consumer-lib", "tools"));
+        Files.writeString(repoRoot.resolve("README.md"), "lib");
+        try (Git git = Git.init().setInitialBranch("main").setDirectory(repoRoot.toFile()).call()) {
+            git.add().addFilepattern(".").call();
+            String head = git.commit().setMessage("init").setAuthor("t", "t@t").call().name();
+            Assertions.assertEquals(Optional.of(head), RepositorySnapshot.committedHead(repoRoot, ""));
+
+            // other files do not matter
+            Files.writeString(repoRoot.resolve("README.md"), "changed");
+            Files.writeString(repoRoot.resolve("notes.txt"), "untracked");
+            Assertions.assertEquals(Optional.of(head), RepositorySnapshot.committedHead(repoRoot, ""));
+
+            // a changed or deleted pom, also one with a custom file name
+            Files.writeString(repoRoot.resolve("sub/tools-pom.xml"), POM);
+            Assertions.assertEquals(Optional.empty(), RepositorySnapshot.committedHead(repoRoot, ""));
+            Assertions.assertEquals(Optional.of(head), RepositorySnapshot.committedHead(repoRoot, "other"));
+            Files.delete(repoRoot.resolve("sub/tools-pom.xml"));
+            Assertions.assertEquals(Optional.empty(), RepositorySnapshot.committedHead(repoRoot, "sub"));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.qubership.cloud.actions.maven.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ResourceGovernorTest {
+
+    static final long GiB = 1024L * 1024 * 1024;
+
+    @Test
+    void admitsWhileThereIsHeadroom(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve(ResourceGovernor.FILE_NAME), "{\"big\": %d}".formatted(2 * GiB));
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 2, 3 * GiB);
+
+        ResourceGovernor.Lease big = governor.acquire("big");
+        ResourceGovernor.Lease small = governor.acquire("small");
+        CompletableFuture<ResourceGovernor.Lease> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return governor.acquire("other");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        Assertions.assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+        small.peak = 512L * 1024 * 1024;
+        small.close();
+        // closing twice does not return the tokens twice
+        small.close();
+        ResourceGovernor.Lease other = waiting.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(2, governor.usedCpus);
+        Assertions.assertEquals(3 * GiB, governor.usedMemory);
+        big.close();
+        other.close();
+        Assertions.assertEquals(0, governor.running);
+
+        // the peak of the last run is the estimate of the next one
+        ResourceGovernor next = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 1, GiB);
+        Assertions.assertEquals(512L * 1024 * 1024, next.history.get("small"));
+        // a process bigger than the capacity runs alone
+        try (ResourceGovernor.Lease lease = next.acquire("big")) {
+            Assertions.assertEquals(2 * GiB, lease.memory);
+        }
+    }
+
+    @Test
+    void parallelismIsLimitedToTheCpus(@TempDir Path dir) {
+        ResourceGovernor governor = new ResourceGovernor(dir.resolve(ResourceGovernor.FILE_NAME), 2, GiB);
+        Assertions.assertEquals(2, governor.parallelism(8));
+        Assertions.assertEquals(1, governor.parallelism(1));
+        Assertions.assertEquals(2, MavenConfig.builder().resourceGovernor(governor).build().parallelism(4));
+        Assertions.assertEquals(4, MavenConfig.builder().build().parallelism(4));
+    }
+
+    @Test
+    void key() {
+        Path dir = Path.of("/work/repo");
+        Assertions.assertEquals("/work/repo release:prepare", ResourceGovernor.key(dir, List.of("mvn", "-B", "release:prepare", "-Dresume=true")));
+        Assertions.assertEquals("/work/repo help:effective-pom", ResourceGovernor.key(dir, List.of("mvn", "-B", "-N", "-f", "pom.xml", "help:effective-pom")));
+    }
+
+    @Test
+    void rss() {
+        if (Files.isDirectory(Path.of("/proc/self"))) {
+            Assertions.assertTrue(ResourceGovernor.rss(ProcessHandle.current()) > 0);
+        }
+    }
+}
@@ -61,6 +61,10 @@ public class MavenEffectiveDependenciesCli implements Runnable {
     @CommandLine.Option(names = {"--mavenLocalRepoPath"}, description = "custom path to maven local repository")
     private String mavenLocalRepoPath = "${user.home}/.m2/repository";
 
+    @CommandLine.Option(names = {"--mavenExecutor"}, type = MavenExecutorType.class, defaultValue = "FORK",
+            description = "how mvn commands are run, one of: ${COMPLETION-CANDIDATES}. DAEMON routes them to warm maven daemons (mvnd), one pool per JAVA_HOME, and falls back to FORK if mvnd is not available")
+    private MavenExecutorType mavenExecutor = MavenExecutorType.FORK;
+
     @CommandLine.Option(names = {"--resultOutputFile"}, description = "File path to save result to")
     private String resultOutputFile;
 
@@ -94,6 +98,7 @@ public class MavenEffectiveDependenciesCli implements Runnable {
 
             MavenConfig mavenConfig = MavenConfig.builder()
                     .localRepositoryPath(mavenLocalRepoPath)
+                    .executor(mavenExecutor)
                     .build();
 
             MavenEffectiveDependenciesService service = new MavenEffectiveDependenciesService(new GitService(gitConfig));
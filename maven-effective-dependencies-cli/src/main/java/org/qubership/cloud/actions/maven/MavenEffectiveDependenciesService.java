@@ -5,10 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlFactory;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
 import org.apache.maven.model.PluginConfiguration;
 import org.apache.maven.model.PluginManagement;
 import org.qubership.cloud.actions.maven.model.*;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -219,18 +221,14 @@ public class MavenEffectiveDependenciesService {
 
     public Set<GAV> resolvePomsEffectiveDependencies(Path pomDir, MavenConfig config) {
         List<PomHolder> poms = PomHolder.parsePoms(pomDir);
-        List<PomHolder> effectivePoms = poms.stream().map(pom -> {
-            try {
-                return RepositoryInfo.effectivePom(pom);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }).toList();
+        String mavenLocalRepoPath = resolveMavenLocalRepoPath(poms.getFirst(), config);
+        // maven is forked for the poms whose profiles may contribute dependencies, see EffectivePomBuilder
+        EffectivePomBuilder effectivePomBuilder = EffectivePomBuilder.forLocalRepository(Path.of(mavenLocalRepoPath.trim()));
+        List<Model> effectivePoms = poms.stream().map(pom -> RepositoryInfo.effectivePom(pom, effectivePomBuilder, config.getMavenExecutor())).toList();
         Set<GAV> effectiveGAVs = effectivePoms.stream()
                 .flatMap(pom -> resolveDependenciesFromEffectivePom(pom).stream())
                 .collect(Collectors.toSet());
         // additionally, resolve 'pom imports' dependencies
-        String mavenLocalRepoPath = resolveMavenLocalRepoPath(poms.getFirst(), config);
         Map<GA, GAV> importDependencies = poms.stream().flatMap(pom -> resolveImportDependencies(pom, mavenLocalRepoPath).stream())
                 .collect(Collectors.toSet())
                 .stream()
@@ -252,15 +250,15 @@ public class MavenEffectiveDependenciesService {
         return effectiveGAVs;
     }
 
-    private static Set<GAV> resolveDependenciesFromEffectivePom(PomHolder pom) {
-        Stream<GAV> depManagmentStream = Optional.ofNullable(pom.getModel().getDependencyManagement())
+    private static Set<GAV> resolveDependenciesFromEffectivePom(Model pom) {
+        Stream<GAV> depManagmentStream = Optional.ofNullable(pom.getDependencyManagement())
                 .map(DependencyManagement::getDependencies).stream()
                 .flatMap(dependencies -> dependencies.stream()
                         .map(d -> new GAV(d.getGroupId(), d.getArtifactId(), d.getVersion())));
-        Stream<GAV> dependenciesStream = Optional.ofNullable(pom.getModel().getDependencies())
+        Stream<GAV> dependenciesStream = Optional.ofNullable(pom.getDependencies())
                 .stream().flatMap(dependencies -> dependencies.stream()
                         .map(d -> new GAV(d.getGroupId(), d.getArtifactId(), d.getVersion())));
-        Stream<GAV> pluginsManagementStream = Optional.ofNullable(pom.getModel().getBuild())
+        Stream<GAV> pluginsManagementStream = Optional.ofNullable(pom.getBuild())
                 .map(PluginConfiguration::getPluginManagement)
                 .map(PluginManagement::getPlugins)
                 .stream().flatMap(plugins -> {
@@ -270,7 +268,7 @@ public class MavenEffectiveDependenciesService {
                             .map(d -> new GAV(d.getGroupId(), d.getArtifactId(), d.getVersion())));
                     return Stream.concat(pluginsGavs, pluginsDepsGavs);
                 });
-        Stream<GAV> pluginsStream = Optional.ofNullable(pom.getModel().getBuild())
+        Stream<GAV> pluginsStream = Optional.ofNullable(pom.getBuild())
                 .map(PluginConfiguration::getPlugins)
                 .stream().flatMap(plugins -> {
                     Stream<GAV> pluginsGavs = plugins.stream().map(p -> new GAV(p.getGroupId(), p.getArtifactId(), p.getVersion()));
@@ -278,7 +276,10 @@ public class MavenEffectiveDependenciesService {
                             .map(d -> new GAV(d.getGroupId(), d.getArtifactId(), d.getVersion())));
                     return Stream.concat(pluginsGavs, pluginsDepsGavs);
                 });
-        return Stream.of(dependenciesStream, depManagmentStream, pluginsManagementStream, pluginsStream).flatMap(s -> s).collect(Collectors.toSet());
+        return Stream.of(dependenciesStream, depManagmentStream, pluginsManagementStream, pluginsStream).flatMap(s -> s)
+                // versions of plugins bound by maven's default lifecycle are not a part of the in-process effective model
+                .filter(gav -> gav.getVersion() != null)
+                .collect(Collectors.toSet());
     }
 
     Set<GAV> resolveImportDependencies(PomHolder pom, String mavenLocalRepoPath) {
@@ -335,14 +336,10 @@ public class MavenEffectiveDependenciesService {
             List<String> cmd = List.of("mvn", "-B", "dependency:get", "-Dartifact=" + gav.toString() + ":" + packaging,
                     wrapPropertyInQuotes("-Dmaven.repo.local=" + mavenConfig.getLocalRepositoryPath())
             );
-            ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(parentPath.toFile());
             log.info("Dir: {}\nCmd: '{}' started", path, String.join(" ", cmd));
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            process.getInputStream().transferTo(System.out);
-            process.waitFor();
-            log.info("Dir: {}\nCmd: '{}' ended with code: {}", path, String.join(" ", cmd), process.exitValue());
-            if (process.exitValue() != 0) {
+            int exitValue = mavenConfig.getMavenExecutor().execute(parentPath, cmd, null, Map.of(), System.out);
+            log.info("Dir: {}\nCmd: '{}' ended with code: {}", path, String.join(" ", cmd), exitValue);
+            if (exitValue != 0) {
                 throw new RuntimeException("Failed to execute cmd");
             }
         };
@@ -368,16 +365,14 @@ public class MavenEffectiveDependenciesService {
                     "-Dexpression=settings.localRepository",
                     wrapPropertyInQuotes("-Dmaven.repo.local=" + mavenConfig.getLocalRepositoryPath())
             );
-            ProcessBuilder processBuilder = new ProcessBuilder(cmd).directory(parentPath.toFile());
             log.info("Dir: {}\nCmd: '{}' started", pom.getPath(), String.join(" ", cmd));
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-            process.waitFor();
-            log.info("Dir: {}\nCmd: '{}' ended with code: {}", pom.getPath(), String.join(" ", cmd), process.exitValue());
-            if (process.exitValue() != 0) {
-                throw new RuntimeException("Failed to execute cmd:\n" + new String(process.getInputStream().readAllBytes()));
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            int exitValue = mavenConfig.getMavenExecutor().execute(parentPath, cmd, null, Map.of(), output);
+            log.info("Dir: {}\nCmd: '{}' ended with code: {}", pom.getPath(), String.join(" ", cmd), exitValue);
+            if (exitValue != 0) {
+                throw new RuntimeException("Failed to execute cmd:\n" + output);
             }
-            return new String(process.getInputStream().readAllBytes());
+            return output.toString();
         } catch (Exception e) {
             throw new RuntimeException("Failed to resolve local maven repository", e);
         }
@@ -86,7 +86,7 @@ public class MavenVersionDependenciesCli implements Runnable {
                 }
             };
 
-            RepositoryService repositoryService = new RepositoryService(new GitService(gitConfig));
+            RepositoryService repositoryService = new RepositoryService(new GitService(gitConfig), mavenConfig);
             Map<Integer, List<RepositoryInfo>> repositoriesMap = repositoryService.buildVersionedDependencyGraph(baseDir,
                     gitConfig, mavenConfig, repositories, createMissingBranches, validateSameVersionUpToLevel,
                     skipValidationForGAPatterns, extraBranchSuffix, out);